@@ -0,0 +1,35 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with JMH command line options, always with allocation rates of the GC profiler
+ * and results saved as JSON to {@code jmh-result.json} unless {@code -rf}/{@code -rff} say otherwise.
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regexp]}
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The entry point of benchmarks.
+     * @param args the JMH command line options
+     * @throws Exception the exception
+     */
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class);
+        if (!commandLine.getResultFormat().hasValue() && !commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
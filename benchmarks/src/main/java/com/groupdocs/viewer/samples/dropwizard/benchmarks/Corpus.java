@@ -0,0 +1,95 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderProfiler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderScheduler;
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Documents of {@code /corpus/} copied to a temporary storage and {@link ViewGenerator} set up on it
+ * the way the application sets it up, so benchmarks render through the same code as requests do.
+ * Pages are not cached by the viewer, every render converts the document.
+ * Set {@code -Dviewer.license=path} or {@code GROUPDOCS_TOTAL} like for the application to benchmark without evaluation limits.
+ */
+final class Corpus {
+    /**
+     * Documents of the corpus, one per format the viewer is mostly used for.
+     */
+    static final String[] DOCUMENTS = {"report.docx", "manual.pdf", "slides.pptx", "ledger.xlsx", "article.html", "scan.png"};
+
+    private static ViewerConfig viewerConfig;
+
+    private Corpus() {
+    }
+
+    /**
+     * Copy corpus to storage and init the generator, once per benchmark JVM.
+     * @return the viewer config of the storage
+     * @throws Exception the exception
+     */
+    static synchronized ViewerConfig open() throws Exception {
+        if (viewerConfig != null) {
+            return viewerConfig;
+        }
+        final File storage = Files.createTempDirectory("viewer-benchmarks").toFile();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                FileUtils.deleteQuietly(storage);
+            }
+        }));
+        copyTo(storage);
+
+        final DropwizardConfig configuration = new DropwizardConfig();
+        configuration.setStoragePath(storage.getAbsolutePath());
+        configuration.setLicensePath(System.getProperty("viewer.license"));
+        final ViewerConfig config = new ViewerConfig(configuration);
+        RenderProfiler.init(new MetricRegistry());
+        final RenderScheduler scheduler = new RenderScheduler(1, 0, 0, new MetricRegistry());
+        scheduler.start();
+        ViewGenerator.initGenerator(config, scheduler);
+        ViewGenerator.initStorage(new CustomInputDataHandler(
+                new LocalStorageBackend(config.getStoragePath(), ViewGenerator.getFileTreeIndex()), null));
+        viewerConfig = config;
+        return viewerConfig;
+    }
+
+    /**
+     * Copy documents of the corpus to a storage.
+     * @param storage the storage directory
+     * @throws IOException the io exception
+     */
+    static void copyTo(File storage) throws IOException {
+        for (String document : DOCUMENTS) {
+            final InputStream input = Corpus.class.getResourceAsStream("/corpus/" + document);
+            if (input == null) {
+                throw new FileNotFoundException("Corpus document is missing: " + document);
+            }
+            try {
+                Files.copy(input, new File(storage, document).toPath());
+            } finally {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Gets number of the last page of a document.
+     * @param document the document
+     * @return the page number, 1 if page count is unknown
+     */
+    static int getLastPage(String document) {
+        return Math.max(1, ViewGenerator.getDocumentMetadata(document).getPageCount());
+    }
+}
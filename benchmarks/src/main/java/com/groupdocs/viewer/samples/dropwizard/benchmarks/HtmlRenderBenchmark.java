@@ -0,0 +1,106 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Html paths of {@link ViewGenerator}, every document of the corpus rendered whole.
+ * Rotate and reorder store the transformation with the document, so each call transforms the page once more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HtmlRenderBenchmark {
+    @Param({"report.docx", "manual.pdf", "slides.pptx", "ledger.xlsx", "article.html"})
+    public String document;
+
+    private int lastPage;
+
+    /**
+     * Open the corpus.
+     * @throws Exception the exception
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.open();
+        lastPage = Corpus.getLastPage(document);
+    }
+
+    /**
+     * Path of renderashtml.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<HtmlInfo> embeddedResources() throws Exception {
+        return ViewGenerator.renderDocumentAsHtml(document, true, null);
+    }
+
+    /**
+     * Same render with fonts, styles and images as external resources.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<HtmlInfo> externalResources() throws Exception {
+        return ViewGenerator.renderDocumentAsHtml(document, false, null);
+    }
+
+    /**
+     * Path of renderashtmlwithwatermark.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<HtmlInfo> watermark() throws Exception {
+        return ViewGenerator.renderDocumentAsHtml(document, "Benchmark", Color.RED, 100, null);
+    }
+
+    /**
+     * Path of renderashtmlwithrotate.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<HtmlInfo> rotate() throws Exception {
+        return ViewGenerator.rotateDocumentAsHtml(document, 1, 90, null);
+    }
+
+    /**
+     * Path of renderashtmlwithreorder, the first page moved to the end.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<HtmlInfo> reorder() throws Exception {
+        return ViewGenerator.renderDocumentAsHtml(document, 1, lastPage, null);
+    }
+
+    /**
+     * Path of renderashtmlrange, the first pages a client shows.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<HtmlInfo> pageRange() throws Exception {
+        return ViewGenerator.renderPagesAsHtml(document, 1, Math.min(3, lastPage), null);
+    }
+}
@@ -0,0 +1,93 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import com.groupdocs.viewer.samples.dropwizard.model.business.ImageInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image paths of {@link ViewGenerator}, page images are written to temp path as for requests.
+ * Rotate and reorder store the transformation with the document, so each call transforms the page once more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ImageRenderBenchmark {
+    @Param({"report.docx", "manual.pdf", "slides.pptx", "ledger.xlsx", "article.html", "scan.png"})
+    public String document;
+
+    private int lastPage;
+
+    /**
+     * Open the corpus.
+     * @throws Exception the exception
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.open();
+        lastPage = Corpus.getLastPage(document);
+    }
+
+    /**
+     * Path of renderasimage.
+     * @return the pages
+     */
+    @Benchmark
+    public List<ImageInfo> images() {
+        return ViewGenerator.renderDocumentAsImages(document, null);
+    }
+
+    /**
+     * Path of renderasimagewithwatermark.
+     * @return the pages
+     */
+    @Benchmark
+    public List<ImageInfo> watermark() {
+        return ViewGenerator.renderDocumentAsImages(document, "Benchmark", Color.RED, 100, null);
+    }
+
+    /**
+     * Path of renderasimagewithrotate.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<ImageInfo> rotate() throws Exception {
+        return ViewGenerator.rotateDocumentAsImages(document, 1, 90, null);
+    }
+
+    /**
+     * Path of renderasimagewithreorder, the first page moved to the end.
+     * @return the pages
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public List<ImageInfo> reorder() throws Exception {
+        return ViewGenerator.renderDocumentAsImages(document, 1, lastPage, null);
+    }
+
+    /**
+     * Path of renderasimagerange, the first pages a client shows.
+     * @return the pages
+     */
+    @Benchmark
+    public List<ImageInfo> pageRange() {
+        return ViewGenerator.renderPagesAsImages(document, 1, Math.min(3, lastPage), null);
+    }
+}
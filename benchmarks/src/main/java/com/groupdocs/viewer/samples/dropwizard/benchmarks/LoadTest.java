@@ -0,0 +1,369 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.groupdocs.viewer.samples.dropwizard.MainService;
+import com.groupdocs.viewer.samples.dropwizard.benchmarks.LoadTraffic.Operation;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import io.dropwizard.configuration.ConfigurationFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.jetty.HttpConnectorFactory;
+import io.dropwizard.logging.AppenderFactory;
+import io.dropwizard.logging.DefaultLoggingFactory;
+import io.dropwizard.server.AbstractServerFactory;
+import io.dropwizard.server.DefaultServerFactory;
+import io.dropwizard.server.SimpleServerFactory;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.testing.DropwizardTestSupport;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots {@link MainService} in-process on a temporary storage with the benchmark corpus and free ports, and drives
+ * a mix of upload, render and image traffic from concurrent clients, then reports throughput, latency percentiles,
+ * errors and heap/GC statistics of the measured period. Clients run in the same JVM, so heap and GC include them.
+ * Exits with status 1 when a limit given by {@code --max-p99}, {@code --max-error-rate} or {@code --min-throughput}
+ * is exceeded, so it can gate a build.
+ * Usage: {@code java -cp benchmarks/target/benchmarks.jar com.groupdocs.viewer.samples.dropwizard.benchmarks.LoadTest [options]}
+ */
+public class LoadTest {
+    private static final int RESERVOIR_SIZE = 1 << 18;
+    private static final int MAX_ERRORS_PRINTED = 10;
+    private static final long READY_TIMEOUT_MINUTES = 10;
+
+    private final Namespace namespace;
+    private final Map<Operation, Integer> mix;
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final Timer total = newTimer("all");
+    private final Map<Operation, Timer> timers = new EnumMap<Operation, Timer>(Operation.class);
+    private final Map<Operation, Counter> errors = new EnumMap<Operation, Counter>(Operation.class);
+    private final AtomicInteger errorsPrinted = new AtomicInteger();
+    private final AtomicLong peakHeap = new AtomicLong();
+
+    /**
+     * Instantiates a new Load test.
+     * @param namespace the parsed options
+     */
+    LoadTest(Namespace namespace) {
+        this.namespace = namespace;
+        this.mix = parseMix(namespace.getString("mix"));
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, newTimer(operation.name().toLowerCase()));
+            errors.put(operation, metrics.counter(MetricRegistry.name(LoadTest.class, operation.name().toLowerCase(), "errors")));
+        }
+    }
+
+    /**
+     * The entry point of the load test.
+     * @param args the options
+     * @throws Exception the exception
+     */
+    public static void main(String[] args) throws Exception {
+        final ArgumentParser parser = ArgumentParsers.newArgumentParser("LoadTest").defaultHelp(true)
+                .description("Load test of the viewer application running in-process");
+        parser.addArgument("-f", "--config").dest("config").setDefault("configuration.yml")
+                .help("application configuration, storage path and ports are overridden");
+        parser.addArgument("-n", "--clients").dest("clients").type(Integer.class).setDefault(16)
+                .help("count of concurrent clients");
+        parser.addArgument("-w", "--warmup").dest("warmup").type(Integer.class).setDefault(30)
+                .help("seconds of traffic before measurement");
+        parser.addArgument("-d", "--duration").dest("duration").type(Integer.class).setDefault(60)
+                .help("seconds of measured traffic");
+        parser.addArgument("-m", "--mix").dest("mix").setDefault("upload=1,render=6,image=3")
+                .help("weights of operations");
+        parser.addArgument("-a", "--actions").dest("actions").setDefault("renderashtml,renderasimage,renderashtmlrange")
+                .help("render actions, picked at random for every render");
+        parser.addArgument("-t", "--think").dest("think").type(Integer.class).setDefault(0)
+                .help("milliseconds a client waits between requests");
+        parser.addArgument("--max-p99").dest("maxP99").type(Long.class)
+                .help("fail if p99 latency of all requests is above this count of milliseconds");
+        parser.addArgument("--max-error-rate").dest("maxErrorRate").type(Double.class)
+                .help("fail if share of failed requests is above this, e.g. 0.01");
+        parser.addArgument("--min-throughput").dest("minThroughput").type(Double.class)
+                .help("fail if requests per second are below this");
+        final Namespace namespace;
+        try {
+            namespace = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(2);
+            return;
+        }
+        System.exit(new LoadTest(namespace).run() ? 0 : 1);
+    }
+
+    /**
+     * Run the load test.
+     * @return true if the result is within the limits
+     * @throws Exception the exception
+     */
+    boolean run() throws Exception {
+        final int clients = namespace.getInt("clients");
+        final File storage = Files.createTempDirectory("viewer-load").toFile();
+        Corpus.copyTo(storage);
+        // Every client keeps its connection alive between requests
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+        final DropwizardTestSupport<DropwizardConfig> application = new DropwizardTestSupport<DropwizardConfig>(MainService.class,
+                loadConfiguration(storage));
+        application.before();
+        try {
+            awaitReady(application.getEnvironment());
+            final LoadTraffic traffic = new LoadTraffic("http://localhost:" + application.getLocalPort(),
+                    Splitter.on(',').trimResults().omitEmptyStrings().splitToList(namespace.getString("actions")), storage);
+            traffic.prime();
+            if (mix.containsKey(Operation.IMAGE) && traffic.getImageCount() == 0) {
+                throw new IllegalStateException("No page images were rendered to fetch, check the application log");
+            }
+            return drive(traffic, clients);
+        } finally {
+            application.after();
+            FileUtils.deleteQuietly(storage);
+        }
+    }
+
+    /**
+     * Load configuration of the application with the storage, free ports, only warnings logged and no request log.
+     */
+    private DropwizardConfig loadConfiguration(File storage) throws Exception {
+        final DropwizardConfig configuration = new ConfigurationFactory<DropwizardConfig>(DropwizardConfig.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "dw").build(new File(namespace.getString("config")));
+        configuration.setStoragePath(storage.getAbsolutePath());
+        if (configuration.getServerFactory() instanceof AbstractServerFactory) {
+            // Request log of every load request would slow the application down
+            ((AbstractServerFactory) configuration.getServerFactory()).getRequestLogFactory()
+                    .setAppenders(ImmutableList.<AppenderFactory>of());
+        }
+        if (configuration.getServerFactory() instanceof DefaultServerFactory) {
+            final DefaultServerFactory server = (DefaultServerFactory) configuration.getServerFactory();
+            useFreePorts(server.getApplicationConnectors());
+            useFreePorts(server.getAdminConnectors());
+        } else if (configuration.getServerFactory() instanceof SimpleServerFactory) {
+            useFreePorts(Collections.singletonList(((SimpleServerFactory) configuration.getServerFactory()).getConnector()));
+        }
+        if (configuration.getLoggingFactory() instanceof DefaultLoggingFactory) {
+            ((DefaultLoggingFactory) configuration.getLoggingFactory()).setLevel(Level.WARN);
+        }
+        return configuration;
+    }
+
+    private static void useFreePorts(List<ConnectorFactory> connectors) {
+        for (ConnectorFactory connector : connectors) {
+            if (connector instanceof HttpConnectorFactory) {
+                ((HttpConnectorFactory) connector).setPort(0);
+            }
+        }
+    }
+
+    private boolean drive(final LoadTraffic traffic, int clients) throws InterruptedException {
+        final long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(namespace.getInt("warmup"));
+        final long end = warmupEnd + TimeUnit.SECONDS.toNanos(namespace.getInt("duration"));
+        final int think = namespace.getInt("think");
+        System.out.println(String.format("Load test: %d clients, mix %s, %d s warm-up, %d s measured",
+                clients, mix, namespace.getInt("warmup"), namespace.getInt("duration")));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(clients,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("load-client-%d").build());
+        for (int i = 0; i < clients; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Random random = new Random();
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        request(traffic, pick(random), random, warmupEnd);
+                        if (think > 0) {
+                            try {
+                                Thread.sleep(think);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        // Heap and GC of the measured period only
+        final long remaining = warmupEnd - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+        final long[] gcBefore = gcTotals();
+        final long measureStart = System.nanoTime();
+        final ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("load-heap-sampler").build());
+        heapSampler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                final long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                long peak;
+                do {
+                    peak = peakHeap.get();
+                } while (used > peak && !peakHeap.compareAndSet(peak, used));
+            }
+        }, 0, 200, TimeUnit.MILLISECONDS);
+        // Requests in flight at the end are waited for, their latency is part of the result
+        executor.awaitTermination(end - System.nanoTime() + TimeUnit.MINUTES.toNanos(5), TimeUnit.NANOSECONDS);
+        executor.shutdownNow();
+        heapSampler.shutdownNow();
+        final double seconds = (System.nanoTime() - measureStart) / 1e9;
+        final long[] gcAfter = gcTotals();
+        return report(seconds, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    private void request(LoadTraffic traffic, Operation operation, Random random, long warmupEnd) {
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            traffic.execute(operation, random);
+        } catch (Exception e) {
+            failed = true;
+            if (start >= warmupEnd && errorsPrinted.incrementAndGet() <= MAX_ERRORS_PRINTED) {
+                System.out.println("Request failed: " + e);
+            }
+        }
+        if (start < warmupEnd) {
+            return;
+        }
+        if (failed) {
+            errors.get(operation).inc();
+        } else {
+            final long elapsed = System.nanoTime() - start;
+            timers.get(operation).update(elapsed, TimeUnit.NANOSECONDS);
+            total.update(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean report(double seconds, long gcCount, long gcMillis) {
+        System.out.println(String.format("%-8s %9s %9s %9s %9s %9s %9s %8s", "", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors"));
+        long failed = 0;
+        for (Operation operation : Operation.values()) {
+            if (mix.containsKey(operation)) {
+                printLine(operation.name().toLowerCase(), timers.get(operation), errors.get(operation).getCount(), seconds);
+                failed += errors.get(operation).getCount();
+            }
+        }
+        printLine("all", total, failed, seconds);
+
+        final long maxHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        System.out.println(String.format("heap: peak %d MB of %d MB, gc: %d collections, %d ms (%.1f%% of time)",
+                peakHeap.get() >> 20, maxHeap >> 20, gcCount, gcMillis, gcMillis / (seconds * 10)));
+
+        final long requests = total.getCount() + failed;
+        final double throughput = requests / seconds;
+        final double errorRate = requests == 0 ? 0 : (double) failed / requests;
+        final long p99 = TimeUnit.NANOSECONDS.toMillis((long) total.getSnapshot().get99thPercentile());
+        boolean passed = true;
+        final Long maxP99 = namespace.get("maxP99");
+        if (maxP99 != null && p99 > maxP99) {
+            System.out.println(String.format("FAILED: p99 latency %d ms is above %d ms", p99, maxP99));
+            passed = false;
+        }
+        final Double maxErrorRate = namespace.get("maxErrorRate");
+        if (maxErrorRate != null && errorRate > maxErrorRate) {
+            System.out.println(String.format("FAILED: error rate %.4f is above %.4f", errorRate, maxErrorRate));
+            passed = false;
+        }
+        final Double minThroughput = namespace.get("minThroughput");
+        if (minThroughput != null && throughput < minThroughput) {
+            System.out.println(String.format("FAILED: throughput %.1f req/s is below %.1f req/s", throughput, minThroughput));
+            passed = false;
+        }
+        return passed;
+    }
+
+    private static void printLine(String name, Timer timer, long failed, double seconds) {
+        final Snapshot snapshot = timer.getSnapshot();
+        final long requests = timer.getCount() + failed;
+        System.out.println(String.format("%-8s %9d %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f%%", name, requests, requests / seconds,
+                snapshot.getMedian() / 1e6, snapshot.get95thPercentile() / 1e6, snapshot.get99thPercentile() / 1e6,
+                snapshot.getMax() / 1e6, requests == 0 ? 0 : 100.0 * failed / requests));
+    }
+
+    private Operation pick(Random random) {
+        int weight = 0;
+        for (int value : mix.values()) {
+            weight += value;
+        }
+        int choice = random.nextInt(weight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            choice -= entry.getValue();
+            if (choice < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Mix has no operations");
+    }
+
+    private Timer newTimer(String name) {
+        // Window keeps every sample of a test run, so percentiles are exact rather than decayed
+        return metrics.register(MetricRegistry.name(LoadTest.class, name), new Timer(new SlidingWindowReservoir(RESERVOIR_SIZE)));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        final Map<Operation, Integer> weights = new EnumMap<Operation, Integer>(Operation.class);
+        for (Map.Entry<String, String> entry : Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(value).entrySet()) {
+            final int weight = Integer.parseInt(entry.getValue().trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(entry.getKey().trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations: " + value);
+        }
+        return weights;
+    }
+
+    private static void awaitReady(Environment environment) throws InterruptedException {
+        if (!environment.healthChecks().getNames().contains("readiness")) {
+            return;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(READY_TIMEOUT_MINUTES);
+        while (!environment.healthChecks().runHealthCheck("readiness").isHealthy()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Application is not ready after " + READY_TIMEOUT_MINUTES + " minutes");
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    /**
+     * Gets count and time of collections of all collectors.
+     */
+    private static long[] gcTotals() {
+        final long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionCount());
+            totals[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return totals;
+    }
+}
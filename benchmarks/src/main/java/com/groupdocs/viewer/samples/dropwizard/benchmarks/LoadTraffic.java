@@ -0,0 +1,209 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import io.dropwizard.jackson.Jackson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests of the load test, made over HTTP the way the viewer page makes them.
+ * Uploaded documents join the rendered ones and rendered page images join the fetched ones,
+ * so traffic moves over new documents as the test goes.
+ */
+final class LoadTraffic {
+    /**
+     * Kinds of traffic.
+     */
+    enum Operation {
+        UPLOAD, RENDER, IMAGE
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_POOL = 1000;
+    private static final int READ_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(5);
+    // Upload handler accepts these types of the corpus
+    private static final List<String> UPLOADED = Arrays.asList("report.docx", "manual.pdf", "slides.pptx", "ledger.xlsx", "article.html");
+
+    private final String baseUrl;
+    private final List<String> actions;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final List<byte[]> uploads = new ArrayList<byte[]>();
+    private final List<String> documents = new ArrayList<String>();
+    private final List<String> images = new ArrayList<String>();
+
+    /**
+     * Instantiates a new Load traffic.
+     * @param baseUrl the base url of the application
+     * @param actions the render actions
+     * @param storage the storage with the corpus
+     * @throws IOException the io exception
+     */
+    LoadTraffic(String baseUrl, List<String> actions, File storage) throws IOException {
+        this.baseUrl = baseUrl;
+        this.actions = actions;
+        for (String document : UPLOADED) {
+            uploads.add(Files.readAllBytes(new File(storage, document).toPath()));
+        }
+        documents.addAll(Arrays.asList(Corpus.DOCUMENTS));
+    }
+
+    /**
+     * Render every document of the corpus as images, which warms renders up and gives page images to fetch.
+     */
+    void prime() {
+        for (String document : Corpus.DOCUMENTS) {
+            try {
+                render(document, "renderasimage", new Random());
+            } catch (IOException e) {
+                System.out.println("Priming render failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets count of page images to fetch.
+     * @return the count
+     */
+    int getImageCount() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    /**
+     * Make a request of the operation.
+     * @param operation the operation
+     * @param random    the random of the client
+     * @throws IOException if the request failed or the application responded with an error
+     */
+    void execute(Operation operation, Random random) throws IOException {
+        switch (operation) {
+            case UPLOAD:
+                upload(random);
+                break;
+            case RENDER:
+                render(pick(documents, random), actions.get(random.nextInt(actions.size())), random);
+                break;
+            case IMAGE:
+                send("GET", pick(images, random), null, null);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private void upload(Random random) throws IOException {
+        final int index = random.nextInt(UPLOADED.size());
+        final String boundary = "load" + Long.toHexString(random.nextLong());
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        // Upload handler takes file name from name of the field
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + UPLOADED.get(index)
+                + "\"; filename=\"" + UPLOADED.get(index) + "\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(UTF_8));
+        body.write(uploads.get(index));
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(UTF_8));
+        final byte[] guid = send("POST", "/Controllers/UploadHandler.ashx", body.toByteArray(), "multipart/form-data; boundary=" + boundary);
+        add(documents, new String(guid, UTF_8).trim(), random);
+    }
+
+    private void render(String document, String action, Random random) throws IOException {
+        final byte[] pages = send("GET", "/Controllers/MainHandler.ashx?action=" + encode(action)
+                + "&filepath=" + encode(document) + parametersOf(action), null, null);
+        if (action.startsWith("renderasimage")) {
+            for (JsonNode page : objectMapper.readTree(pages)) {
+                if (page.hasNonNull("imageUrl")) {
+                    add(images, page.get("imageUrl").asText(), random);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parameters the viewer page sends with an action.
+     */
+    private static String parametersOf(String action) {
+        if (action.endsWith("range")) {
+            return "&start=1&count=2";
+        } else if (action.endsWith("withwatermark")) {
+            return "&watermark=Load";
+        } else if (action.endsWith("withrotate")) {
+            return "&page=1&angle=90";
+        } else if (action.endsWith("withreorder")) {
+            return "&start=1&new=1";
+        }
+        return "";
+    }
+
+    private byte[] send(String method, String path, byte[] body, String contentType) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setReadTimeout(READ_TIMEOUT);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setFixedLengthStreamingMode(body.length);
+            final OutputStream output = connection.getOutputStream();
+            try {
+                output.write(body);
+            } finally {
+                output.close();
+            }
+        }
+        final int status = connection.getResponseCode();
+        // Response is read to the end, so the connection is kept alive for the next request of the client
+        final InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        final byte[] content;
+        if (input == null) {
+            content = new byte[0];
+        } else {
+            try {
+                content = ByteStreams.toByteArray(input);
+            } finally {
+                input.close();
+            }
+        }
+        if (status >= 400) {
+            throw new IOException(method + " " + path + " responded " + status);
+        }
+        return content;
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static String pick(List<String> pool, Random random) {
+        synchronized (pool) {
+            if (pool.isEmpty()) {
+                throw new IllegalStateException("Nothing to request yet");
+            }
+            return pool.get(random.nextInt(pool.size()));
+        }
+    }
+
+    private static void add(List<String> pool, String value, Random random) {
+        synchronized (pool) {
+            if (pool.size() < MAX_POOL) {
+                pool.add(value);
+            } else {
+                pool.set(random.nextInt(MAX_POOL), value);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import org.apache.commons.io.FilenameUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Utilities#saveAsImage(String, String, java.io.InputStream)} of a page image rendered by the viewer,
+ * the write stage of every image render.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveAsImageBenchmark {
+    @Param({"report.docx", "scan.png"})
+    public String document;
+
+    private String tempPath;
+    private byte[] image;
+
+    /**
+     * Render the first page of the document and keep its image.
+     * @throws Exception the exception
+     */
+    @Setup
+    public void setUp() throws Exception {
+        tempPath = Corpus.open().getTempPath();
+        ViewGenerator.renderPagesAsImages(document, 1, 1, null);
+        image = Files.readAllBytes(Utilities.makeImagePath(tempPath, "1_" + FilenameUtils.getBaseName(document)).toPath());
+    }
+
+    /**
+     * Save the page image.
+     */
+    @Benchmark
+    public void saveAsImage() {
+        Utilities.saveAsImage(tempPath, "benchmark_" + document, new ByteArrayInputStream(image));
+    }
+}
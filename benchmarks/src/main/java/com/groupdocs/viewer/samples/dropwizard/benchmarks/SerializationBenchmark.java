@@ -0,0 +1,67 @@
+package com.groupdocs.viewer.samples.dropwizard.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
+import io.dropwizard.jackson.Jackson;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON of html pages as the viewer resource writes it: streamed for MainHandler.ashx and as bytes for page events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"report.docx", "manual.pdf", "ledger.xlsx"})
+    public String document;
+
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private List<HtmlInfo> pages;
+
+    /**
+     * Render pages of the document with embedded resources, the largest json the resource writes.
+     * @throws Exception the exception
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.open();
+        pages = ViewGenerator.renderDocumentAsHtml(document, true, null);
+    }
+
+    /**
+     * Write pages to the response stream.
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public void streamed() throws Exception {
+        objectMapper.writeValue(new NullOutputStream(), pages);
+    }
+
+    /**
+     * Write the first page as bytes of an event.
+     * @return the bytes
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public byte[] event() throws Exception {
+        return objectMapper.writeValueAsBytes(pages.get(0));
+    }
+}
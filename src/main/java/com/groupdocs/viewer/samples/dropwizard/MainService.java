@@ -1,8 +1,29 @@
 package com.groupdocs.viewer.samples.dropwizard;
 
+import com.groupdocs.viewer.samples.dropwizard.cli.ReplayCommand;
 import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.HealthConfig;
 import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
-import com.groupdocs.viewer.samples.dropwizard.health.TemplateHealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.RemoteDocumentFetcher;
+import com.groupdocs.viewer.samples.dropwizard.health.CanaryHealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.health.DiskSpaceHealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.health.ReadinessHealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.health.RenderQueueHealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.model.ClientRateLimiter;
+import com.groupdocs.viewer.samples.dropwizard.model.DiskJanitor;
+import com.groupdocs.viewer.samples.dropwizard.model.PdfIntermediateCache;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderAdmission;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderLeaseManager;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderProfiler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderScheduler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderService;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderWorkerPool;
+import com.groupdocs.viewer.samples.dropwizard.model.ResponseCache;
+import com.groupdocs.viewer.samples.dropwizard.model.SlowRenderRecorder;
+import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import com.groupdocs.viewer.samples.dropwizard.model.WarmUp;
 import com.groupdocs.viewer.samples.dropwizard.resources.ViewerResource;
 import io.dropwizard.Application;
 import io.dropwizard.assets.AssetsBundle;
@@ -13,6 +34,12 @@ import io.dropwizard.views.ViewBundle;
 import org.eclipse.jetty.servlet.ServletHolder;
 
 import javax.servlet.MultipartConfigElement;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The type Main service.
@@ -47,6 +74,7 @@ public class MainService extends Application<DropwizardConfig> {
         bootstrap.addBundle(new MultiPartBundle());
         bootstrap.addBundle(new ViewBundle<DropwizardConfig>());
         bootstrap.addBundle(new AssetsBundle("/assets/", "/assets/"));
+        bootstrap.addCommand(new ReplayCommand());
     }
 
     /**
@@ -57,9 +85,90 @@ public class MainService extends Application<DropwizardConfig> {
      */
     @Override
     public void run(DropwizardConfig configuration, Environment environment) throws Exception {
-        final ViewerResource resource = new ViewerResource(new ViewerConfig(configuration), configuration);
-        final TemplateHealthCheck healthCheck = new TemplateHealthCheck("template");
-        environment.healthChecks().register("template", healthCheck);
+        final ViewerConfig viewerConfig = new ViewerConfig(configuration);
+        RenderProfiler.init(environment.metrics());
+        final RenderScheduler renderScheduler = new RenderScheduler(configuration.getRenderThreads(),
+                configuration.getRemainingPagesDelay().toMilliseconds(),
+                configuration.getBackgroundDelay().toMilliseconds(),
+                environment.metrics());
+        environment.lifecycle().manage(renderScheduler);
+        ViewGenerator.initGenerator(viewerConfig, renderScheduler);
+
+        final RenderAdmission renderAdmission = new RenderAdmission(configuration.getRenderMemoryBudget().toBytes(), environment.metrics());
+        environment.lifecycle().manage(renderAdmission);
+
+        final RenderService renderService = new RenderService(renderScheduler, renderAdmission, configuration.getRenderTimeout().toMilliseconds(), environment.metrics());
+        RenderWorkerPool workerPool = null;
+        if (configuration.getRenderWorkers().isEnabled()) {
+            final List<String> workerArguments = new ArrayList<String>();
+            workerArguments.add(configuration.getStoragePath());
+            if (configuration.getLicensePath() != null && !configuration.getLicensePath().isEmpty()) {
+                workerArguments.add(configuration.getLicensePath());
+            }
+            workerPool = new RenderWorkerPool(configuration.getRenderWorkers(), workerArguments, environment.metrics());
+            environment.lifecycle().manage(workerPool);
+            renderService.setWorkerPool(workerPool);
+        }
+        if (configuration.getCluster().isEnabled()) {
+            final RenderLeaseManager leaseManager = new RenderLeaseManager(configuration.getCluster(), viewerConfig.getCachePath(), environment.metrics());
+            environment.lifecycle().manage(leaseManager);
+            renderService.setLeaseManager(leaseManager);
+        }
+        if (configuration.getSlowRenders().isEnabled()) {
+            final SlowRenderRecorder slowRenderRecorder = new SlowRenderRecorder(configuration.getSlowRenders(), viewerConfig.getCachePath(), environment.metrics());
+            environment.lifecycle().manage(slowRenderRecorder);
+            renderService.setSlowRenderRecorder(slowRenderRecorder);
+        }
+        ResponseCache responseCache = null;
+        if (configuration.getResponseCache().isEnabled()) {
+            responseCache = new ResponseCache(configuration.getResponseCache(), environment.metrics());
+            renderService.setResponseCache(responseCache);
+        }
+        if (configuration.getJanitor().isEnabled()) {
+            final List<File> janitorRoots = Arrays.asList(new File(viewerConfig.getTempPath()),
+                    Utilities.makeImagePath(viewerConfig.getTempPath(), "page").getParentFile(),
+                    new File(viewerConfig.getCachePath()));
+            environment.lifecycle().manage(new DiskJanitor(configuration.getJanitor(), janitorRoots, environment.metrics()));
+        }
+
+        environment.lifecycle().manage(ViewGenerator.getFileTreeIndex());
+        final CustomInputDataHandler inputDataHandler = CustomInputDataHandler.create(configuration.getStorage(),
+                viewerConfig.getStoragePath(), viewerConfig.getCachePath(), ViewGenerator.getFileTreeIndex());
+        if (configuration.getRemoteFetch().isEnabled()) {
+            final RemoteDocumentFetcher remoteFetcher = new RemoteDocumentFetcher(configuration.getRemoteFetch(),
+                    viewerConfig.getStoragePath(), viewerConfig.getCachePath(), environment.metrics());
+            inputDataHandler.setRemoteFetcher(remoteFetcher);
+            ViewGenerator.initRemoteFetcher(remoteFetcher);
+        }
+        final PdfIntermediateCache pdfCache = ViewGenerator.getPdfCache();
+        inputDataHandler.addLocalDirectory(pdfCache.getGuidPrefix(), pdfCache.getDirectory());
+        if (configuration.getPdfIntermediate().isEnabled()) {
+            pdfCache.setDocumentTypes(configuration.getPdfIntermediate().getDocumentTypes());
+        }
+        ViewGenerator.initStorage(inputDataHandler);
+
+        // Bundled documents are used by the canary health check even without warm-up
+        final WarmUp warmUp = new WarmUp(viewerConfig.getStoragePath(), viewerConfig.getTempPath(), renderService, environment.metrics());
+        inputDataHandler.addLocalDirectory(warmUp.getGuidPrefix(), warmUp.getDirectory());
+        if (configuration.isWarmUp()) {
+            environment.lifecycle().manage(warmUp);
+            environment.healthChecks().register("readiness", new ReadinessHealthCheck(warmUp));
+        }
+        if (workerPool != null) {
+            // Workers read documents the same way as this process
+            workerPool.setStorage(configuration, inputDataHandler.getLocalDirectories());
+        }
+
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(configuration.getRateLimits(), environment.metrics());
+        final ViewerResource resource = new ViewerResource(viewerConfig, configuration, renderService, rateLimiter, responseCache);
+        final HealthConfig health = configuration.getHealth();
+        environment.healthChecks().register("render-queue", new RenderQueueHealthCheck(renderScheduler, renderService,
+                health.getMaxQueueDepth(), health.getMaxRenderLatency().toMilliseconds()));
+        final Map<String, File> renderDirectories = new LinkedHashMap<String, File>();
+        renderDirectories.put("cache", new File(viewerConfig.getCachePath()));
+        renderDirectories.put("temp", new File(viewerConfig.getTempPath()));
+        environment.healthChecks().register("disk-space", new DiskSpaceHealthCheck(renderDirectories, health.getMinFreeSpace().toBytes()));
+        environment.healthChecks().register("canary", new CanaryHealthCheck(renderService, warmUp, health.getCanaryTimeout().toMilliseconds()));
 
         ServletHolder mainHolder = new ServletHolder(environment.getJerseyServletContainer());
         mainHolder.getRegistration().setMultipartConfig(new MultipartConfigElement("data/tmp", 1048576, 1048576, 262144));
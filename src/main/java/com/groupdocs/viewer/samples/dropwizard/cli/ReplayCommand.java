@@ -0,0 +1,147 @@
+package com.groupdocs.viewer.samples.dropwizard.cli;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.PdfIntermediateCache;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderProfiler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderScheduler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderStage;
+import com.groupdocs.viewer.samples.dropwizard.model.SlowRenderRecorder;
+import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
+import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import com.groupdocs.viewer.samples.dropwizard.model.business.SlowRender;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays renders captured by {@link SlowRenderRecorder} against a local {@link ViewGenerator} and reports their timing,
+ * so a latency outlier of production can be reproduced and bisected offline.
+ * Usage: {@code java -jar viewer.jar replay [-f captures.jsonl] [-r 3] [-g guid] configuration.yml}
+ */
+public class ReplayCommand extends ConfiguredCommand<DropwizardConfig> {
+
+    /**
+     * Instantiates a new Replay command.
+     */
+    public ReplayCommand() {
+        super("replay", "Replay captured slow renders and report their timing");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("-f", "--captures")
+                .dest("captures")
+                .help("capture file, captures.jsonl of the cache path by default");
+        subparser.addArgument("-r", "--repeat")
+                .dest("repeat")
+                .type(Integer.class)
+                .setDefault(3)
+                .help("count of renders of every capture, the first one includes warm-up of the JVM");
+        subparser.addArgument("-g", "--guid")
+                .dest("guid")
+                .help("replay only captures of this document");
+    }
+
+    @Override
+    protected void run(Bootstrap<DropwizardConfig> bootstrap, Namespace namespace, DropwizardConfig configuration) throws Exception {
+        final ViewerConfig viewerConfig = new ViewerConfig(configuration);
+        final File captures = namespace.getString("captures") != null
+                ? new File(namespace.getString("captures"))
+                : new File(SlowRenderRecorder.getDirectory(viewerConfig.getCachePath()), "captures.jsonl");
+        if (!captures.isFile()) {
+            System.out.println("No captures to replay: " + captures.getAbsolutePath());
+            return;
+        }
+        final int repeat = Math.max(1, namespace.getInt("repeat"));
+
+        // Same pipeline as the application renders with, documents kept with captures are read from the capture directory
+        final RenderScheduler scheduler = new RenderScheduler(1, 0, 0, new MetricRegistry());
+        scheduler.start();
+        ViewGenerator.initGenerator(viewerConfig, scheduler);
+        final CustomInputDataHandler inputDataHandler = new CustomInputDataHandler(
+                new LocalStorageBackend(viewerConfig.getStoragePath(), ViewGenerator.getFileTreeIndex()), null);
+        final File keptDirectory = captures.getAbsoluteFile().getParentFile();
+        final String keptPrefix = Utilities.makeGuid(viewerConfig.getStoragePath(), keptDirectory) + "/";
+        inputDataHandler.addLocalDirectory(keptPrefix, keptDirectory);
+        final PdfIntermediateCache pdfCache = ViewGenerator.getPdfCache();
+        inputDataHandler.addLocalDirectory(pdfCache.getGuidPrefix(), pdfCache.getDirectory());
+        if (configuration.getPdfIntermediate().isEnabled()) {
+            pdfCache.setDocumentTypes(configuration.getPdfIntermediate().getDocumentTypes());
+        }
+        ViewGenerator.initStorage(inputDataHandler);
+
+        int replayed = 0;
+        int slower = 0;
+        try {
+            for (SlowRender capture : SlowRenderRecorder.read(captures)) {
+                if (namespace.getString("guid") != null && !namespace.getString("guid").equals(capture.getGuid())) {
+                    continue;
+                }
+                final String guid = capture.getDocument() != null ? keptPrefix + capture.getDocument() : capture.getGuid();
+                if (capture.getDocument() == null && capture.getVersion() != null
+                        && !capture.getVersion().equals(ViewGenerator.getDocumentVersion(guid))) {
+                    System.out.println("Document changed since capture, timing may differ: " + guid);
+                }
+                final long median = replay(capture, guid, repeat);
+                if (median < 0) {
+                    continue;
+                }
+                replayed++;
+                if (median >= capture.getElapsedMillis()) {
+                    slower++;
+                }
+            }
+        } finally {
+            scheduler.stop();
+        }
+        System.out.println(String.format("Replayed %d captures, %d of them as slow as in production or slower", replayed, slower));
+    }
+
+    /**
+     * Render the capture repeat times and print timing of renders and their stages.
+     * @return the median render time in milliseconds, -1 if the capture could not be rendered
+     */
+    private long replay(SlowRender capture, String guid, int repeat) {
+        final RenderRequest request = new RenderRequest(capture.getAction(), guid);
+        request.setParameters(capture.getParameters());
+        final MetricRegistry metrics = new MetricRegistry();
+        RenderProfiler.init(metrics);
+        final long[] elapsed = new long[repeat];
+        for (int i = 0; i < repeat; i++) {
+            final long start = System.nanoTime();
+            try {
+                ViewGenerator.render(request);
+            } catch (Exception e) {
+                System.out.println(String.format("%s %s failed: %s", capture.getAction(), guid, e));
+                return -1;
+            }
+            elapsed[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        final long first = elapsed[0];
+        Arrays.sort(elapsed);
+        final long median = elapsed[repeat / 2];
+        System.out.println(String.format("%s %s %s: captured %d ms (%s), replayed first %d ms, min %d ms, median %d ms",
+                capture.getAction(), guid, capture.getParameters(), capture.getElapsedMillis(), capture.getOutcome(),
+                first, elapsed[0], median));
+        final StringBuilder stages = new StringBuilder("  per render:");
+        for (RenderStage stage : RenderStage.values()) {
+            final Timer timer = RenderProfiler.getTimer(stage);
+            final double total = timer.getCount() * timer.getSnapshot().getMean() / repeat;
+            stages.append(String.format(" %s %d ms", stage.name().toLowerCase(), TimeUnit.NANOSECONDS.toMillis((long) total)));
+        }
+        System.out.println(stages);
+        return median;
+    }
+}
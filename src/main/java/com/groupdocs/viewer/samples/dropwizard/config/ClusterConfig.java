@@ -0,0 +1,91 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The type Cluster config. Coordination of several nodes sharing one storage path.
+ */
+public class ClusterConfig {
+    private boolean enabled = false;
+    private String nodeId;
+    private Duration leaseTimeout = Duration.seconds(30);
+    private Duration heartbeatInterval = Duration.seconds(5);
+
+    /**
+     * Is enabled boolean.
+     * @return true if renders are claimed by lease files in shared cache
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets id of this node, pid@host if not configured.
+     * @return the node id
+     */
+    @JsonProperty
+    public String getNodeId() {
+        if (nodeId == null || nodeId.isEmpty()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return nodeId;
+    }
+
+    /**
+     * Sets node id.
+     * @param nodeId the node id
+     */
+    @JsonProperty
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Gets time without heartbeat after which a lease may be taken over by another node.
+     * @return the lease timeout
+     */
+    @JsonProperty
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    /**
+     * Sets lease timeout.
+     * @param leaseTimeout the lease timeout
+     */
+    @JsonProperty
+    public void setLeaseTimeout(Duration leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    /**
+     * Gets interval of lease heartbeats.
+     * @return the heartbeat interval
+     */
+    @JsonProperty
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * Sets heartbeat interval.
+     * @param heartbeatInterval the heartbeat interval
+     */
+    @JsonProperty
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+}
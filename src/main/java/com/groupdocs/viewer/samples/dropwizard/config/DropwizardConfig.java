@@ -3,6 +3,8 @@ package com.groupdocs.viewer.samples.dropwizard.config;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import java.io.File;
@@ -16,6 +18,25 @@ public class DropwizardConfig extends Configuration {
     @NotEmpty
     private String storagePath;
     private String licensePath;
+    private long maxUploadSize = 256L * 1024 * 1024;
+    private int prefetchPages = 2;
+    private int retainPages = 10;
+    private int renderThreads = Runtime.getRuntime().availableProcessors();
+    private Duration renderTimeout = Duration.minutes(2);
+    private Duration remainingPagesDelay = Duration.seconds(2);
+    private Duration backgroundDelay = Duration.seconds(30);
+    private Size renderMemoryBudget;
+    private RenderWorkersConfig renderWorkers = new RenderWorkersConfig();
+    private RateLimitConfig rateLimits = new RateLimitConfig();
+    private ClusterConfig cluster = new ClusterConfig();
+    private JanitorConfig janitor = new JanitorConfig();
+    private StorageConfig storage = new StorageConfig();
+    private RemoteFetchConfig remoteFetch = new RemoteFetchConfig();
+    private boolean warmUp = true;
+    private HealthConfig health = new HealthConfig();
+    private PdfIntermediateConfig pdfIntermediate = new PdfIntermediateConfig();
+    private SlowRenderConfig slowRenders = new SlowRenderConfig();
+    private ResponseCacheConfig responseCache = new ResponseCacheConfig();
 
     /**
      * Gets storage path.
@@ -59,4 +80,349 @@ public class DropwizardConfig extends Configuration {
     public void setLicensePath(String licensePath) {
         this.licensePath = licensePath;
     }
+
+    /**
+     * Gets max upload size.
+     * @return the max upload size in bytes
+     */
+    @JsonProperty
+    public long getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    /**
+     * Sets max upload size.
+     * @param maxUploadSize the max upload size in bytes
+     */
+    @JsonProperty
+    public void setMaxUploadSize(long maxUploadSize) {
+        this.maxUploadSize = maxUploadSize;
+    }
+
+    /**
+     * Gets count of pages loaded ahead of the visible ones in lazy viewer mode.
+     * @return the prefetch pages
+     */
+    @JsonProperty
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    /**
+     * Sets prefetch pages.
+     * @param prefetchPages the prefetch pages
+     */
+    @JsonProperty
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    /**
+     * Gets distance in pages from the visible ones after which loaded pages are unloaded in lazy viewer mode.
+     * @return the retain pages
+     */
+    @JsonProperty
+    public int getRetainPages() {
+        return retainPages;
+    }
+
+    /**
+     * Sets retain pages.
+     * @param retainPages the retain pages
+     */
+    @JsonProperty
+    public void setRetainPages(int retainPages) {
+        this.retainPages = retainPages;
+    }
+
+    /**
+     * Gets count of threads rendering documents.
+     * @return the render threads
+     */
+    @JsonProperty
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    /**
+     * Sets render threads.
+     * @param renderThreads the render threads
+     */
+    @JsonProperty
+    public void setRenderThreads(int renderThreads) {
+        this.renderThreads = renderThreads;
+    }
+
+    /**
+     * Gets deadline of a render request, the render is aborted between pages after it.
+     * @return the render timeout
+     */
+    @JsonProperty
+    public Duration getRenderTimeout() {
+        return renderTimeout;
+    }
+
+    /**
+     * Sets render timeout.
+     * @param renderTimeout the render timeout
+     */
+    @JsonProperty
+    public void setRenderTimeout(Duration renderTimeout) {
+        this.renderTimeout = renderTimeout;
+    }
+
+    /**
+     * Gets how long a job rendering remaining pages of a document may be overtaken by newer interactive jobs.
+     * @return the remaining pages delay
+     */
+    @JsonProperty
+    public Duration getRemainingPagesDelay() {
+        return remainingPagesDelay;
+    }
+
+    /**
+     * Sets remaining pages delay.
+     * @param remainingPagesDelay the remaining pages delay
+     */
+    @JsonProperty
+    public void setRemainingPagesDelay(Duration remainingPagesDelay) {
+        this.remainingPagesDelay = remainingPagesDelay;
+    }
+
+    /**
+     * Gets how long a background job may be overtaken by newer interactive jobs.
+     * @return the background delay
+     */
+    @JsonProperty
+    public Duration getBackgroundDelay() {
+        return backgroundDelay;
+    }
+
+    /**
+     * Sets background delay.
+     * @param backgroundDelay the background delay
+     */
+    @JsonProperty
+    public void setBackgroundDelay(Duration backgroundDelay) {
+        this.backgroundDelay = backgroundDelay;
+    }
+
+    /**
+     * Gets memory budget shared by all concurrent renders, half of max heap if not configured.
+     * @return the render memory budget
+     */
+    @JsonProperty
+    public Size getRenderMemoryBudget() {
+        if (renderMemoryBudget == null) {
+            return Size.bytes(Runtime.getRuntime().maxMemory() / 2);
+        }
+        return renderMemoryBudget;
+    }
+
+    /**
+     * Sets render memory budget.
+     * @param renderMemoryBudget the render memory budget
+     */
+    @JsonProperty
+    public void setRenderMemoryBudget(Size renderMemoryBudget) {
+        this.renderMemoryBudget = renderMemoryBudget;
+    }
+
+    /**
+     * Gets settings of out-of-process rendering.
+     * @return the render workers config
+     */
+    @JsonProperty
+    public RenderWorkersConfig getRenderWorkers() {
+        return renderWorkers;
+    }
+
+    /**
+     * Sets render workers.
+     * @param renderWorkers the render workers config
+     */
+    @JsonProperty
+    public void setRenderWorkers(RenderWorkersConfig renderWorkers) {
+        this.renderWorkers = renderWorkers;
+    }
+
+    /**
+     * Gets per-client limits of render requests.
+     * @return the rate limit config
+     */
+    @JsonProperty
+    public RateLimitConfig getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * Sets rate limits.
+     * @param rateLimits the rate limit config
+     */
+    @JsonProperty
+    public void setRateLimits(RateLimitConfig rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
+    /**
+     * Gets coordination of nodes sharing the storage path.
+     * @return the cluster config
+     */
+    @JsonProperty
+    public ClusterConfig getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Sets cluster.
+     * @param cluster the cluster config
+     */
+    @JsonProperty
+    public void setCluster(ClusterConfig cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * Gets cleanup settings of temp, image and cache directories.
+     * @return the janitor config
+     */
+    @JsonProperty
+    public JanitorConfig getJanitor() {
+        return janitor;
+    }
+
+    /**
+     * Sets janitor.
+     * @param janitor the janitor config
+     */
+    @JsonProperty
+    public void setJanitor(JanitorConfig janitor) {
+        this.janitor = janitor;
+    }
+
+    /**
+     * Gets backend documents are read from.
+     * @return the storage config
+     */
+    @JsonProperty
+    public StorageConfig getStorage() {
+        return storage;
+    }
+
+    /**
+     * Sets storage.
+     * @param storage the storage config
+     */
+    @JsonProperty
+    public void setStorage(StorageConfig storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Gets fetching of documents rendered from URL.
+     * @return the remote fetch config
+     */
+    @JsonProperty
+    public RemoteFetchConfig getRemoteFetch() {
+        return remoteFetch;
+    }
+
+    /**
+     * Sets remote fetch.
+     * @param remoteFetch the remote fetch config
+     */
+    @JsonProperty
+    public void setRemoteFetch(RemoteFetchConfig remoteFetch) {
+        this.remoteFetch = remoteFetch;
+    }
+
+    /**
+     * Is warm up boolean.
+     * @return true if bundled sample documents are rendered at startup before the node reports ready
+     */
+    @JsonProperty
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Sets warm up.
+     * @param warmUp the warm up
+     */
+    @JsonProperty
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    /**
+     * Gets objectives of health checks.
+     * @return the health config
+     */
+    @JsonProperty
+    public HealthConfig getHealth() {
+        return health;
+    }
+
+    /**
+     * Sets health.
+     * @param health the health config
+     */
+    @JsonProperty
+    public void setHealth(HealthConfig health) {
+        this.health = health;
+    }
+
+    /**
+     * Gets document types rendered from intermediate PDF.
+     * @return the pdf intermediate config
+     */
+    @JsonProperty
+    public PdfIntermediateConfig getPdfIntermediate() {
+        return pdfIntermediate;
+    }
+
+    /**
+     * Sets pdf intermediate.
+     * @param pdfIntermediate the pdf intermediate config
+     */
+    @JsonProperty
+    public void setPdfIntermediate(PdfIntermediateConfig pdfIntermediate) {
+        this.pdfIntermediate = pdfIntermediate;
+    }
+
+    /**
+     * Gets capture of slow renders.
+     * @return the slow render config
+     */
+    @JsonProperty
+    public SlowRenderConfig getSlowRenders() {
+        return slowRenders;
+    }
+
+    /**
+     * Sets slow renders.
+     * @param slowRenders the slow render config
+     */
+    @JsonProperty
+    public void setSlowRenders(SlowRenderConfig slowRenders) {
+        this.slowRenders = slowRenders;
+    }
+
+    /**
+     * Gets response cache config.
+     * @return the response cache config
+     */
+    @JsonProperty
+    public ResponseCacheConfig getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Sets response cache.
+     * @param responseCache the response cache config
+     */
+    @JsonProperty
+    public void setResponseCache(ResponseCacheConfig responseCache) {
+        this.responseCache = responseCache;
+    }
 }
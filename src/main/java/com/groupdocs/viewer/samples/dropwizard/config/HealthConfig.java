@@ -0,0 +1,87 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+/**
+ * The type Health config. Objectives the health checks of render pipeline compare against.
+ */
+public class HealthConfig {
+    private int maxQueueDepth = 100;
+    private Duration maxRenderLatency = Duration.seconds(30);
+    private Size minFreeSpace = Size.gigabytes(1);
+    private Duration canaryTimeout = Duration.seconds(10);
+
+    /**
+     * Gets count of queued render jobs above which the node is saturated.
+     * @return the max queue depth
+     */
+    @JsonProperty
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Sets max queue depth.
+     * @param maxQueueDepth the max queue depth
+     */
+    @JsonProperty
+    public void setMaxQueueDepth(int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * Gets 99th percentile of render latency above which the node is saturated.
+     * @return the max render latency
+     */
+    @JsonProperty
+    public Duration getMaxRenderLatency() {
+        return maxRenderLatency;
+    }
+
+    /**
+     * Sets max render latency.
+     * @param maxRenderLatency the max render latency
+     */
+    @JsonProperty
+    public void setMaxRenderLatency(Duration maxRenderLatency) {
+        this.maxRenderLatency = maxRenderLatency;
+    }
+
+    /**
+     * Gets free space required on cache and temp disks.
+     * @return the min free space
+     */
+    @JsonProperty
+    public Size getMinFreeSpace() {
+        return minFreeSpace;
+    }
+
+    /**
+     * Sets min free space.
+     * @param minFreeSpace the min free space
+     */
+    @JsonProperty
+    public void setMinFreeSpace(Size minFreeSpace) {
+        this.minFreeSpace = minFreeSpace;
+    }
+
+    /**
+     * Gets time a canary render may take.
+     * @return the canary timeout
+     */
+    @JsonProperty
+    public Duration getCanaryTimeout() {
+        return canaryTimeout;
+    }
+
+    /**
+     * Sets canary timeout.
+     * @param canaryTimeout the canary timeout
+     */
+    @JsonProperty
+    public void setCanaryTimeout(Duration canaryTimeout) {
+        this.canaryTimeout = canaryTimeout;
+    }
+}
@@ -0,0 +1,107 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+/**
+ * The type Janitor config. Limits of temp, image and cache directories.
+ */
+public class JanitorConfig {
+    private boolean enabled = true;
+    private Duration interval = Duration.minutes(10);
+    private Duration ttl = Duration.days(7);
+    private Size quota = Size.gigabytes(10);
+    private Size documentQuota = Size.gigabytes(10);
+
+    /**
+     * Is enabled boolean.
+     * @return true if old files are deleted
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets interval between cleanups.
+     * @return the interval
+     */
+    @JsonProperty
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sets interval.
+     * @param interval the interval
+     */
+    @JsonProperty
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Gets time after last use when a file is deleted.
+     * @return the ttl
+     */
+    @JsonProperty
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Sets ttl.
+     * @param ttl the ttl
+     */
+    @JsonProperty
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Gets total size of rendered pages and other render outputs above which least recently served ones are deleted.
+     * @return the quota
+     */
+    @JsonProperty
+    public Size getQuota() {
+        return quota;
+    }
+
+    /**
+     * Sets quota.
+     * @param quota the quota
+     */
+    @JsonProperty
+    public void setQuota(Size quota) {
+        this.quota = quota;
+    }
+
+    /**
+     * Gets total size of document copies (intermediate PDFs, copies of object storage and remote documents)
+     * above which least recently served ones are deleted. Render outputs do not push them out.
+     * @return the document quota
+     */
+    @JsonProperty
+    public Size getDocumentQuota() {
+        return documentQuota;
+    }
+
+    /**
+     * Sets document quota.
+     * @param documentQuota the document quota
+     */
+    @JsonProperty
+    public void setDocumentQuota(Size documentQuota) {
+        this.documentQuota = documentQuota;
+    }
+}
@@ -0,0 +1,52 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The type Pdf intermediate config. Document types rendered from a cached PDF instead of the source format.
+ */
+public class PdfIntermediateConfig {
+    private boolean enabled = false;
+    private List<String> documentTypes = new ArrayList<String>(Arrays.asList("doc", "docx", "rtf", "odt",
+            "xls", "xlsx", "ods", "ppt", "pptx", "odp"));
+
+    /**
+     * Is enabled boolean.
+     * @return true if documents of configured types are rendered from intermediate PDF
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets document types as file extensions.
+     * @return the document types
+     */
+    @JsonProperty
+    public List<String> getDocumentTypes() {
+        return documentTypes;
+    }
+
+    /**
+     * Sets document types.
+     * @param documentTypes the document types
+     */
+    @JsonProperty
+    public void setDocumentTypes(List<String> documentTypes) {
+        this.documentTypes = documentTypes;
+    }
+}
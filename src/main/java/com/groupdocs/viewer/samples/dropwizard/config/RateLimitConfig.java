@@ -0,0 +1,152 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The type Rate limit config. Per-client limits of render requests.
+ * Clients are identified by API key header when the key is configured, otherwise by remote address.
+ */
+public class RateLimitConfig {
+    private boolean enabled = false;
+    private String apiKeyHeader = "X-Api-Key";
+    private ClientLimit defaults = new ClientLimit();
+    private Map<String, ClientLimit> clients = new HashMap<String, ClientLimit>();
+
+    /**
+     * Is enabled boolean.
+     * @return true if render requests are limited
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets name of header with API key.
+     * @return the api key header
+     */
+    @JsonProperty
+    public String getApiKeyHeader() {
+        return apiKeyHeader;
+    }
+
+    /**
+     * Sets api key header.
+     * @param apiKeyHeader the api key header
+     */
+    @JsonProperty
+    public void setApiKeyHeader(String apiKeyHeader) {
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    /**
+     * Gets limit of clients without configured API key.
+     * @return the defaults
+     */
+    @JsonProperty
+    public ClientLimit getDefaults() {
+        return defaults;
+    }
+
+    /**
+     * Sets defaults.
+     * @param defaults the defaults
+     */
+    @JsonProperty
+    public void setDefaults(ClientLimit defaults) {
+        this.defaults = defaults;
+    }
+
+    /**
+     * Gets limits by API key.
+     * @return the clients
+     */
+    @JsonProperty
+    public Map<String, ClientLimit> getClients() {
+        return clients;
+    }
+
+    /**
+     * Sets clients.
+     * @param clients the clients
+     */
+    @JsonProperty
+    public void setClients(Map<String, ClientLimit> clients) {
+        this.clients = clients;
+    }
+
+    /**
+     * The type Client limit. Token bucket of a client and its share of render threads.
+     */
+    public static class ClientLimit {
+        private double requestsPerSecond = 5;
+        private int burst = 20;
+        private double weight = 1;
+
+        /**
+         * Gets rate at which the bucket is refilled.
+         * @return the requests per second
+         */
+        @JsonProperty
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        /**
+         * Sets requests per second.
+         * @param requestsPerSecond the requests per second
+         */
+        @JsonProperty
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        /**
+         * Gets capacity of the bucket.
+         * @return the burst
+         */
+        @JsonProperty
+        public int getBurst() {
+            return burst;
+        }
+
+        /**
+         * Sets burst.
+         * @param burst the burst
+         */
+        @JsonProperty
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        /**
+         * Gets weight of the client in fair queuing of render jobs.
+         * @return the weight
+         */
+        @JsonProperty
+        public double getWeight() {
+            return weight;
+        }
+
+        /**
+         * Sets weight.
+         * @param weight the weight
+         */
+        @JsonProperty
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+    }
+}
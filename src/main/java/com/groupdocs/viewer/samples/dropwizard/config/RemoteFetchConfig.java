@@ -0,0 +1,148 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Remote fetch config. Documents rendered from an URL instead of the storage.
+ */
+public class RemoteFetchConfig {
+    private boolean enabled = false;
+    private List<String> allowedHosts = new ArrayList<String>();
+    private int maxConnectionsPerHost = 2;
+    private Duration connectTimeout = Duration.seconds(5);
+    private Duration readTimeout = Duration.seconds(30);
+    private Duration maxAge = Duration.minutes(1);
+    private Size maxSize = Size.megabytes(256);
+
+    /**
+     * Is enabled boolean.
+     * @return true if documents may be rendered from an URL
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets hosts documents may be fetched from, empty denies every host.
+     * Hosts resolving to loopback, link-local or private addresses are refused unless the address is listed too.
+     * @return the allowed hosts
+     */
+    @JsonProperty
+    public List<String> getAllowedHosts() {
+        return allowedHosts;
+    }
+
+    /**
+     * Sets allowed hosts.
+     * @param allowedHosts the allowed hosts
+     */
+    @JsonProperty
+    public void setAllowedHosts(List<String> allowedHosts) {
+        this.allowedHosts = allowedHosts;
+    }
+
+    /**
+     * Gets count of concurrent fetches from one host.
+     * @return the max connections per host
+     */
+    @JsonProperty
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets max connections per host.
+     * @param maxConnectionsPerHost the max connections per host
+     */
+    @JsonProperty
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Gets connect timeout, also the longest wait for a free connection to the host.
+     * @return the connect timeout
+     */
+    @JsonProperty
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets connect timeout.
+     * @param connectTimeout the connect timeout
+     */
+    @JsonProperty
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Gets read timeout.
+     * @return the read timeout
+     */
+    @JsonProperty
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets read timeout.
+     * @param readTimeout the read timeout
+     */
+    @JsonProperty
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Gets time a fetched document is used without asking the remote server whether it changed.
+     * @return the max age
+     */
+    @JsonProperty
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Sets max age.
+     * @param maxAge the max age
+     */
+    @JsonProperty
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Gets maximum size of a fetched document.
+     * @return the max size
+     */
+    @JsonProperty
+    public Size getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets max size.
+     * @param maxSize the max size
+     */
+    @JsonProperty
+    public void setMaxSize(Size maxSize) {
+        this.maxSize = maxSize;
+    }
+}
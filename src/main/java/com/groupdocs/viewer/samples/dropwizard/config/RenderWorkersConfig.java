@@ -0,0 +1,108 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Size;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The type Render workers config. Settings of out-of-process rendering in child JVMs.
+ */
+public class RenderWorkersConfig {
+    private boolean enabled = false;
+    private int processes = 2;
+    private int maxJobs = 200;
+    private Size maxHeap = Size.megabytes(768);
+    private List<String> jvmOptions = Arrays.asList("-Xmx1g");
+
+    /**
+     * Is enabled boolean.
+     * @return true if renders are dispatched to child JVMs
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets count of worker processes.
+     * @return the processes
+     */
+    @JsonProperty
+    public int getProcesses() {
+        return processes;
+    }
+
+    /**
+     * Sets processes.
+     * @param processes the processes
+     */
+    @JsonProperty
+    public void setProcesses(int processes) {
+        this.processes = processes;
+    }
+
+    /**
+     * Gets count of jobs after which a worker is recycled.
+     * @return the max jobs
+     */
+    @JsonProperty
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    /**
+     * Sets max jobs.
+     * @param maxJobs the max jobs
+     */
+    @JsonProperty
+    public void setMaxJobs(int maxJobs) {
+        this.maxJobs = maxJobs;
+    }
+
+    /**
+     * Gets used heap of a worker after which it is recycled.
+     * @return the max heap
+     */
+    @JsonProperty
+    public Size getMaxHeap() {
+        return maxHeap;
+    }
+
+    /**
+     * Sets max heap.
+     * @param maxHeap the max heap
+     */
+    @JsonProperty
+    public void setMaxHeap(Size maxHeap) {
+        this.maxHeap = maxHeap;
+    }
+
+    /**
+     * Gets jvm options of worker processes.
+     * @return the jvm options
+     */
+    @JsonProperty
+    public List<String> getJvmOptions() {
+        return jvmOptions;
+    }
+
+    /**
+     * Sets jvm options.
+     * @param jvmOptions the jvm options
+     */
+    @JsonProperty
+    public void setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = jvmOptions;
+    }
+}
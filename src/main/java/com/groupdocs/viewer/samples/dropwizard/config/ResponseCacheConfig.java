@@ -0,0 +1,67 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Size;
+
+/**
+ * The type Response cache config. Serialized responses of MainHandler.ashx kept in memory.
+ */
+public class ResponseCacheConfig {
+    private boolean enabled = true;
+    private Size maxSize = Size.megabytes(64);
+    private boolean compress = true;
+
+    /**
+     * Is enabled boolean.
+     * @return true if responses are cached
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets total size of cached responses, least recently used ones are evicted above it.
+     * @return the max size
+     */
+    @JsonProperty
+    public Size getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets max size.
+     * @param maxSize the max size
+     */
+    @JsonProperty
+    public void setMaxSize(Size maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Is compress boolean.
+     * @return true if a gzip copy of each response is cached for clients accepting gzip
+     */
+    @JsonProperty
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * Sets compress.
+     * @param compress the compress
+     */
+    @JsonProperty
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+}
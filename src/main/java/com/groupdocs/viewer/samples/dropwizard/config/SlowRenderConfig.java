@@ -0,0 +1,87 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+/**
+ * The type Slow render config. Renders captured for offline replay with the replay command.
+ */
+public class SlowRenderConfig {
+    private boolean enabled = false;
+    private Duration threshold = Duration.seconds(10);
+    private Size maxFileSize = Size.megabytes(16);
+    private boolean keepDocuments = false;
+
+    /**
+     * Is enabled boolean.
+     * @return true if slow renders are captured
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets enabled.
+     * @param enabled the enabled
+     */
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets render time from which a render is captured.
+     * @return the threshold
+     */
+    @JsonProperty
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets threshold.
+     * @param threshold the threshold
+     */
+    @JsonProperty
+    public void setThreshold(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets size of capture file from which it is rotated, one previous file is kept.
+     * @return the max file size
+     */
+    @JsonProperty
+    public Size getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Sets max file size.
+     * @param maxFileSize the max file size
+     */
+    @JsonProperty
+    public void setMaxFileSize(Size maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Is keep documents boolean.
+     * @return true if a copy of the document is kept with its capture, so it can be replayed on another machine
+     */
+    @JsonProperty
+    public boolean isKeepDocuments() {
+        return keepDocuments;
+    }
+
+    /**
+     * Sets keep documents.
+     * @param keepDocuments the keep documents
+     */
+    @JsonProperty
+    public void setKeepDocuments(boolean keepDocuments) {
+        this.keepDocuments = keepDocuments;
+    }
+}
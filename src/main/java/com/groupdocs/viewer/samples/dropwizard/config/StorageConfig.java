@@ -0,0 +1,200 @@
+package com.groupdocs.viewer.samples.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Size;
+
+/**
+ * The type Storage config. Backend documents are read from and its local read-through cache.
+ */
+public class StorageConfig {
+    private String type = "local";
+    private String endpoint;
+    private String region = "us-east-1";
+    private String bucket;
+    private String prefix = "";
+    private String accessKey;
+    private String secretKey;
+    private Size rangedFetchThreshold = Size.megabytes(16);
+    private Size rangeSize = Size.megabytes(4);
+    private int fetchThreads = 4;
+
+    /**
+     * Gets type of backend: local or s3.
+     * @return the type
+     */
+    @JsonProperty
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Sets type.
+     * @param type the type
+     */
+    @JsonProperty
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets endpoint of S3 compatible object store, e.g. http://localhost:9000.
+     * @return the endpoint
+     */
+    @JsonProperty
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Sets endpoint.
+     * @param endpoint the endpoint
+     */
+    @JsonProperty
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Gets region used in request signatures.
+     * @return the region
+     */
+    @JsonProperty
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Sets region.
+     * @param region the region
+     */
+    @JsonProperty
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    /**
+     * Gets bucket.
+     * @return the bucket
+     */
+    @JsonProperty
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Sets bucket.
+     * @param bucket the bucket
+     */
+    @JsonProperty
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    /**
+     * Gets key prefix documents are stored under.
+     * @return the prefix
+     */
+    @JsonProperty
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Sets prefix.
+     * @param prefix the prefix
+     */
+    @JsonProperty
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Gets access key.
+     * @return the access key
+     */
+    @JsonProperty
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    /**
+     * Sets access key.
+     * @param accessKey the access key
+     */
+    @JsonProperty
+    public void setAccessKey(String accessKey) {
+        this.accessKey = accessKey;
+    }
+
+    /**
+     * Gets secret key.
+     * @return the secret key
+     */
+    @JsonProperty
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    /**
+     * Sets secret key.
+     * @param secretKey the secret key
+     */
+    @JsonProperty
+    public void setSecretKey(String secretKey) {
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * Gets size from which documents are fetched in parallel ranges.
+     * @return the ranged fetch threshold
+     */
+    @JsonProperty
+    public Size getRangedFetchThreshold() {
+        return rangedFetchThreshold;
+    }
+
+    /**
+     * Sets ranged fetch threshold.
+     * @param rangedFetchThreshold the ranged fetch threshold
+     */
+    @JsonProperty
+    public void setRangedFetchThreshold(Size rangedFetchThreshold) {
+        this.rangedFetchThreshold = rangedFetchThreshold;
+    }
+
+    /**
+     * Gets size of one range.
+     * @return the range size
+     */
+    @JsonProperty
+    public Size getRangeSize() {
+        return rangeSize;
+    }
+
+    /**
+     * Sets range size.
+     * @param rangeSize the range size
+     */
+    @JsonProperty
+    public void setRangeSize(Size rangeSize) {
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Gets count of threads fetching ranges.
+     * @return the fetch threads
+     */
+    @JsonProperty
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    /**
+     * Sets fetch threads.
+     * @param fetchThreads the fetch threads
+     */
+    @JsonProperty
+    public void setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+    }
+}
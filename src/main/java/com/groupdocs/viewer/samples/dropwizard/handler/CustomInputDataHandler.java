@@ -3,16 +3,92 @@ package com.groupdocs.viewer.samples.dropwizard.handler;
 import com.groupdocs.viewer.domain.FileDescription;
 import com.groupdocs.viewer.domain.options.FileTreeOptions;
 import com.groupdocs.viewer.handler.input.IInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.config.StorageConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.FileTreeIndex;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderProfiler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderStage;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The type Custom input data handler.
  * @author Aleksey Permyakov
  */
 public class CustomInputDataHandler implements IInputDataHandler {
+    private final StorageBackend backend;
+    private final StorageCache cache;
+    private RemoteDocumentFetcher remoteFetcher;
+    private final Map<String, File> localDirectories = new LinkedHashMap<String, File>();
+
+    /**
+     * Instantiates a new Custom input data handler.
+     * @param backend the storage backend
+     * @param cache   the read-through cache of remote backend, null for local backend
+     */
+    public CustomInputDataHandler(StorageBackend backend, StorageCache cache) {
+        this.backend = backend;
+        this.cache = cache;
+    }
+
+    /**
+     * Create handler of the configured storage backend, documents of s3 are read through a local cache.
+     * @param storage       the storage config
+     * @param storagePath   the storage path
+     * @param cachePath     the cache path
+     * @param fileTreeIndex the index of local storage tree
+     * @return the input data handler
+     */
+    public static CustomInputDataHandler create(StorageConfig storage, String storagePath, String cachePath, FileTreeIndex fileTreeIndex) {
+        if ("s3".equalsIgnoreCase(storage.getType())) {
+            final S3StorageBackend backend = new S3StorageBackend(storage);
+            return new CustomInputDataHandler(backend, new StorageCache(backend, storage, cachePath));
+        } else if ("local".equalsIgnoreCase(storage.getType())) {
+            return new CustomInputDataHandler(new LocalStorageBackend(storagePath, fileTreeIndex), null);
+        }
+        throw new IllegalArgumentException("Unknown storage type: " + storage.getType());
+    }
+
+    /**
+     * Gets backend.
+     * @return the storage backend
+     */
+    public StorageBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Sets fetcher of documents given by URL, its guids are read from local copies instead of the backend.
+     * @param remoteFetcher the remote fetcher
+     */
+    public void setRemoteFetcher(RemoteDocumentFetcher remoteFetcher) {
+        this.remoteFetcher = remoteFetcher;
+    }
+
+    /**
+     * Add directory of files made by the application, e.g. the warm-up corpus or intermediate PDFs.
+     * Guids starting with the prefix are read from it whatever the backend is.
+     * @param guidPrefix the guid prefix
+     * @param directory  the directory
+     */
+    public void addLocalDirectory(String guidPrefix, File directory) {
+        localDirectories.put(guidPrefix, directory);
+    }
+
+    /**
+     * Gets directories of files made by the application by their guid prefix.
+     * @return the local directories
+     */
+    public Map<String, File> getLocalDirectories() {
+        return Collections.unmodifiableMap(localDirectories);
+    }
 
     /**
      * Gets file description.
@@ -21,17 +97,51 @@ public class CustomInputDataHandler implements IInputDataHandler {
      */
     @Override
     public FileDescription getFileDescription(String s) {
-        return null;
+        final File local = getLocalFile(s);
+        if (local != null) {
+            final FileDescription description = new FileDescription(s);
+            description.setName(local.getName());
+            description.setSize(local.length());
+            description.setLastModificationDate(new Date(local.lastModified()));
+            return description;
+        }
+        if (remoteFetcher != null && remoteFetcher.getLocalFile(s) != null) {
+            return remoteFetcher.describe(s);
+        }
+        try {
+            return backend.describe(s);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
-     * Gets file.
+     * Gets file. Documents of remote backend and documents fetched from URL are read from local copy.
      * @param s the s
      * @return the file
      */
     @Override
     public InputStream getFile(String s) {
-        return null;
+        final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.LOAD);
+        try {
+            final File local = getLocalFile(s);
+            if (local != null) {
+                return new FileInputStream(local);
+            }
+            final File fetched = remoteFetcher == null ? null : remoteFetcher.getLocalFile(s);
+            if (fetched != null) {
+                return new FileInputStream(fetched);
+            }
+            if (cache != null) {
+                return new FileInputStream(cache.get(s));
+            }
+            return backend.open(s);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read document " + s, e);
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -41,7 +151,8 @@ public class CustomInputDataHandler implements IInputDataHandler {
      */
     @Override
     public Date getLastModificationDate(String s) {
-        return null;
+        final FileDescription description = getFileDescription(s);
+        return description == null ? null : description.getLastModificationDate();
     }
 
     /**
@@ -51,6 +162,28 @@ public class CustomInputDataHandler implements IInputDataHandler {
      */
     @Override
     public List<FileDescription> loadFileTree(FileTreeOptions fileTreeOptions) {
+        try {
+            return backend.list(fileTreeOptions.getPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private File getLocalFile(String guid) {
+        if (guid == null) {
+            return null;
+        }
+        for (Map.Entry<String, File> directory : localDirectories.entrySet()) {
+            if (guid.startsWith(directory.getKey())) {
+                final String name = guid.substring(directory.getKey().length());
+                if (name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+                    return null;
+                }
+                final File file = new File(directory.getValue(), name);
+                return file.isFile() ? file : null;
+            }
+        }
         return null;
     }
 }
@@ -0,0 +1,17 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a document changed in storage while a version of it was being read.
+ */
+public class DocumentChangedException extends IOException {
+    /**
+     * Instantiates a new Document changed exception.
+     * @param guid    the guid
+     * @param version the version being read
+     */
+    public DocumentChangedException(String guid, String version) {
+        super("Document " + guid + " is no longer at version " + version);
+    }
+}
@@ -0,0 +1,90 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.google.common.io.ByteStreams;
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.model.FileTreeIndex;
+import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Storage in local directory, listed through the file tree index.
+ */
+public class LocalStorageBackend implements StorageBackend {
+    private final File root;
+    private final FileTreeIndex fileTreeIndex;
+
+    /**
+     * Instantiates a new Local storage backend.
+     * @param storagePath   the storage path
+     * @param fileTreeIndex the index of storage tree
+     */
+    public LocalStorageBackend(String storagePath, FileTreeIndex fileTreeIndex) {
+        this.root = new File(storagePath);
+        this.fileTreeIndex = fileTreeIndex;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return false;
+    }
+
+    @Override
+    public FileDescription describe(String guid) {
+        final File document = Utilities.resolveBelow(root, guid);
+        if (document == null || !document.isFile()) {
+            return null;
+        }
+        final FileDescription description = new FileDescription(guid);
+        description.setName(document.getName());
+        description.setSize(document.length());
+        description.setLastModificationDate(new Date(document.lastModified()));
+        return description;
+    }
+
+    @Override
+    public InputStream open(String guid) throws IOException {
+        return new FileInputStream(resolve(guid));
+    }
+
+    @Override
+    public InputStream open(String guid, long offset, long length, String version) throws IOException {
+        final FileChannel channel = new FileInputStream(resolve(guid)).getChannel();
+        channel.position(offset);
+        return ByteStreams.limit(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public List<FileDescription> list(String path) {
+        return fileTreeIndex.getFileTree(path);
+    }
+
+    @Override
+    public void store(String guid, File file) throws IOException {
+        final File document = resolve(guid);
+        try {
+            Files.move(file.toPath(), document.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file.toPath(), document.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private File resolve(String guid) throws FileNotFoundException {
+        final File document = Utilities.resolveBelow(root, guid);
+        if (document == null) {
+            throw new FileNotFoundException(guid);
+        }
+        return document;
+    }
+}
@@ -0,0 +1,485 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.config.RemoteFetchConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.DirectBufferPool;
+import com.groupdocs.viewer.samples.dropwizard.model.DiskJanitor;
+import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RemoteDocument;
+import io.dropwizard.jackson.Jackson;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches documents given by URL into {@code <cachePath>/remote}, so they are rendered by guid like documents of the storage.
+ * A copy is reused for maxAge and then revalidated with a conditional request, the remote server is asked by at most
+ * maxConnectionsPerHost concurrent requests. When the server fails, the last copy is rendered.
+ * Only hosts of allowedHosts are fetched from, and not from loopback, link-local or private addresses
+ * unless the address itself is allowed, so the URL parameter can't reach services of the internal network.
+ * The connection goes to an address which passed the check, the host is not resolved again in between.
+ */
+public class RemoteDocumentFetcher {
+    private static final int MAX_REDIRECTS = 5;
+
+    private final File directory;
+    private final String guidPrefix;
+    private final Set<String> allowedHosts = new HashSet<String>();
+    private final int maxConnectionsPerHost;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long maxAgeMillis;
+    private final long maxSize;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final ConcurrentMap<String, RemoteDocument> documents = new ConcurrentHashMap<String, RemoteDocument>();
+    private final ConcurrentMap<String, FutureTask<RemoteDocument>> fetching = new ConcurrentHashMap<String, FutureTask<RemoteDocument>>();
+    private final ConcurrentMap<String, Semaphore> connections = new ConcurrentHashMap<String, Semaphore>();
+
+    private final Timer fetches;
+    private final Meter notModified;
+    private final Meter fresh;
+    private final Meter stale;
+    private final Meter busy;
+
+    /**
+     * Instantiates a new Remote document fetcher.
+     * @param config      the remote fetch config
+     * @param storagePath the storage path, guids of fetched documents are relative to it
+     * @param cachePath   the cache path
+     * @param metrics     the metric registry
+     */
+    public RemoteDocumentFetcher(RemoteFetchConfig config, String storagePath, String cachePath, MetricRegistry metrics) {
+        this.directory = new File(cachePath, "remote");
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.out.println("Can't create directory for remote documents! " + directory.getAbsolutePath());
+        }
+        this.guidPrefix = Utilities.makeGuid(storagePath, directory) + "/";
+        for (String host : config.getAllowedHosts()) {
+            allowedHosts.add(host.toLowerCase());
+        }
+        if (allowedHosts.isEmpty()) {
+            System.out.println("No allowed hosts for remote documents, every URL is refused!");
+        }
+        this.maxConnectionsPerHost = config.getMaxConnectionsPerHost();
+        this.connectTimeoutMillis = (int) config.getConnectTimeout().toMilliseconds();
+        this.readTimeoutMillis = (int) config.getReadTimeout().toMilliseconds();
+        this.maxAgeMillis = config.getMaxAge().toMilliseconds();
+        this.maxSize = config.getMaxSize().toBytes();
+        this.fetches = metrics.timer(MetricRegistry.name(RemoteDocumentFetcher.class, "fetches"));
+        this.notModified = metrics.meter(MetricRegistry.name(RemoteDocumentFetcher.class, "not-modified"));
+        this.fresh = metrics.meter(MetricRegistry.name(RemoteDocumentFetcher.class, "fresh"));
+        this.stale = metrics.meter(MetricRegistry.name(RemoteDocumentFetcher.class, "stale"));
+        this.busy = metrics.meter(MetricRegistry.name(RemoteDocumentFetcher.class, "busy"));
+    }
+
+    /**
+     * Resolve URL to guid of local copy of the document, fetching or revalidating it if needed.
+     * @param url the url
+     * @return the guid
+     * @throws IOException the io exception when document can't be fetched and there is no copy
+     */
+    public String resolve(String url) throws IOException {
+        final URL location = validate(url);
+        final String key = Utilities.makeCacheKey(location.toString());
+        final RemoteDocument current = state(key);
+        if (current != null && System.currentTimeMillis() - current.getValidated() < maxAgeMillis && copyOf(key, current).isFile()) {
+            fresh.mark();
+            DiskJanitor.markServed(copyOf(key, current));
+            return guidOf(key, current);
+        }
+        // Only one thread fetches the same URL, others wait for it
+        FutureTask<RemoteDocument> task = new FutureTask<RemoteDocument>(new Callable<RemoteDocument>() {
+            @Override
+            public RemoteDocument call() throws Exception {
+                return fetch(key, location, current);
+            }
+        });
+        final FutureTask<RemoteDocument> existing = fetching.putIfAbsent(key, task);
+        if (existing != null) {
+            task = existing;
+        } else {
+            try {
+                task.run();
+            } finally {
+                fetching.remove(key, task);
+            }
+        }
+        try {
+            return guidOf(key, task.get());
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while fetching " + url, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets local copy of fetched document.
+     * @param guid the guid
+     * @return the local file or null if guid is not a fetched document
+     */
+    public File getLocalFile(String guid) {
+        if (guid == null || !guid.startsWith(guidPrefix)) {
+            return null;
+        }
+        final String name = guid.substring(guidPrefix.length());
+        final int slash = name.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        final String key = name.substring(0, slash);
+        final RemoteDocument document = state(key);
+        if (document == null || !name.substring(slash + 1).equals(document.getFileName())) {
+            return null;
+        }
+        final File copy = copyOf(key, document);
+        return copy.isFile() ? copy : null;
+    }
+
+    /**
+     * Describe fetched document. Its last modification date is the time the content was fetched,
+     * revalidation without change keeps it.
+     * @param guid the guid
+     * @return the file description or null if guid is not a fetched document
+     */
+    public FileDescription describe(String guid) {
+        final File copy = getLocalFile(guid);
+        if (copy == null) {
+            return null;
+        }
+        final RemoteDocument document = state(guid.substring(guidPrefix.length(), guid.lastIndexOf('/')));
+        final FileDescription description = new FileDescription(guid);
+        description.setName(document.getFileName());
+        description.setSize(copy.length());
+        description.setLastModificationDate(new Date(document.getStored()));
+        return description;
+    }
+
+    private RemoteDocument fetch(String key, URL location, RemoteDocument previous) throws IOException {
+        final boolean hasCopy = previous != null && copyOf(key, previous).isFile();
+        final Semaphore permits = semaphoreOf(location.getHost());
+        boolean acquired = false;
+        HttpURLConnection connection = null;
+        final Timer.Context timing = fetches.time();
+        try {
+            try {
+                acquired = permits.tryAcquire(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException("Interrupted while waiting for connection to " + location.getHost(), e);
+            }
+            if (!acquired) {
+                busy.mark();
+                throw new IOException("Too many concurrent fetches from " + location.getHost());
+            }
+            connection = open(location, hasCopy ? previous : null);
+            final long now = System.currentTimeMillis();
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED && hasCopy) {
+                notModified.mark();
+                previous.setValidated(now);
+                save(key, previous);
+                return previous;
+            }
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Remote server responded " + connection.getResponseCode() + " to " + location);
+            }
+            if (connection.getContentLengthLong() > maxSize) {
+                throw new IOException("Remote document is larger than " + maxSize + " bytes: " + location);
+            }
+            final RemoteDocument document = new RemoteDocument();
+            document.setUrl(location.toString());
+            document.setFileName(fileNameOf(location));
+            document.setEtag(connection.getHeaderField("ETag"));
+            document.setLastModified(connection.getHeaderField("Last-Modified"));
+            document.setStored(now);
+            document.setValidated(now);
+            store(connection, copyOf(key, document));
+            save(key, document);
+            return document;
+        } catch (IOException e) {
+            if (!hasCopy) {
+                throw e;
+            }
+            // Remote server is down or slow, render what was fetched before
+            e.printStackTrace();
+            stale.mark();
+            return previous;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            if (acquired) {
+                permits.release();
+            }
+            timing.stop();
+        }
+    }
+
+    /**
+     * Open connection following redirects, every redirect target must be allowed too.
+     */
+    private HttpURLConnection open(URL location, RemoteDocument validators) throws IOException {
+        URL current = location;
+        for (int redirects = 0; ; redirects++) {
+            final HttpURLConnection connection = connect(current, checkAddress(current));
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            if (validators != null && validators.getEtag() != null) {
+                connection.setRequestProperty("If-None-Match", validators.getEtag());
+            }
+            if (validators != null && validators.getLastModified() != null) {
+                connection.setRequestProperty("If-Modified-Since", validators.getLastModified());
+            }
+            final int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_MOVED_PERM && status != HttpURLConnection.HTTP_MOVED_TEMP
+                    && status != HttpURLConnection.HTTP_SEE_OTHER && status != 307 && status != 308) {
+                return connection;
+            }
+            final String target = connection.getHeaderField("Location");
+            connection.disconnect();
+            if (target == null || redirects == MAX_REDIRECTS) {
+                throw new IOException("Too many or broken redirects from " + location);
+            }
+            try {
+                current = validate(new URL(current, target).toString());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Redirect to not allowed location " + target, e);
+            }
+        }
+    }
+
+    private void store(HttpURLConnection connection, File target) throws IOException {
+        final File parent = target.getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Can't create directory for remote document " + parent.getAbsolutePath());
+        }
+        final File temporary = new File(parent, target.getName() + "." + UUID.randomUUID() + ".part");
+        try {
+            final InputStream input = ByteStreams.limit(connection.getInputStream(), maxSize + 1);
+            final FileOutputStream output = new FileOutputStream(temporary);
+            try {
+                if (DirectBufferPool.getDefault().copy(input, output.getChannel()) > maxSize) {
+                    throw new IOException("Remote document is larger than " + maxSize + " bytes: " + connection.getURL());
+                }
+            } finally {
+                output.close();
+                input.close();
+            }
+            Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private URL validate(String url) {
+        final URL location;
+        try {
+            location = new URL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Bad document URL: " + url, e);
+        }
+        if (!"http".equalsIgnoreCase(location.getProtocol()) && !"https".equalsIgnoreCase(location.getProtocol())) {
+            throw new IllegalArgumentException("Only http and https documents can be fetched: " + url);
+        }
+        if (!allowedHosts.contains(location.getHost().toLowerCase())) {
+            throw new IllegalArgumentException("Documents from " + location.getHost() + " are not allowed");
+        }
+        return location;
+    }
+
+    /**
+     * Refuse host resolving to an internal address, an allowed name may point to the internal network.
+     * @return the checked addresses of the host
+     */
+    private List<InetAddress> checkAddress(URL location) throws IOException {
+        final InetAddress[] addresses = InetAddress.getAllByName(location.getHost());
+        for (InetAddress address : addresses) {
+            if (isInternal(address) && !allowedHosts.contains(address.getHostAddress().toLowerCase())) {
+                throw new IOException("Documents from internal address " + address.getHostAddress()
+                        + " of " + location.getHost() + " are not allowed");
+            }
+        }
+        return Arrays.asList(addresses);
+    }
+
+    /**
+     * Open connection to checked addresses only, so the host can't be rebound to an internal address after the check.
+     * Plain http goes to the first checked address with the request in absolute form, which keeps the Host header.
+     * Https resolves the host for its socket, the socket is refused before the handshake if its peer was not checked.
+     */
+    private static HttpURLConnection connect(URL location, List<InetAddress> addresses) throws IOException {
+        if ("https".equalsIgnoreCase(location.getProtocol())) {
+            final HttpsURLConnection connection = (HttpsURLConnection) location.openConnection();
+            connection.setSSLSocketFactory(new CheckedPeerSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), addresses));
+            return connection;
+        }
+        final int port = location.getPort() == -1 ? location.getDefaultPort() : location.getPort();
+        return (HttpURLConnection) location.openConnection(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(addresses.get(0), port)));
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        // Unique local IPv6 addresses fc00::/7 are the private networks of IPv6
+        return address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc;
+    }
+
+    private Semaphore semaphoreOf(String host) {
+        final String key = host.toLowerCase();
+        Semaphore semaphore = connections.get(key);
+        if (semaphore == null) {
+            final Semaphore created = new Semaphore(maxConnectionsPerHost);
+            semaphore = connections.putIfAbsent(key, created);
+            if (semaphore == null) {
+                semaphore = created;
+            }
+        }
+        return semaphore;
+    }
+
+    private RemoteDocument state(String key) {
+        RemoteDocument document = documents.get(key);
+        if (document != null) {
+            return document;
+        }
+        final File file = new File(directory, key + ".json");
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            document = objectMapper.readValue(file, RemoteDocument.class);
+            documents.putIfAbsent(key, document);
+            return document;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void save(String key, RemoteDocument document) {
+        documents.put(key, document);
+        try {
+            objectMapper.writeValue(new File(directory, key + ".json"), document);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private File copyOf(String key, RemoteDocument document) {
+        return new File(new File(directory, key), document.getFileName());
+    }
+
+    private String guidOf(String key, RemoteDocument document) {
+        return guidPrefix + key + "/" + document.getFileName();
+    }
+
+    /**
+     * Name of the copy is the last segment of URL path, its extension tells the viewer the document format.
+     */
+    private static String fileNameOf(URL location) {
+        String name = location.getPath().substring(location.getPath().lastIndexOf('/') + 1);
+        try {
+            name = URLDecoder.decode(name.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            e.printStackTrace();
+        } catch (IllegalArgumentException e) {
+            // Broken escape, keep the name as it is
+        }
+        name = name.replaceAll("[^\\w.\\-]", "_").replaceAll("^\\.+", "");
+        return name.isEmpty() ? "document" : name;
+    }
+
+    /**
+     * Socket factory of https connections which accepts sockets connected to checked addresses only.
+     * Unconnected sockets are not supported, so the connection connects a plain socket and layers TLS over it here.
+     */
+    private static final class CheckedPeerSocketFactory extends SSLSocketFactory {
+        private final SSLSocketFactory delegate;
+        private final List<InetAddress> addresses;
+
+        private CheckedPeerSocketFactory(SSLSocketFactory delegate, List<InetAddress> addresses) {
+            this.delegate = delegate;
+            this.addresses = addresses;
+        }
+
+        @Override
+        public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+            return delegate.createSocket(checked(socket), host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return checked(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return checked(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return checked(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return checked(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        private Socket checked(Socket socket) throws IOException {
+            if (!addresses.contains(socket.getInetAddress())) {
+                final InetAddress peer = socket.getInetAddress();
+                socket.close();
+                throw new IOException("Connected to " + peer + " which was not checked, the host was resolved again");
+            }
+            return socket;
+        }
+    }
+}
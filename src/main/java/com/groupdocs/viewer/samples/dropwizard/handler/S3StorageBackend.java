@@ -0,0 +1,289 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.Files;
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.config.StorageConfig;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Storage in a bucket of an S3 compatible object store, e.g. MinIO running locally.
+ * Requests are path-style and signed with AWS Signature Version 4.
+ */
+public class S3StorageBackend implements StorageBackend {
+    private static final String EMPTY_PAYLOAD_HASH = Hashing.sha256().hashBytes(new byte[0]).toString();
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+
+    private final String endpoint;
+    private final String region;
+    private final String bucket;
+    private final String prefix;
+    private final String accessKey;
+    private final String secretKey;
+
+    /**
+     * Instantiates a new S3 storage backend.
+     * @param config the storage config
+     */
+    public S3StorageBackend(StorageConfig config) {
+        this.endpoint = config.getEndpoint().replaceAll("/+$", "");
+        this.region = config.getRegion();
+        this.bucket = config.getBucket();
+        this.prefix = config.getPrefix() == null ? "" : config.getPrefix();
+        this.accessKey = config.getAccessKey();
+        this.secretKey = config.getSecretKey();
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public FileDescription describe(String guid) throws IOException {
+        final HttpURLConnection connection = request("HEAD", prefix + guid, new TreeMap<String, String>(), null, EMPTY_PAYLOAD_HASH);
+        try {
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            check(connection);
+            final FileDescription description = new VersionedFileDescription(guid, connection.getHeaderField("ETag"));
+            description.setName(guid.substring(guid.lastIndexOf('/') + 1));
+            description.setSize(Long.parseLong(connection.getHeaderField("Content-Length")));
+            description.setLastModificationDate(new Date(connection.getLastModified()));
+            return description;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public InputStream open(String guid) throws IOException {
+        final HttpURLConnection connection = request("GET", prefix + guid, new TreeMap<String, String>(), null, EMPTY_PAYLOAD_HASH);
+        check(connection);
+        return connection.getInputStream();
+    }
+
+    @Override
+    public InputStream open(String guid, long offset, long length, String version) throws IOException {
+        final HttpURLConnection connection = request("GET", prefix + guid, new TreeMap<String, String>(),
+                "bytes=" + offset + "-" + (offset + length - 1), EMPTY_PAYLOAD_HASH);
+        if (version != null) {
+            connection.setRequestProperty("If-Match", version);
+        }
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_PRECON_FAILED) {
+            connection.disconnect();
+            throw new DocumentChangedException(guid, version);
+        }
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            connection.disconnect();
+            throw new IOException("Object store ignored range request of " + guid + ": " + connection.getResponseCode());
+        }
+        return connection.getInputStream();
+    }
+
+    @Override
+    public List<FileDescription> list(String path) throws IOException {
+        final String directory = path == null || path.isEmpty() || path.endsWith("/") ? (path == null ? "" : path) : path + "/";
+        final List<FileDescription> tree = new ArrayList<FileDescription>();
+        String continuationToken = null;
+        do {
+            final Map<String, String> query = new TreeMap<String, String>();
+            query.put("list-type", "2");
+            query.put("delimiter", "/");
+            query.put("prefix", prefix + directory);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            final HttpURLConnection connection = request("GET", "", query, null, EMPTY_PAYLOAD_HASH);
+            final Document document;
+            try {
+                check(connection);
+                document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(connection.getInputStream());
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Can't parse object listing", e);
+            } finally {
+                connection.disconnect();
+            }
+            final NodeList prefixes = document.getElementsByTagName("CommonPrefixes");
+            for (int i = 0; i < prefixes.getLength(); i++) {
+                final String key = text((Element) prefixes.item(i), "Prefix").substring(prefix.length());
+                final FileDescription description = new FileDescription(key.substring(0, key.length() - 1));
+                description.setName(key.substring(directory.length(), key.length() - 1));
+                description.setDirectory(true);
+                tree.add(description);
+            }
+            final NodeList contents = document.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                final Element content = (Element) contents.item(i);
+                final String key = text(content, "Key").substring(prefix.length());
+                if (key.equals(directory)) {
+                    continue;
+                }
+                final FileDescription description = new FileDescription(key);
+                description.setName(key.substring(directory.length()));
+                description.setSize(Long.parseLong(text(content, "Size")));
+                description.setLastModificationDate(parseTimestamp(text(content, "LastModified")));
+                tree.add(description);
+            }
+            continuationToken = "true".equals(text(document.getDocumentElement(), "IsTruncated"))
+                    ? text(document.getDocumentElement(), "NextContinuationToken") : null;
+        } while (continuationToken != null);
+        return tree;
+    }
+
+    @Override
+    public void store(String guid, File file) throws IOException {
+        final String payloadHash = Files.hash(file, Hashing.sha256()).toString();
+        final HttpURLConnection connection = request("PUT", prefix + guid, new TreeMap<String, String>(), null, payloadHash);
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(file.length());
+            final OutputStream output = connection.getOutputStream();
+            try {
+                Files.copy(file, output);
+            } finally {
+                output.close();
+            }
+            check(connection);
+        } finally {
+            connection.disconnect();
+        }
+        if (!file.delete()) {
+            System.out.println("Can't delete file " + file.getAbsolutePath());
+        }
+    }
+
+    private HttpURLConnection request(String method, String key, Map<String, String> query, String range,
+                                      String payloadHash) throws IOException {
+        final String canonicalUri = "/" + bucket + (key.isEmpty() ? "/" : "/" + encode(key, false));
+        final StringBuilder canonicalQuery = new StringBuilder();
+        for (Map.Entry<String, String> parameter : query.entrySet()) {
+            if (canonicalQuery.length() > 0) {
+                canonicalQuery.append('&');
+            }
+            canonicalQuery.append(encode(parameter.getKey(), true)).append('=').append(encode(parameter.getValue(), true));
+        }
+        final URL url = new URL(endpoint + canonicalUri + (canonicalQuery.length() > 0 ? "?" + canonicalQuery : ""));
+        final String host = url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort();
+        final Date now = new Date();
+        final String timestamp = format("yyyyMMdd'T'HHmmss'Z'", now);
+        final String date = format("yyyyMMdd", now);
+
+        final String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        final String canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\n"
+                + "host:" + host + "\n"
+                + "x-amz-content-sha256:" + payloadHash + "\n"
+                + "x-amz-date:" + timestamp + "\n"
+                + "\n" + signedHeaders + "\n" + payloadHash;
+        final String scope = date + "/" + region + "/s3/aws4_request";
+        final String stringToSign = "AWS4-HMAC-SHA256\n" + timestamp + "\n" + scope + "\n"
+                + Hashing.sha256().hashString(canonicalRequest, Charsets.UTF_8);
+        final String signature;
+        try {
+            byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(Charsets.UTF_8), date);
+            signingKey = hmac(signingKey, region);
+            signingKey = hmac(signingKey, "s3");
+            signingKey = hmac(signingKey, "aws4_request");
+            signature = BaseEncoding.base16().lowerCase().encode(hmac(signingKey, stringToSign));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Can't sign object store request", e);
+        }
+
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setRequestProperty("x-amz-content-sha256", payloadHash);
+        connection.setRequestProperty("x-amz-date", timestamp);
+        connection.setRequestProperty("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        if (range != null) {
+            connection.setRequestProperty("Range", range);
+        }
+        return connection;
+    }
+
+    private static void check(HttpURLConnection connection) throws IOException {
+        final int status = connection.getResponseCode();
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new FileNotFoundException(connection.getURL().toString());
+        }
+        if (status / 100 != 2) {
+            throw new IOException("Object store responded " + status + " to " + connection.getURL());
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(Charsets.UTF_8));
+    }
+
+    private static String format(String pattern, Date date) {
+        final SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+
+    private static Date parseTimestamp(String value) throws IOException {
+        final String pattern = value.indexOf('.') >= 0 ? "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'" : "yyyy-MM-dd'T'HH:mm:ss'Z'";
+        final SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(value);
+        } catch (ParseException e) {
+            throw new IOException("Bad timestamp in object listing: " + value, e);
+        }
+    }
+
+    /**
+     * URI encoding of Signature Version 4: everything except unreserved characters, slash kept in paths.
+     */
+    private static String encode(String value, boolean encodeSlash) {
+        final StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(Charsets.UTF_8)) {
+            final char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static String text(Element parent, String tag) {
+        final NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+}
@@ -0,0 +1,64 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.groupdocs.viewer.domain.FileDescription;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Storage documents are read from. Documents are addressed by guid, the path relative to storage root.
+ */
+public interface StorageBackend {
+    /**
+     * Is remote boolean.
+     * @return true if documents must be copied to local disk before rendering
+     */
+    boolean isRemote();
+
+    /**
+     * Describe document.
+     * @param guid the guid
+     * @return the file description with size and last modification date, a {@link VersionedFileDescription}
+     * if the storage identifies versions, null if document does not exist
+     * @throws IOException the io exception
+     */
+    FileDescription describe(String guid) throws IOException;
+
+    /**
+     * Open document.
+     * @param guid the guid
+     * @return the input stream
+     * @throws IOException the io exception
+     */
+    InputStream open(String guid) throws IOException;
+
+    /**
+     * Open range of document version.
+     * @param guid    the guid
+     * @param offset  the offset of first byte
+     * @param length  the count of bytes
+     * @param version the version returned by {@link #describe(String)}, null for current version
+     * @return the input stream
+     * @throws DocumentChangedException if the document is no longer at the version
+     * @throws IOException the io exception
+     */
+    InputStream open(String guid, long offset, long length, String version) throws IOException;
+
+    /**
+     * List directory.
+     * @param path the directory relative to storage root, empty for root
+     * @return the files and directories
+     * @throws IOException the io exception
+     */
+    List<FileDescription> list(String path) throws IOException;
+
+    /**
+     * Store document, replacing the existing one. The file is consumed, it does not exist afterwards.
+     * @param guid the guid
+     * @param file the complete local file
+     * @throws IOException the io exception
+     */
+    void store(String guid, File file) throws IOException;
+}
@@ -0,0 +1,192 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.config.StorageConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.DirectBufferPool;
+import com.groupdocs.viewer.samples.dropwizard.model.DiskJanitor;
+import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Read-through disk cache of a remote storage in {@code <cachePath>/storage}.
+ * A cached copy is named by guid, size and last modification date of the document, so a changed document
+ * is fetched again. Large documents are fetched in parallel ranges, pinned to the version described before the fetch
+ * when the backend identifies versions; the fetch starts over if the document changes meanwhile.
+ */
+public class StorageCache {
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+
+    private final StorageBackend backend;
+    private final File directory;
+    private final long rangedFetchThreshold;
+    private final long rangeSize;
+    private final ExecutorService fetchers;
+    private final ConcurrentMap<String, FutureTask<File>> fetching = new ConcurrentHashMap<String, FutureTask<File>>();
+
+    /**
+     * Instantiates a new Storage cache.
+     * @param backend   the remote backend
+     * @param config    the storage config
+     * @param cachePath the cache path
+     */
+    public StorageCache(StorageBackend backend, StorageConfig config, String cachePath) {
+        this.backend = backend;
+        this.directory = new File(cachePath, "storage");
+        this.rangedFetchThreshold = config.getRangedFetchThreshold().toBytes();
+        this.rangeSize = config.getRangeSize().toBytes();
+        this.fetchers = Executors.newFixedThreadPool(config.getFetchThreads(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("storage-fetch-%d").build());
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.out.println("Can't create directory for storage cache! " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Gets local copy of current version of document, fetching it if needed.
+     * @param guid the guid
+     * @return the local file
+     * @throws IOException the io exception
+     */
+    public File get(String guid) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return getCurrent(guid);
+            } catch (DocumentChangedException e) {
+                if (attempt == MAX_FETCH_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private File getCurrent(final String guid) throws IOException {
+        final FileDescription description = backend.describe(guid);
+        if (description == null) {
+            throw new FileNotFoundException(guid);
+        }
+        final String version = description instanceof VersionedFileDescription
+                ? ((VersionedFileDescription) description).getVersion() : null;
+        final String key = Utilities.makeCacheKey(guid, String.valueOf(description.getSize()),
+                String.valueOf(description.getLastModificationDate().getTime()), version);
+        final File cached = new File(directory, key + "." + FilenameUtils.getExtension(guid));
+        if (cached.isFile()) {
+            DiskJanitor.markServed(cached);
+            return cached;
+        }
+        // Only one thread fetches the same document version, others wait for it
+        FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                fetch(guid, description.getSize(), version, cached);
+                return cached;
+            }
+        });
+        final FutureTask<File> existing = fetching.putIfAbsent(key, task);
+        if (existing != null) {
+            task = existing;
+        } else {
+            try {
+                task.run();
+            } finally {
+                fetching.remove(key, task);
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while fetching " + guid, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private void fetch(final String guid, long size, final String version, File target) throws Exception {
+        final File temporary = new File(directory, target.getName() + "." + UUID.randomUUID() + ".part");
+        final RandomAccessFile file = new RandomAccessFile(temporary, "rw");
+        try {
+            final FileChannel channel = file.getChannel();
+            if (size < rangedFetchThreshold) {
+                final InputStream input = backend.open(guid);
+                try {
+                    DirectBufferPool.getDefault().copy(input, channel);
+                } finally {
+                    input.close();
+                }
+            } else {
+                file.setLength(size);
+                final List<Future<Void>> ranges = new ArrayList<Future<Void>>();
+                for (long offset = 0; offset < size; offset += rangeSize) {
+                    final long start = offset;
+                    final long length = Math.min(rangeSize, size - offset);
+                    ranges.add(fetchers.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            fetchRange(guid, start, length, version, channel);
+                            return null;
+                        }
+                    }));
+                }
+                try {
+                    for (Future<Void> range : ranges) {
+                        range.get();
+                    }
+                } catch (ExecutionException e) {
+                    for (Future<Void> range : ranges) {
+                        range.cancel(true);
+                    }
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            channel.force(false);
+        } catch (Exception e) {
+            file.close();
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+        file.close();
+        Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void fetchRange(String guid, long offset, long length, String version, FileChannel channel) throws IOException {
+        final ReadableByteChannel input = Channels.newChannel(backend.open(guid, offset, length, version));
+        final ByteBuffer buffer = DirectBufferPool.getDefault().acquire();
+        try {
+            long position = offset;
+            while (input.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                position += channel.write(buffer, position);
+                buffer.compact();
+            }
+            if (position != offset + length) {
+                throw new IOException("Range of " + guid + " at " + offset + " ended after " + (position - offset) + " of " + length + " bytes");
+            }
+        } finally {
+            DirectBufferPool.getDefault().release(buffer);
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.groupdocs.viewer.domain.FileDescription;
+
+/**
+ * File description of a storage which identifies versions of documents, e.g. by entity tag.
+ */
+public class VersionedFileDescription extends FileDescription {
+    private final String version;
+
+    /**
+     * Instantiates a new Versioned file description.
+     * @param guid    the guid
+     * @param version the version
+     */
+    public VersionedFileDescription(String guid, String version) {
+        super(guid);
+        this.version = version;
+    }
+
+    /**
+     * Gets version.
+     * @return the version
+     */
+    public String getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,71 @@
+package com.groupdocs.viewer.samples.dropwizard.health;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderPriority;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderService;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderToken;
+import com.groupdocs.viewer.samples.dropwizard.model.WarmUp;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Canary render of a tiny bundled document through the render queue: unhealthy when it fails or does not
+ * finish in time. A canary still queued from previous check is not submitted again.
+ */
+public class CanaryHealthCheck extends HealthCheck {
+    private static final String DOCUMENT = "sample.txt";
+
+    private final RenderService renderService;
+    private final WarmUp warmUp;
+    private final long timeoutMillis;
+    private Future<List<?>> running;
+
+    /**
+     * Instantiates a new Canary health check.
+     * @param renderService the render service
+     * @param warmUp        the warm up providing the bundled document
+     * @param timeoutMillis the timeout of canary render in milliseconds
+     */
+    public CanaryHealthCheck(RenderService renderService, WarmUp warmUp, long timeoutMillis) {
+        this.renderService = renderService;
+        this.warmUp = warmUp;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Check result.
+     * @return the result
+     * @throws Exception the exception
+     */
+    @Override
+    protected synchronized Result check() throws Exception {
+        if (running != null && !running.isDone()) {
+            return Result.unhealthy("Previous canary render is still running");
+        }
+        // Temp directory is cleaned up by janitor, the copy is restored when missing
+        final String guid = new File(warmUp.getDirectory(), DOCUMENT).isFile()
+                ? warmUp.getGuidPrefix() + DOCUMENT : warmUp.copyDocument(DOCUMENT);
+        final RenderToken token = renderService.newToken(null, 1, null, timeoutMillis);
+        final long start = System.nanoTime();
+        running = renderService.submitLocal(new RenderRequest("renderashtml", guid), token, RenderPriority.INTERACTIVE);
+        try {
+            final List<?> pages = running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (pages == null || pages.isEmpty()) {
+                return Result.unhealthy("Canary render returned no pages");
+            }
+            return Result.healthy("Canary rendered in %d ms", elapsedMillis);
+        } catch (TimeoutException e) {
+            token.cancel(RenderToken.Reason.TIMED_OUT);
+            return Result.unhealthy("Canary render took longer than %d ms", timeoutMillis);
+        } catch (ExecutionException e) {
+            return Result.unhealthy(e.getCause());
+        }
+    }
+}
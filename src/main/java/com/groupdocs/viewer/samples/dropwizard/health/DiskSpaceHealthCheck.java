@@ -0,0 +1,49 @@
+package com.groupdocs.viewer.samples.dropwizard.health;
+
+import com.codahale.metrics.health.HealthCheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Free space of the disks renders write to: unhealthy when any of them has less than required.
+ */
+public class DiskSpaceHealthCheck extends HealthCheck {
+
+    private final Map<String, File> directories;
+    private final long minFreeBytes;
+
+    /**
+     * Instantiates a new Disk space health check.
+     * @param directories  the directories by name, e.g. cache and temp
+     * @param minFreeBytes the min free bytes
+     */
+    public DiskSpaceHealthCheck(Map<String, File> directories, long minFreeBytes) {
+        this.directories = directories;
+        this.minFreeBytes = minFreeBytes;
+    }
+
+    /**
+     * Check result.
+     * @return the result
+     * @throws Exception the exception
+     */
+    @Override
+    protected Result check() throws Exception {
+        final List<String> full = new ArrayList<String>();
+        final List<String> free = new ArrayList<String>();
+        for (Map.Entry<String, File> directory : directories.entrySet()) {
+            final long usable = directory.getValue().getUsableSpace();
+            free.add(directory.getKey() + " " + usable / (1024 * 1024) + " MB");
+            if (usable < minFreeBytes) {
+                full.add(directory.getKey() + " (" + directory.getValue().getAbsolutePath() + ")");
+            }
+        }
+        if (!full.isEmpty()) {
+            return Result.unhealthy("Less than %d MB free on %s", minFreeBytes / (1024 * 1024), full);
+        }
+        return Result.healthy("Free: %s", free);
+    }
+}
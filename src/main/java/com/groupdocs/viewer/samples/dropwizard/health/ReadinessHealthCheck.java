@@ -0,0 +1,34 @@
+package com.groupdocs.viewer.samples.dropwizard.health;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.model.WarmUp;
+
+/**
+ * Readiness of the node: unhealthy until startup warm-up finished, so a load balancer polling
+ * /healthcheck sends traffic only to warm nodes.
+ */
+public class ReadinessHealthCheck extends HealthCheck {
+
+    private final WarmUp warmUp;
+
+    /**
+     * Instantiates a new Readiness health check.
+     * @param warmUp the warm up
+     */
+    public ReadinessHealthCheck(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    /**
+     * Check result.
+     * @return the result
+     * @throws Exception the exception
+     */
+    @Override
+    protected Result check() throws Exception {
+        if (!warmUp.isFinished()) {
+            return Result.unhealthy("Warming up");
+        }
+        return Result.healthy("Warm-up finished in %d ms, failed renders: %d", warmUp.getDurationMillis(), warmUp.getFailureCount());
+    }
+}
@@ -0,0 +1,52 @@
+package com.groupdocs.viewer.samples.dropwizard.health;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.health.HealthCheck;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderScheduler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saturation of the node: unhealthy when render queue is deeper or recent renders are slower than the objectives.
+ */
+public class RenderQueueHealthCheck extends HealthCheck {
+
+    private final RenderScheduler scheduler;
+    private final RenderService renderService;
+    private final int maxQueueDepth;
+    private final long maxLatencyMillis;
+
+    /**
+     * Instantiates a new Render queue health check.
+     * @param scheduler        the render scheduler
+     * @param renderService    the render service
+     * @param maxQueueDepth    the max queue depth
+     * @param maxLatencyMillis the max 99th percentile of render latency in milliseconds
+     */
+    public RenderQueueHealthCheck(RenderScheduler scheduler, RenderService renderService, int maxQueueDepth, long maxLatencyMillis) {
+        this.scheduler = scheduler;
+        this.renderService = renderService;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    /**
+     * Check result.
+     * @return the result
+     * @throws Exception the exception
+     */
+    @Override
+    protected Result check() throws Exception {
+        final int queueDepth = scheduler.getQueueDepth();
+        final Snapshot snapshot = renderService.getRenderTimer().getSnapshot();
+        final long p99Millis = TimeUnit.NANOSECONDS.toMillis((long) snapshot.get99thPercentile());
+        if (queueDepth > maxQueueDepth) {
+            return Result.unhealthy("Render queue depth %d is above %d", queueDepth, maxQueueDepth);
+        }
+        if (p99Millis > maxLatencyMillis) {
+            return Result.unhealthy("Render latency p99 %d ms is above %d ms", p99Millis, maxLatencyMillis);
+        }
+        return Result.healthy("Render queue depth %d, latency p99 %d ms", queueDepth, p99Millis);
+    }
+}
@@ -0,0 +1,141 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.groupdocs.viewer.samples.dropwizard.config.RateLimitConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets limiting render requests of each client.
+ * Clients with a configured API key get their own limit and metrics, all others are limited by remote address.
+ */
+public class ClientRateLimiter {
+    private static final String ADDRESS_PREFIX = "ip:";
+    private static final String KEY_PREFIX = "key:";
+
+    private final RateLimitConfig config;
+    private final LoadingCache<String, Bucket> buckets;
+    private final Map<String, Meter> rejectedByKey = new HashMap<String, Meter>();
+    private final Meter rejected;
+    private final Meter rejectedAnonymous;
+
+    /**
+     * Instantiates a new Client rate limiter.
+     * @param config  the rate limit config
+     * @param metrics the metric registry
+     */
+    public ClientRateLimiter(final RateLimitConfig config, MetricRegistry metrics) {
+        this.config = config;
+        // Buckets of idle clients are full anyway, forgetting them keeps memory bounded by active clients
+        this.buckets = CacheBuilder.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build(new CacheLoader<String, Bucket>() {
+                    @Override
+                    public Bucket load(String clientId) {
+                        return new Bucket(limitOf(clientId));
+                    }
+                });
+        this.rejected = metrics.meter(MetricRegistry.name(ClientRateLimiter.class, "rejected"));
+        this.rejectedAnonymous = metrics.meter(MetricRegistry.name(ClientRateLimiter.class, "rejected", "anonymous"));
+        // Metrics are public on the admin port, meters are named by a short hash so API keys are not disclosed
+        for (String apiKey : config.getClients().keySet()) {
+            final String name = "client-" + Utilities.makeCacheKey(apiKey).substring(0, 8);
+            rejectedByKey.put(KEY_PREFIX + apiKey, metrics.meter(MetricRegistry.name(ClientRateLimiter.class, "rejected", name)));
+        }
+    }
+
+    /**
+     * Gets name of header with API key.
+     * @return the api key header
+     */
+    public String getApiKeyHeader() {
+        return config.getApiKeyHeader();
+    }
+
+    /**
+     * Identify client of a request.
+     * @param apiKey        the value of API key header, may be null
+     * @param remoteAddress the remote address
+     * @return the client id
+     */
+    public String identify(String apiKey, String remoteAddress) {
+        // Unknown keys are ignored, otherwise a client could bypass its limit by sending random keys
+        if (apiKey != null && config.getClients().containsKey(apiKey)) {
+            return KEY_PREFIX + apiKey;
+        }
+        return ADDRESS_PREFIX + remoteAddress;
+    }
+
+    /**
+     * Gets weight of client in fair queuing of render jobs.
+     * @param clientId the client id
+     * @return the weight
+     */
+    public double getWeight(String clientId) {
+        return limitOf(clientId).getWeight();
+    }
+
+    /**
+     * Take a token from bucket of the client.
+     * @param clientId the client id
+     * @return 0 if request is allowed, otherwise milliseconds until the next token
+     */
+    public long tryAcquire(String clientId) {
+        if (!config.isEnabled()) {
+            return 0;
+        }
+        final long wait = buckets.getUnchecked(clientId).tryAcquire();
+        if (wait > 0) {
+            rejected.mark();
+            final Meter meter = rejectedByKey.get(clientId);
+            (meter == null ? rejectedAnonymous : meter).mark();
+        }
+        return wait;
+    }
+
+    private RateLimitConfig.ClientLimit limitOf(String clientId) {
+        if (clientId != null && clientId.startsWith(KEY_PREFIX)) {
+            final RateLimitConfig.ClientLimit limit = config.getClients().get(clientId.substring(KEY_PREFIX.length()));
+            if (limit != null) {
+                return limit;
+            }
+        }
+        return config.getDefaults();
+    }
+
+    /**
+     * Token bucket of one client.
+     */
+    private static class Bucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilled = System.nanoTime();
+
+        Bucket(RateLimitConfig.ClientLimit limit) {
+            this.capacity = Math.max(1, limit.getBurst());
+            this.tokensPerNano = limit.getRequestsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        synchronized long tryAcquire() {
+            final long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilled) * tokensPerNano);
+            refilled = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            if (tokensPerNano <= 0) {
+                return TimeUnit.MINUTES.toMillis(1);
+            }
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) ((1 - tokens) / tokensPerNano)));
+        }
+    }
+}
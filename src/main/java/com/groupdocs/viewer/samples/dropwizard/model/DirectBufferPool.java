@@ -0,0 +1,164 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import org.eclipse.jetty.server.HttpOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct byte buffers used to copy page images between render streams, files and responses.
+ * Data stays off heap, so serving images does not allocate short-lived arrays on the heap.
+ * Allocated size of the pool is visible in the jvm.buffers.direct metrics.
+ */
+public class DirectBufferPool {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED = 64;
+    private static final DirectBufferPool DEFAULT = new DirectBufferPool(BUFFER_SIZE, MAX_POOLED);
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Instantiates a new Direct buffer pool.
+     * @param bufferSize the size of one buffer
+     * @param maxPooled  the count of buffers kept for reuse
+     */
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Gets pool shared by page image I/O.
+     * @return the default pool
+     */
+    public static DirectBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Take a cleared buffer from the pool.
+     * @return the buffer
+     */
+    public ByteBuffer acquire() {
+        final ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Return buffer to the pool.
+     * @param buffer the buffer
+     */
+    public void release(ByteBuffer buffer) {
+        // Buffers above the limit are left to GC, it frees their native memory
+        if (pooled.incrementAndGet() <= maxPooled) {
+            buffer.clear();
+            buffers.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    /**
+     * Copy stream to file.
+     * @param input  the input stream
+     * @param output the file channel
+     * @return the count of bytes copied
+     * @throws IOException the io exception
+     */
+    public long copy(InputStream input, FileChannel output) throws IOException {
+        return copy(Channels.newChannel(input), output);
+    }
+
+    /**
+     * Copy file to output stream of a response.
+     * Jetty output takes the direct buffer as is, other streams get it through a channel.
+     * @param input  the file channel
+     * @param output the output stream
+     * @return the count of bytes copied
+     * @throws IOException the io exception
+     */
+    public long copy(FileChannel input, OutputStream output) throws IOException {
+        if (!(output instanceof HttpOutput)) {
+            return copy(input, Channels.newChannel(output));
+        }
+        final HttpOutput httpOutput = (HttpOutput) output;
+        final ByteBuffer buffer = acquire();
+        long total = 0;
+        try {
+            while (input.read(buffer) >= 0) {
+                buffer.flip();
+                total += buffer.remaining();
+                httpOutput.write(buffer);
+                buffer.clear();
+            }
+        } finally {
+            release(buffer);
+        }
+        return total;
+    }
+
+    /**
+     * Copy at most length bytes of channel to output stream of a response, e.g. a requested byte range.
+     * @param input  the channel positioned at the first byte
+     * @param output the output stream
+     * @param length the count of bytes to copy
+     * @return the count of bytes copied
+     * @throws IOException the io exception
+     */
+    public long copy(ReadableByteChannel input, OutputStream output, long length) throws IOException {
+        final WritableByteChannel channel = output instanceof HttpOutput ? null : Channels.newChannel(output);
+        final ByteBuffer buffer = acquire();
+        long total = 0;
+        try {
+            while (total < length) {
+                buffer.limit((int) Math.min(buffer.capacity(), length - total));
+                if (input.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                total += buffer.remaining();
+                if (channel == null) {
+                    ((HttpOutput) output).write(buffer);
+                } else {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                buffer.clear();
+            }
+        } finally {
+            release(buffer);
+        }
+        return total;
+    }
+
+    private long copy(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        final ByteBuffer buffer = acquire();
+        long total = 0;
+        try {
+            while (input.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                total += output.write(buffer);
+                buffer.compact();
+            }
+        } finally {
+            release(buffer);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,280 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.groupdocs.viewer.samples.dropwizard.config.JanitorConfig;
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background cleanup of temp, image and cache directories.
+ * Files not served for longer than TTL are deleted; when render outputs together exceed the quota,
+ * least recently served ones are deleted until usage drops below 90% of it. Copies of documents are evicted
+ * the same way against their own quota, so a burst of rendered pages does not push them out.
+ * Modification time of a file is its last serve time, see {@link #markServed(File)}.
+ */
+public class DiskJanitor implements Managed {
+    private static final long SERVED_RESOLUTION_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final double LOW_WATERMARK = 0.9;
+    /**
+     * Lease files are owned by the lease manager, their modification time is a heartbeat.
+     * Generations are never deleted, a deleted one would let nodes reuse outputs from before a rotate or reorder.
+     */
+    private static final Set<String> SKIPPED = new HashSet<String>(Arrays.asList("leases", "generations"));
+    /**
+     * Partial uploads are only expired by TTL, evicting them for space would break running uploads.
+     * Slow render captures are kept until TTL too, they are needed exactly when the disk is busy.
+     */
+    private static final Set<String> TTL_ONLY = new HashSet<String>(Arrays.asList("uploads", "slow-renders"));
+    /**
+     * Intermediate PDFs and copies of object storage and remote documents are evicted against the document quota.
+     */
+    private static final Set<String> DOCUMENT_COPIES = new HashSet<String>(Arrays.asList("pdf", "storage", "remote"));
+
+    private final JanitorConfig config;
+    private final List<File> roots;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("disk-janitor").build());
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final Meter reclaimedBytes;
+    private final Meter expired;
+    private final Meter evicted;
+
+    /**
+     * Instantiates a new Disk janitor.
+     * @param config  the janitor config
+     * @param roots   the directories to clean
+     * @param metrics the metric registry
+     */
+    public DiskJanitor(JanitorConfig config, List<File> roots, MetricRegistry metrics) {
+        this.config = config;
+        this.roots = new ArrayList<File>();
+        for (File root : roots) {
+            // A directory nested in another root would be counted twice
+            boolean nested = false;
+            for (File other : roots) {
+                if (other != root && root.getAbsolutePath().startsWith(other.getAbsolutePath() + File.separator)) {
+                    nested = true;
+                }
+            }
+            if (!nested) {
+                this.roots.add(root);
+            }
+        }
+        this.reclaimedBytes = metrics.meter(MetricRegistry.name(DiskJanitor.class, "reclaimed-bytes"));
+        this.expired = metrics.meter(MetricRegistry.name(DiskJanitor.class, "expired-files"));
+        this.evicted = metrics.meter(MetricRegistry.name(DiskJanitor.class, "evicted-files"));
+        metrics.register(MetricRegistry.name(DiskJanitor.class, "used-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return usedBytes.get();
+            }
+        });
+    }
+
+    /**
+     * Remember that a file was served, so it is evicted after files not used for longer.
+     * @param file the file
+     */
+    public static void markServed(File file) {
+        final long now = System.currentTimeMillis();
+        // Touching at most once a minute keeps serving hot files free of metadata writes
+        if (now - file.lastModified() > SERVED_RESOLUTION_MILLIS && !file.setLastModified(now)) {
+            System.out.println("Can't update time of served file! " + file.getAbsolutePath());
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        final long interval = config.getInterval().toMilliseconds();
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    clean();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run one cleanup.
+     * @throws IOException the io exception
+     */
+    public void clean() throws IOException {
+        final long expiredBefore = System.currentTimeMillis() - config.getTtl().toMilliseconds();
+        final List<Entry> outputs = new ArrayList<Entry>();
+        final List<Entry> documents = new ArrayList<Entry>();
+        long used = 0;
+        for (File root : roots) {
+            for (Entry entry : scan(root.toPath())) {
+                if (entry.lastServed < expiredBefore) {
+                    if (delete(entry)) {
+                        expired.mark();
+                    }
+                    continue;
+                }
+                used += entry.size;
+                if (entry.pool == Pool.OUTPUTS) {
+                    outputs.add(entry);
+                } else if (entry.pool == Pool.DOCUMENTS) {
+                    documents.add(entry);
+                }
+            }
+        }
+        used -= evict(outputs, config.getQuota().toBytes());
+        used -= evict(documents, config.getDocumentQuota().toBytes());
+        usedBytes.set(used);
+    }
+
+    /**
+     * Delete least recently served entries until they drop below low watermark of the quota.
+     * @return the deleted bytes
+     */
+    private long evict(List<Entry> entries, long quota) {
+        long used = 0;
+        for (Entry entry : entries) {
+            used += entry.size;
+        }
+        if (used <= quota) {
+            return 0;
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry first, Entry second) {
+                return first.lastServed < second.lastServed ? -1 : (first.lastServed == second.lastServed ? 0 : 1);
+            }
+        });
+        final long target = (long) (quota * LOW_WATERMARK);
+        long deleted = 0;
+        for (Entry entry : entries) {
+            if (used - deleted <= target) {
+                break;
+            }
+            if (delete(entry)) {
+                evicted.mark();
+                deleted += entry.size;
+            }
+        }
+        return deleted;
+    }
+
+    private List<Entry> scan(final Path root) throws IOException {
+        final List<Entry> entries = new ArrayList<Entry>();
+        if (!Files.isDirectory(root)) {
+            return entries;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            // Pool of every directory being visited, a subdirectory belongs to the pool of its parent
+            private final Deque<Pool> pools = new ArrayDeque<Pool>();
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                final String name = String.valueOf(dir.getFileName());
+                if (!dir.equals(root) && SKIPPED.contains(name)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (pools.isEmpty() || pools.peek() != Pool.OUTPUTS) {
+                    pools.push(pools.isEmpty() ? Pool.OUTPUTS : pools.peek());
+                } else if (TTL_ONLY.contains(name)) {
+                    pools.push(Pool.TTL_ONLY);
+                } else if (DOCUMENT_COPIES.contains(name)) {
+                    pools.push(Pool.DOCUMENTS);
+                } else {
+                    pools.push(Pool.OUTPUTS);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis(), pools.peek()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Files deleted by renders or other nodes while walking
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                pools.pop();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+    private boolean delete(Entry entry) {
+        try {
+            Files.delete(entry.path);
+            reclaimedBytes.mark(entry.size);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Files evicted against the same quota.
+     */
+    private enum Pool {
+        OUTPUTS,
+        DOCUMENTS,
+        TTL_ONLY
+    }
+
+    /**
+     * File found by a scan.
+     */
+    private static class Entry {
+        private final Path path;
+        private final long size;
+        private final long lastServed;
+        private final Pool pool;
+
+        Entry(Path path, long size, long lastServed, Pool pool) {
+            this.path = path;
+            this.size = size;
+            this.lastServed = lastServed;
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Generations of documents in {@code <cachePath>/generations}.
+ * Rotate and reorder change pages of a document without changing its version, they move the document to a new
+ * generation, so outputs and responses cached for the previous one are not reused. Generations are files,
+ * they survive restarts and are seen by all nodes sharing the cache path.
+ */
+public class DocumentGenerations {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File directory;
+
+    /**
+     * Instantiates a new Document generations.
+     * @param cachePath the cache path
+     */
+    public DocumentGenerations(String cachePath) {
+        this.directory = new File(cachePath, "generations");
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.out.println("Can't create directory for document generations! " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Gets directory.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets current generation of the document.
+     * @param guid the document name
+     * @return the generation, empty if the document was never transformed
+     * @throws IOException the io exception
+     */
+    public String get(String guid) throws IOException {
+        final Path generation = fileOf(guid);
+        if (!Files.isRegularFile(generation)) {
+            return "";
+        }
+        try {
+            return new String(Files.readAllBytes(generation), UTF_8);
+        } catch (NoSuchFileException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Move the document to a new generation.
+     * @param guid the document name
+     * @throws IOException the io exception
+     */
+    public void next(String guid) throws IOException {
+        final Path generation = fileOf(guid);
+        // Readers see either the previous or the new generation
+        final Path temporary = generation.resolveSibling(generation.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(temporary, UUID.randomUUID().toString().getBytes(UTF_8));
+            Files.move(temporary, generation, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path fileOf(String guid) {
+        return new File(directory, Utilities.makeCacheKey(guid) + ".generation").toPath();
+    }
+}
@@ -0,0 +1,169 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.groupdocs.viewer.samples.dropwizard.model.business.DocumentMetadata;
+import io.dropwizard.jackson.Jackson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Cache of document metadata keyed by document version.
+ * Entries are kept in memory and in {@code <cachePath>/metadata} so they survive restarts.
+ */
+public class DocumentMetadataCache {
+    private final File directory;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final ConcurrentMap<String, DocumentMetadata> entries = new ConcurrentHashMap<String, DocumentMetadata>();
+    private final ConcurrentMap<String, FutureTask<DocumentMetadata>> computing = new ConcurrentHashMap<String, FutureTask<DocumentMetadata>>();
+    private final RenderScheduler scheduler;
+
+    /**
+     * Instantiates a new Document metadata cache.
+     * @param cachePath the cache path
+     * @param scheduler the render scheduler computing metadata
+     */
+    public DocumentMetadataCache(String cachePath, RenderScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.directory = new File(cachePath, "metadata");
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.out.println("Can't create directory for metadata! " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Gets metadata of current document version, computing it if needed.
+     * @param guid the document name
+     * @return the document metadata or null if document does not exist
+     * @throws Exception the exception
+     */
+    public DocumentMetadata get(final String guid) throws Exception {
+        final String version = ViewGenerator.getDocumentVersion(guid);
+        if (version == null) {
+            return null;
+        }
+        DocumentMetadata metadata = entries.get(guid);
+        if (metadata != null && version.equals(metadata.getVersion())) {
+            return metadata;
+        }
+        metadata = load(guid, version);
+        if (metadata != null) {
+            entries.put(guid, metadata);
+            return metadata;
+        }
+        // Only one thread computes metadata of the same document version, others wait for it
+        final String key = Utilities.makeCacheKey(guid, version);
+        FutureTask<DocumentMetadata> task = new FutureTask<DocumentMetadata>(new Callable<DocumentMetadata>() {
+            @Override
+            public DocumentMetadata call() throws Exception {
+                final DocumentMetadata computed = ViewGenerator.getDocumentMetadata(guid);
+                computed.setVersion(version);
+                save(computed);
+                entries.put(guid, computed);
+                return computed;
+            }
+        });
+        final FutureTask<DocumentMetadata> existing = computing.putIfAbsent(key, task);
+        if (existing != null) {
+            task = existing;
+        } else if (!RenderScheduler.isWorkerThread()) {
+            final FutureTask<DocumentMetadata> computation = task;
+            scheduler.submit(RenderPriority.INTERACTIVE, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    runComputation(key, computation);
+                    return null;
+                }
+            });
+        }
+        if (RenderScheduler.isWorkerThread()) {
+            // Render threads never wait for queued jobs, the computation runs here unless it is already running
+            runComputation(key, task);
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Gets metadata held in memory without checking its version or computing it.
+     * @param guid the document name
+     * @return the document metadata, maybe of a previous version, or null
+     */
+    public DocumentMetadata getIfPresent(String guid) {
+        return entries.get(guid);
+    }
+
+    /**
+     * Gets metadata of current document version if it is already computed, the document is not parsed.
+     * @param guid the document name
+     * @return the document metadata or null if it is not computed yet
+     */
+    public DocumentMetadata getIfCurrent(String guid) {
+        final DocumentMetadata metadata = entries.get(guid);
+        if (metadata == null || !metadata.getVersion().equals(ViewGenerator.getDocumentVersion(guid))) {
+            return null;
+        }
+        return metadata;
+    }
+
+    /**
+     * Compute metadata in background, e.g. right after the document was uploaded.
+     * @param guid the document name
+     */
+    public void precompute(final String guid) {
+        scheduler.submit(RenderPriority.BACKGROUND, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try {
+                    get(guid);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                return null;
+            }
+        });
+    }
+
+    private void runComputation(String key, FutureTask<DocumentMetadata> task) {
+        try {
+            task.run();
+        } finally {
+            computing.remove(key, task);
+        }
+    }
+
+    private DocumentMetadata load(String guid, String version) {
+        final File file = metadataFile(guid);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            final DocumentMetadata metadata = objectMapper.readValue(file, DocumentMetadata.class);
+            DiskJanitor.markServed(file);
+            return version.equals(metadata.getVersion()) ? metadata : null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void save(DocumentMetadata metadata) {
+        try {
+            objectMapper.writeValue(metadataFile(metadata.getGuid()), metadata);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private File metadataFile(String guid) {
+        return new File(directory, Utilities.makeCacheKey(guid) + ".json");
+    }
+}
@@ -0,0 +1,393 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.model.business.FileTreeEntry;
+import com.groupdocs.viewer.samples.dropwizard.model.business.FileTreePage;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the storage tree.
+ * The tree is scanned once at start and kept current by a {@link WatchService} registered on every directory.
+ * Sorted listings are cached per directory until the directory changes.
+ */
+public class FileTreeIndex implements Managed {
+    /**
+     * Sort order of a listing, directories always go first.
+     */
+    public enum Sort {
+        /**
+         * By name.
+         */
+        NAME,
+        /**
+         * By size.
+         */
+        SIZE,
+        /**
+         * By modification time.
+         */
+        MODIFIED,
+        /**
+         * By extension, then name.
+         */
+        TYPE
+    }
+
+    private final Path root;
+    private final Set<Path> excluded = new HashSet<Path>();
+    private final ConcurrentMap<String, ConcurrentMap<String, FileTreeEntry>> directories = new ConcurrentHashMap<String, ConcurrentMap<String, FileTreeEntry>>();
+    private final ConcurrentMap<String, List<FileTreeEntry>> sorted = new ConcurrentHashMap<String, List<FileTreeEntry>>();
+    // Bumped on every change of a directory, a listing built before the change is not kept in sorted
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+    private final Map<WatchKey, Path> watched = new ConcurrentHashMap<WatchKey, Path>();
+    private WatchService watcher;
+    private Thread watcherThread;
+
+    /**
+     * Instantiates a new File tree index.
+     * @param storagePath   the storage path
+     * @param excludedPaths the service directories inside storage which are not listed
+     */
+    public FileTreeIndex(String storagePath, List<String> excludedPaths) {
+        this.root = new File(storagePath).getAbsoluteFile().toPath().normalize();
+        for (String path : excludedPaths) {
+            excluded.add(new File(path).getAbsoluteFile().toPath().normalize());
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        watcher = FileSystems.getDefault().newWatchService();
+        index(root);
+        watcherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "file-tree-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @Override
+    public void stop() throws Exception {
+        watcher.close();
+    }
+
+    /**
+     * List one page of a directory.
+     * @param path      the directory relative to storage, empty for root
+     * @param sort      the sort
+     * @param ascending the ascending
+     * @param page      the page number starting from 0
+     * @param pageSize  the page size
+     * @return the page or null if directory does not exist
+     */
+    public FileTreePage list(String path, Sort sort, boolean ascending, int page, int pageSize) {
+        final String directory = normalize(path);
+        final List<FileTreeEntry> entries = sorted(directory, sort, ascending);
+        if (entries == null) {
+            return null;
+        }
+        return pageOf(directory, entries, page, pageSize);
+    }
+
+    /**
+     * Gets page of a directory listed by a remote storage, sorted the same way as the index.
+     * @param path      the directory relative to storage, empty for root
+     * @param tree      the files and directories of the directory
+     * @param sort      the sort
+     * @param ascending the ascending
+     * @param page      the page number starting from 0
+     * @param pageSize  the page size
+     * @return the page
+     */
+    public static FileTreePage paginate(String path, List<FileDescription> tree, Sort sort, boolean ascending, int page, int pageSize) {
+        final List<FileTreeEntry> entries = new ArrayList<FileTreeEntry>(tree.size());
+        for (FileDescription description : tree) {
+            final FileTreeEntry entry = new FileTreeEntry();
+            entry.setGuid(description.getGuid());
+            entry.setName(description.getName());
+            entry.setDirectory(description.isDirectory());
+            entry.setExtension(description.isDirectory() ? "" : FilenameUtils.getExtension(description.getName()).toLowerCase());
+            entry.setSize(description.getSize());
+            entry.setLastModified(description.getLastModificationDate() == null ? 0 : description.getLastModificationDate().getTime());
+            entries.add(entry);
+        }
+        Collections.sort(entries, comparator(sort, ascending));
+        return pageOf(normalize(path), entries, page, pageSize);
+    }
+
+    private static FileTreePage pageOf(String directory, List<FileTreeEntry> entries, int page, int pageSize) {
+        final FileTreePage result = new FileTreePage();
+        result.setPath(directory);
+        result.setTotal(entries.size());
+        result.setPage(page);
+        result.setPageSize(pageSize);
+        final int from = Math.min(entries.size(), page * pageSize);
+        result.setEntries(new ArrayList<FileTreeEntry>(entries.subList(from, Math.min(entries.size(), from + pageSize))));
+        return result;
+    }
+
+    /**
+     * Gets file tree of a directory in the form of viewer API.
+     * @param path the directory relative to storage, empty for root
+     * @return the file descriptions, empty if directory does not exist
+     */
+    public List<FileDescription> getFileTree(String path) {
+        final List<FileDescription> tree = new ArrayList<FileDescription>();
+        final List<FileTreeEntry> entries = sorted(normalize(path), Sort.NAME, true);
+        if (entries == null) {
+            return tree;
+        }
+        for (FileTreeEntry entry : entries) {
+            final FileDescription description = new FileDescription(entry.getGuid());
+            description.setName(entry.getName());
+            description.setDirectory(entry.isDirectory());
+            description.setSize(entry.getSize());
+            description.setLastModificationDate(new Date(entry.getLastModified()));
+            tree.add(description);
+        }
+        return tree;
+    }
+
+    private List<FileTreeEntry> sorted(String directory, Sort sort, boolean ascending) {
+        final String cacheKey = directory + "\u0000" + sort + "\u0000" + ascending;
+        List<FileTreeEntry> entries = sorted.get(cacheKey);
+        if (entries != null) {
+            return entries;
+        }
+        final AtomicLong version = versionOf(directory);
+        final long built = version.get();
+        final Map<String, FileTreeEntry> children = directories.get(directory);
+        if (children == null) {
+            return null;
+        }
+        entries = new ArrayList<FileTreeEntry>(children.values());
+        Collections.sort(entries, comparator(sort, ascending));
+        entries = Collections.unmodifiableList(entries);
+        sorted.put(cacheKey, entries);
+        // The directory changed while sorting and its invalidation may have run before the put
+        if (version.get() != built) {
+            sorted.remove(cacheKey, entries);
+        }
+        return entries;
+    }
+
+    private AtomicLong versionOf(String directory) {
+        AtomicLong version = versions.get(directory);
+        if (version == null) {
+            final AtomicLong created = new AtomicLong();
+            version = versions.putIfAbsent(directory, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        return version;
+    }
+
+    private static Comparator<FileTreeEntry> comparator(final Sort sort, final boolean ascending) {
+        return new Comparator<FileTreeEntry>() {
+            @Override
+            public int compare(FileTreeEntry first, FileTreeEntry second) {
+                if (first.isDirectory() != second.isDirectory()) {
+                    return first.isDirectory() ? -1 : 1;
+                }
+                int result;
+                switch (sort) {
+                    case SIZE:
+                        result = compareLongs(first.getSize(), second.getSize());
+                        break;
+                    case MODIFIED:
+                        result = compareLongs(first.getLastModified(), second.getLastModified());
+                        break;
+                    case TYPE:
+                        result = first.getExtension().compareToIgnoreCase(second.getExtension());
+                        break;
+                    default:
+                        result = 0;
+                        break;
+                }
+                if (result == 0) {
+                    result = first.getName().compareToIgnoreCase(second.getName());
+                }
+                return ascending ? result : -result;
+            }
+        };
+    }
+
+    private static int compareLongs(long first, long second) {
+        return first < second ? -1 : (first == second ? 0 : 1);
+    }
+
+    private void index(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                if (excluded.contains(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                directories.putIfAbsent(relative(dir), new ConcurrentHashMap<String, FileTreeEntry>());
+                if (!dir.equals(root)) {
+                    put(dir, attributes);
+                }
+                watched.put(dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    put(file, attributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Deleted while indexing, the watcher reports it
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watch() {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException e) {
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            final Path dir = watched.get(key);
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    try {
+                        apply(dir, event);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            if (!key.reset()) {
+                watched.remove(key);
+            }
+        }
+    }
+
+    private void apply(Path dir, WatchEvent<?> event) throws IOException {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // Events were lost, the directory is indexed again
+            index(dir);
+            return;
+        }
+        final Path path = dir.resolve((Path) event.context());
+        if (excluded.contains(path)) {
+            return;
+        }
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            remove(path);
+        } else if (Files.isDirectory(path)) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                // Files may be created in the new directory before it is registered
+                index(path);
+            } else {
+                put(path, Files.readAttributes(path, BasicFileAttributes.class));
+            }
+        } else if (Files.isRegularFile(path)) {
+            put(path, Files.readAttributes(path, BasicFileAttributes.class));
+        }
+    }
+
+    private void put(Path path, BasicFileAttributes attributes) {
+        final FileTreeEntry entry = new FileTreeEntry();
+        final String name = String.valueOf(path.getFileName());
+        entry.setGuid(relative(path));
+        entry.setName(name);
+        entry.setDirectory(attributes.isDirectory());
+        entry.setExtension(attributes.isDirectory() ? "" : FilenameUtils.getExtension(name).toLowerCase());
+        entry.setSize(attributes.isDirectory() ? 0 : attributes.size());
+        entry.setLastModified(attributes.lastModifiedTime().toMillis());
+        final String parent = relative(path.getParent());
+        ConcurrentMap<String, FileTreeEntry> children = directories.get(parent);
+        if (children == null) {
+            directories.putIfAbsent(parent, new ConcurrentHashMap<String, FileTreeEntry>());
+            children = directories.get(parent);
+        }
+        children.put(name, entry);
+        invalidate(parent);
+    }
+
+    private void remove(Path path) {
+        final String guid = relative(path);
+        final String parent = relative(path.getParent());
+        final Map<String, FileTreeEntry> children = directories.get(parent);
+        if (children != null) {
+            children.remove(String.valueOf(path.getFileName()));
+            invalidate(parent);
+        }
+        // A removed directory takes its subtree with it
+        for (String directory : directories.keySet()) {
+            if (directory.equals(guid) || directory.startsWith(guid + "/")) {
+                directories.remove(directory);
+                invalidate(directory);
+            }
+        }
+    }
+
+    private void invalidate(String directory) {
+        versionOf(directory).incrementAndGet();
+        for (String cacheKey : sorted.keySet()) {
+            if (cacheKey.startsWith(directory + "\u0000")) {
+                sorted.remove(cacheKey);
+            }
+        }
+    }
+
+    private String relative(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String normalize(String path) {
+        if (path == null) {
+            return "";
+        }
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,164 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Intermediate PDFs of documents in {@code <cachePath>/pdf}, keyed by document version.
+ * Documents of the configured types are rendered from their PDF, so the source format is parsed once per version.
+ * Intermediates have guids of a fixed prefix which is not a path, the input data handler maps it to the directory
+ * wherever the cache path is.
+ */
+public class PdfIntermediateCache {
+    private static final String GUID_PREFIX = "@pdf-intermediate/";
+
+    private final File directory;
+    private final ConcurrentMap<String, FutureTask<File>> converting = new ConcurrentHashMap<String, FutureTask<File>>();
+    private volatile Set<String> documentTypes = Collections.emptySet();
+
+    /**
+     * Instantiates a new Pdf intermediate cache.
+     * @param cachePath the cache path
+     */
+    public PdfIntermediateCache(String cachePath) {
+        this.directory = new File(cachePath, "pdf");
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.out.println("Can't create directory for pdf intermediates! " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Sets document types rendered from intermediate PDF.
+     * @param extensions the file extensions, e.g. docx
+     */
+    public void setDocumentTypes(Collection<String> extensions) {
+        final Set<String> types = new HashSet<String>();
+        for (String extension : extensions) {
+            types.add(extension.toLowerCase());
+        }
+        this.documentTypes = types;
+    }
+
+    /**
+     * Gets directory.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets guid prefix of intermediates.
+     * @return the guid prefix
+     */
+    public String getGuidPrefix() {
+        return GUID_PREFIX;
+    }
+
+    /**
+     * Gets guid the document is rendered from: its intermediate PDF for configured types, otherwise the document itself.
+     * @param guid the guid
+     * @return the guid to render
+     * @throws Exception the exception
+     */
+    public String getRenderGuid(String guid) throws Exception {
+        if (guid == null || guid.startsWith(GUID_PREFIX) || !documentTypes.contains(FilenameUtils.getExtension(guid).toLowerCase())) {
+            return guid;
+        }
+        final File pdf = getPdf(guid);
+        return pdf == null ? guid : GUID_PREFIX + pdf.getName();
+    }
+
+    /**
+     * Gets PDF of current document version if it is already converted.
+     * @param guid the guid
+     * @return the pdf file or null if it is not converted yet or document does not exist
+     */
+    public File getCachedPdf(String guid) {
+        final String version = ViewGenerator.getDocumentVersion(guid);
+        if (version == null) {
+            return null;
+        }
+        final File pdf = new File(directory, Utilities.makeCacheKey(guid, version) + ".pdf");
+        if (!pdf.isFile()) {
+            return null;
+        }
+        DiskJanitor.markServed(pdf);
+        return pdf;
+    }
+
+    /**
+     * Gets PDF of current document version, converting it if needed.
+     * @param guid the guid
+     * @return the pdf file or null if document does not exist
+     * @throws Exception the exception
+     */
+    public File getPdf(final String guid) throws Exception {
+        final String version = ViewGenerator.getDocumentVersion(guid);
+        if (version == null) {
+            return null;
+        }
+        final String key = Utilities.makeCacheKey(guid, version);
+        final File pdf = new File(directory, key + ".pdf");
+        if (pdf.isFile()) {
+            DiskJanitor.markServed(pdf);
+            return pdf;
+        }
+        // Only one thread converts the same document version, others wait for it
+        FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                convert(guid, pdf);
+                return pdf;
+            }
+        });
+        final FutureTask<File> existing = converting.putIfAbsent(key, task);
+        if (existing != null) {
+            task = existing;
+        } else {
+            try {
+                task.run();
+            } finally {
+                converting.remove(key, task);
+            }
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private void convert(String guid, File pdf) throws IOException {
+        final File temporary = new File(directory, pdf.getName() + "." + UUID.randomUUID() + ".part");
+        try {
+            final InputStream content = ViewGenerator.getPdfStream(guid);
+            final FileOutputStream output = new FileOutputStream(temporary);
+            try {
+                DirectBufferPool.getDefault().copy(content, output.getChannel());
+            } finally {
+                output.close();
+                content.close();
+            }
+            Files.move(temporary.toPath(), pdf.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+}
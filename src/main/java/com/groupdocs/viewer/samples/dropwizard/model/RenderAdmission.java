@@ -0,0 +1,199 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.groupdocs.viewer.domain.FileDescription;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.commons.io.FilenameUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control of renders by memory.
+ * Before a render enters {@link ViewGenerator} its heap cost is estimated from document size and type
+ * and reserved from a global byte budget. Estimates are corrected by heap growth observed during renders.
+ */
+public class RenderAdmission implements Managed {
+    private static final long UNIT = 1024;
+    private static final long BASE_COST = 16L * 1024 * 1024;
+    private static final double DEFAULT_FACTOR = 10;
+    private static final double LEARNING_RATE = 0.2;
+    private static final long SAMPLE_INTERVAL_MILLIS = 50;
+    private static final Map<String, Double> INITIAL_FACTORS = new HashMap<String, Double>();
+
+    static {
+        // Heap bytes needed per byte of document, spreadsheets and images expand the most
+        INITIAL_FACTORS.put("xls", 40.0);
+        INITIAL_FACTORS.put("xlsx", 60.0);
+        INITIAL_FACTORS.put("doc", 15.0);
+        INITIAL_FACTORS.put("docx", 25.0);
+        INITIAL_FACTORS.put("ppt", 10.0);
+        INITIAL_FACTORS.put("pptx", 15.0);
+        INITIAL_FACTORS.put("pdf", 8.0);
+        INITIAL_FACTORS.put("html", 10.0);
+        INITIAL_FACTORS.put("xml", 10.0);
+        INITIAL_FACTORS.put("bmp", 4.0);
+        INITIAL_FACTORS.put("jpg", 30.0);
+        INITIAL_FACTORS.put("gif", 30.0);
+    }
+
+    private final long budgetBytes;
+    private final Semaphore budget;
+    private final ConcurrentMap<String, Double> factors = new ConcurrentHashMap<String, Double>(INITIAL_FACTORS);
+    private final Set<Reservation> active = Collections.newSetFromMap(new ConcurrentHashMap<Reservation, Boolean>());
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("render-admission-sampler").build());
+
+    private final Timer waitTime;
+    private final Meter rejected;
+    private final Histogram estimates;
+    private final Histogram observed;
+
+    /**
+     * Instantiates a new Render admission.
+     * @param budgetBytes the memory budget for all concurrent renders
+     * @param metrics     the metric registry
+     */
+    public RenderAdmission(long budgetBytes, MetricRegistry metrics) {
+        this.budgetBytes = budgetBytes;
+        this.budget = new Semaphore(toPermits(budgetBytes), true);
+        this.waitTime = metrics.timer(MetricRegistry.name(RenderAdmission.class, "wait"));
+        this.rejected = metrics.meter(MetricRegistry.name(RenderAdmission.class, "rejected"));
+        this.estimates = metrics.histogram(MetricRegistry.name(RenderAdmission.class, "estimated-bytes"));
+        this.observed = metrics.histogram(MetricRegistry.name(RenderAdmission.class, "observed-bytes"));
+        metrics.register(MetricRegistry.name(RenderAdmission.class, "available-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return budget.availablePermits() * UNIT;
+            }
+        });
+    }
+
+    /**
+     * Estimate heap needed to render the document.
+     * @param description the file description
+     * @return the estimated bytes, never more than whole budget
+     */
+    public long estimate(FileDescription description) {
+        final Double factor = factors.get(extensionOf(description));
+        final long estimate = BASE_COST + (long) ((factor == null ? DEFAULT_FACTOR : factor) * description.getSize());
+        return Math.min(estimate, budgetBytes);
+    }
+
+    /**
+     * Reserve memory for a render, waiting until enough of budget is free or the render is cancelled.
+     * @param description the file description
+     * @param token       the render token
+     * @return the reservation which must be released after render
+     * @throws InterruptedException the interrupted exception
+     */
+    public Reservation reserve(FileDescription description, RenderToken token) throws InterruptedException {
+        final long bytes = estimate(description);
+        estimates.update(bytes);
+        final int permits = toPermits(bytes);
+        final Timer.Context context = waitTime.time();
+        try {
+            while (!budget.tryAcquire(permits, Math.min(token.getRemainingMillis(), SAMPLE_INTERVAL_MILLIS * 10), TimeUnit.MILLISECONDS)) {
+                if (token.isCancelled()) {
+                    rejected.mark();
+                    token.checkpoint(0);
+                }
+            }
+        } finally {
+            context.stop();
+        }
+        final Reservation reservation = new Reservation(extensionOf(description), description.getSize(), permits);
+        active.add(reservation);
+        return reservation;
+    }
+
+    @Override
+    public void start() throws Exception {
+        sampler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (active.isEmpty()) {
+                    return;
+                }
+                final long used = memory.getHeapMemoryUsage().getUsed();
+                for (Reservation reservation : active) {
+                    reservation.sample(used);
+                }
+            }
+        }, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        sampler.shutdownNow();
+    }
+
+    private void learn(String extension, long size, long peak) {
+        observed.update(peak);
+        if (size <= 0 || peak <= BASE_COST) {
+            return;
+        }
+        final double sample = (double) (peak - BASE_COST) / size;
+        final Double current = factors.get(extension);
+        factors.put(extension, current == null ? sample : current + LEARNING_RATE * (sample - current));
+    }
+
+    private static String extensionOf(FileDescription description) {
+        return FilenameUtils.getExtension(description.getGuid()).toLowerCase();
+    }
+
+    private static int toPermits(long bytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / UNIT));
+    }
+
+    /**
+     * Memory reserved for one render.
+     */
+    public class Reservation {
+        private final String extension;
+        private final long size;
+        private final int permits;
+        private final long heapAtStart = memory.getHeapMemoryUsage().getUsed();
+        private volatile long peak;
+
+        private Reservation(String extension, long size, int permits) {
+            this.extension = extension;
+            this.size = size;
+            this.permits = permits;
+        }
+
+        private void sample(long heapUsed) {
+            // Heap growth is shared by concurrent renders, so the observation is an upper bound
+            if (heapUsed - heapAtStart > peak) {
+                peak = heapUsed - heapAtStart;
+            }
+        }
+
+        /**
+         * Return reserved memory to the budget and learn from observed heap growth.
+         */
+        public void release() {
+            if (active.remove(this)) {
+                sample(memory.getHeapMemoryUsage().getUsed());
+                budget.release(permits);
+                learn(extension, size, peak);
+            }
+        }
+    }
+}
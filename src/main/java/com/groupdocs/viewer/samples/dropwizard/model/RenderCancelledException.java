@@ -0,0 +1,27 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown between pages when a render was cancelled or its deadline has passed.
+ */
+public class RenderCancelledException extends CancellationException {
+    private final RenderToken.Reason reason;
+
+    /**
+     * Instantiates a new Render cancelled exception.
+     * @param reason the reason
+     */
+    public RenderCancelledException(RenderToken.Reason reason) {
+        super("Render cancelled: " + reason);
+        this.reason = reason;
+    }
+
+    /**
+     * Gets reason.
+     * @return the reason
+     */
+    public RenderToken.Reason getReason() {
+        return reason;
+    }
+}
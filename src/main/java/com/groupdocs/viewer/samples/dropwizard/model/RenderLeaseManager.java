@@ -0,0 +1,267 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.groupdocs.viewer.samples.dropwizard.config.ClusterConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
+import com.groupdocs.viewer.samples.dropwizard.model.business.ImageInfo;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates renders of several nodes sharing one storage path.
+ * A node claims a render by atomically creating {@code <cachePath>/leases/<key>.lease} and keeps it alive by
+ * touching it. The rendered pages are published to {@code <cachePath>/renders/<key>.json}; other nodes wait for
+ * the published output instead of rendering the same document, and take over leases whose heartbeat has expired.
+ * A node waiting for the lease holder does not keep a render thread: the attempt ends and is submitted again
+ * after a poll interval, see {@link #retryLater(Runnable)}.
+ * Outputs are keyed by the document generation, see {@link DocumentGenerations}, so outputs published before
+ * a rotate or reorder are not reused. Rotate and reorder themselves always render.
+ */
+public class RenderLeaseManager implements Managed {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    private static final TypeReference<List<HtmlInfo>> HTML_PAGES = new TypeReference<List<HtmlInfo>>() {
+    };
+    private static final TypeReference<List<ImageInfo>> IMAGE_PAGES = new TypeReference<List<ImageInfo>>() {
+    };
+
+    private final ClusterConfig config;
+    private final Path leases;
+    private final Path renders;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final Map<Path, String> held = new ConcurrentHashMap<Path, String>();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("render-lease-heartbeat").build());
+
+    private final Meter acquired;
+    private final Meter stolen;
+    private final Meter reused;
+    private final Meter waits;
+    private final Timer waitTime;
+
+    /**
+     * Instantiates a new Render lease manager.
+     * @param config    the cluster config
+     * @param cachePath the cache path shared by all nodes
+     * @param metrics   the metric registry
+     */
+    public RenderLeaseManager(ClusterConfig config, String cachePath, MetricRegistry metrics) {
+        this.config = config;
+        this.leases = new File(cachePath, "leases").toPath();
+        this.renders = new File(cachePath, "renders").toPath();
+        for (Path directory : new Path[]{leases, renders}) {
+            if (!directory.toFile().exists() && !directory.toFile().mkdirs()) {
+                System.out.println("Can't create directory for render leases! " + directory.toAbsolutePath());
+            }
+        }
+        this.acquired = metrics.meter(MetricRegistry.name(RenderLeaseManager.class, "acquired"));
+        this.stolen = metrics.meter(MetricRegistry.name(RenderLeaseManager.class, "stolen"));
+        this.reused = metrics.meter(MetricRegistry.name(RenderLeaseManager.class, "reused"));
+        this.waits = metrics.meter(MetricRegistry.name(RenderLeaseManager.class, "waits"));
+        this.waitTime = metrics.timer(MetricRegistry.name(RenderLeaseManager.class, "wait"));
+    }
+
+    /**
+     * Attempt to execute render once across the cluster: reuse published output, or claim the lease and render here.
+     * @param request the render request
+     * @param token   the render token
+     * @param since   the {@link System#nanoTime()} of the first attempt
+     * @param render  the render executed when this node owns the lease
+     * @return the rendered pages, null if another node holds the lease and the attempt must be repeated later
+     * @throws Exception the exception
+     */
+    public List<?> tryExecute(RenderRequest request, RenderToken token, long since, Callable<List<?>> render) throws Exception {
+        final String version = ViewGenerator.getDocumentVersion(request.getFilePath());
+        if (version == null) {
+            return render.call();
+        }
+        if (request.isTransformation()) {
+            // Every rotate or reorder changes the document, a repeated one must not be answered with the previous output
+            return render.call();
+        }
+        final String key = Utilities.makeCacheKey(request.toString(), version, ViewGenerator.getGenerations().get(request.getFilePath()));
+        final Path lease = leases.resolve(key + ".lease");
+        final Path output = renders.resolve(key + ".json");
+        while (true) {
+            final List<?> published = readPublished(request, output);
+            if (published != null) {
+                reused.mark();
+                return published;
+            }
+            final String leaseId = tryAcquire(lease);
+            if (leaseId != null) {
+                waitTime.update(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+                try {
+                    // The owner may have published and released between our two checks
+                    final List<?> republished = readPublished(request, output);
+                    if (republished != null) {
+                        reused.mark();
+                        return republished;
+                    }
+                    final List<?> pages = render.call();
+                    publish(output, pages);
+                    return pages;
+                } finally {
+                    release(lease, leaseId);
+                }
+            }
+            if (!steal(lease)) {
+                token.checkpoint(0);
+                waits.mark();
+                return null;
+            }
+            stolen.mark();
+        }
+    }
+
+    /**
+     * Run the next attempt of a render after a poll interval, on the heartbeat thread rather than a render thread.
+     * @param retry the retry submitting the attempt
+     */
+    public void retryLater(Runnable retry) {
+        heartbeat.schedule(retry, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void start() throws Exception {
+        final long interval = config.getHeartbeatInterval().toMilliseconds();
+        heartbeat.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (Map.Entry<Path, String> entry : held.entrySet()) {
+                    try {
+                        // A lease taken over by another node is not ours to extend
+                        if (entry.getValue().equals(readLease(entry.getKey()))) {
+                            Files.setLastModifiedTime(entry.getKey(), FileTime.fromMillis(System.currentTimeMillis()));
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        heartbeat.shutdownNow();
+        for (Map.Entry<Path, String> entry : held.entrySet()) {
+            release(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private String tryAcquire(Path lease) throws IOException {
+        final String leaseId = config.getNodeId() + " " + UUID.randomUUID();
+        try {
+            Files.write(Files.createFile(lease), leaseId.getBytes(UTF_8));
+        } catch (FileAlreadyExistsException e) {
+            return null;
+        }
+        held.put(lease, leaseId);
+        acquired.mark();
+        return leaseId;
+    }
+
+    private void release(Path lease, String leaseId) {
+        held.remove(lease);
+        try {
+            if (leaseId.equals(readLease(lease))) {
+                Files.deleteIfExists(lease);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isExpired(Path lease) throws IOException {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(lease).toMillis() > config.getLeaseTimeout().toMilliseconds();
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private boolean steal(Path lease) throws IOException {
+        final String expiredId = readLease(lease);
+        if (expiredId == null || !isExpired(lease)) {
+            return false;
+        }
+        return takeOver(lease, expiredId);
+    }
+
+    /**
+     * Remove the lease if it is still the expired one, otherwise restore it.
+     * @return true if the expired lease was removed
+     */
+    boolean takeOver(Path lease, String expiredId) throws IOException {
+        // Rename is atomic, but another node may have stolen the expired lease and created a fresh one
+        // since it was read, or its owner may have extended it; only the expired lease itself is removed
+        final Path stale = lease.resolveSibling(lease.getFileName() + "." + UUID.randomUUID() + ".stale");
+        try {
+            Files.move(lease, stale, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (expiredId.equals(readLease(stale)) && isExpired(stale)) {
+            Files.deleteIfExists(stale);
+            return true;
+        }
+        try {
+            // Link fails if yet another lease was created meanwhile, that one is then the live lease
+            Files.createLink(lease, stale);
+        } catch (FileAlreadyExistsException e) {
+            // Owner of the moved lease no longer sees it as its own and stops extending it
+        }
+        Files.deleteIfExists(stale);
+        return false;
+    }
+
+    private String readLease(Path lease) throws IOException {
+        try {
+            return new String(Files.readAllBytes(lease), UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private List<?> readPublished(RenderRequest request, Path output) throws IOException {
+        try {
+            final byte[] json = Files.readAllBytes(output);
+            DiskJanitor.markServed(output.toFile());
+            return objectMapper.readValue(json, request.isHtml() ? HTML_PAGES : IMAGE_PAGES);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void publish(Path output, List<?> pages) throws IOException {
+        // Readers see either nothing or the whole file
+        final Path temporary = output.resolveSibling(output.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.write(temporary, objectMapper.writeValueAsBytes(pages));
+        Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,19 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+/**
+ * Priority class of a render job.
+ */
+public enum RenderPriority {
+    /**
+     * User is waiting for the first page of a document.
+     */
+    INTERACTIVE,
+    /**
+     * Remaining pages of a document which is already shown.
+     */
+    REMAINING_PAGES,
+    /**
+     * Pre-rendering, metadata computation and other batch work.
+     */
+    BACKGROUND
+}
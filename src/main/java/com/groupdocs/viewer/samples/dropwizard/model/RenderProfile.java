@@ -0,0 +1,87 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+/**
+ * Tags of stages timed for one render: action and the document with its type, size and page count.
+ * Document details are known only when its metadata was computed before the render.
+ */
+public class RenderProfile {
+    private final String action;
+    private final String guid;
+    private String documentType;
+    private long documentSize = -1;
+    private int pageCount = -1;
+
+    /**
+     * Instantiates a new Render profile.
+     * @param action the action
+     * @param guid   the guid
+     */
+    public RenderProfile(String action, String guid) {
+        this.action = action;
+        this.guid = guid;
+    }
+
+    /**
+     * Gets action.
+     * @return the action
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Gets guid.
+     * @return the guid
+     */
+    public String getGuid() {
+        return guid;
+    }
+
+    /**
+     * Gets document type.
+     * @return the document type or null if unknown
+     */
+    public String getDocumentType() {
+        return documentType;
+    }
+
+    /**
+     * Sets document type.
+     * @param documentType the document type
+     */
+    public void setDocumentType(String documentType) {
+        this.documentType = documentType;
+    }
+
+    /**
+     * Gets document size.
+     * @return the document size in bytes, -1 if unknown
+     */
+    public long getDocumentSize() {
+        return documentSize;
+    }
+
+    /**
+     * Sets document size.
+     * @param documentSize the document size in bytes
+     */
+    public void setDocumentSize(long documentSize) {
+        this.documentSize = documentSize;
+    }
+
+    /**
+     * Gets page count.
+     * @return the page count, -1 if unknown
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Sets page count.
+     * @param pageCount the page count
+     */
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+}
@@ -0,0 +1,154 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.groupdocs.viewer.samples.dropwizard.model.business.DocumentMetadata;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times stages of the render pipeline, so a slow render shows where its time went.
+ * Every stage updates a timer of the stage and a timer of the stage per document type,
+ * and emits a {@link RenderStageEvent} when the JVM has Flight Recorder.
+ * Both cost a couple of clock reads per stage, so profiling stays on in production.
+ */
+public class RenderProfiler {
+    private static final ThreadLocal<RenderProfile> CURRENT = new ThreadLocal<RenderProfile>();
+    private static final boolean FLIGHT_RECORDER = isFlightRecorderAvailable();
+
+    private static volatile MetricRegistry metrics;
+    private static volatile Map<RenderStage, Timer> timers;
+
+    /**
+     * Init timers of stages, stages are not timed by metrics before it, e.g. in render worker processes.
+     * @param registry the metric registry
+     */
+    public static void init(MetricRegistry registry) {
+        final Map<RenderStage, Timer> stageTimers = new EnumMap<RenderStage, Timer>(RenderStage.class);
+        for (RenderStage stage : RenderStage.values()) {
+            stageTimers.put(stage, registry.timer(MetricRegistry.name(RenderProfiler.class, stage.name().toLowerCase())));
+        }
+        RenderProfiler.timers = stageTimers;
+        RenderProfiler.metrics = registry;
+    }
+
+    /**
+     * Gets timer of a stage.
+     * @param stage the stage
+     * @return the timer or null before init
+     */
+    public static Timer getTimer(RenderStage stage) {
+        final Map<RenderStage, Timer> stageTimers = timers;
+        return stageTimers == null ? null : stageTimers.get(stage);
+    }
+
+    /**
+     * Attach profile of a render to current thread, stages begun by the thread are tagged with it.
+     * @param action the action
+     * @param guid   the guid
+     * @return the profile
+     */
+    public static RenderProfile attach(String action, String guid) {
+        final RenderProfile profile = profile(action, guid);
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * Make profile of a render without attaching it, e.g. for stages outside of the render thread.
+     * Document details come from its cached metadata, the profile never computes metadata itself.
+     * @param action the action
+     * @param guid   the guid
+     * @return the profile
+     */
+    public static RenderProfile profile(String action, String guid) {
+        final RenderProfile profile = new RenderProfile(action, guid);
+        final DocumentMetadataCache metadataCache = ViewGenerator.getMetadataCache();
+        final DocumentMetadata metadata = metadataCache == null || guid == null ? null : metadataCache.getIfPresent(guid);
+        if (metadata != null) {
+            profile.setDocumentType(metadata.getDocumentType());
+            profile.setDocumentSize(metadata.getSize());
+            profile.setPageCount(metadata.getPageCount());
+        }
+        return profile;
+    }
+
+    /**
+     * Detach profile from current thread.
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Gets profile attached to current thread.
+     * @return the profile or null if current thread does not render
+     */
+    public static RenderProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Begin stage tagged with profile of current thread.
+     * @param stage the stage
+     * @return the span, it must be ended in finally block
+     */
+    public static Span begin(RenderStage stage) {
+        return begin(stage, CURRENT.get());
+    }
+
+    /**
+     * Begin stage tagged with the profile, e.g. serialization which runs outside of the render thread.
+     * @param stage   the stage
+     * @param profile the profile, may be null
+     * @return the span, it must be ended in finally block
+     */
+    public static Span begin(RenderStage stage, RenderProfile profile) {
+        return new Span(stage, profile, FLIGHT_RECORDER ? RenderStageEvent.start() : null);
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * The type Span. One execution of a stage.
+     */
+    public static class Span {
+        private final RenderStage stage;
+        private final RenderProfile profile;
+        private final Object event;
+        private final long start = System.nanoTime();
+
+        private Span(RenderStage stage, RenderProfile profile, Object event) {
+            this.stage = stage;
+            this.profile = profile;
+            this.event = event;
+        }
+
+        /**
+         * End stage, update its timers and commit its event.
+         */
+        public void end() {
+            final long elapsed = System.nanoTime() - start;
+            final Map<RenderStage, Timer> stageTimers = timers;
+            if (stageTimers != null) {
+                stageTimers.get(stage).update(elapsed, TimeUnit.NANOSECONDS);
+                if (profile != null && profile.getDocumentType() != null) {
+                    metrics.timer(MetricRegistry.name(RenderProfiler.class, stage.name().toLowerCase(),
+                            profile.getDocumentType().toLowerCase())).update(elapsed, TimeUnit.NANOSECONDS);
+                }
+            }
+            if (event != null) {
+                RenderStageEvent.finish(event, stage, profile);
+            }
+        }
+    }
+}
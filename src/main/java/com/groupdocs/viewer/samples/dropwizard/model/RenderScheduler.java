@@ -0,0 +1,199 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread pool running render jobs by priority.
+ * Every job gets a virtual start time: time of submission plus delay of its priority class.
+ * Jobs run in order of virtual start time, so a job of lower priority waits at most the delay of its class
+ * for newer jobs of higher priority and never starves.
+ * Jobs of a client are additionally spread in time by weighted fair queuing: each job of the client starts
+ * its virtual time after the previous one has virtually finished, so a client with many queued jobs does not
+ * delay the first job of another client by more than one average job.
+ */
+public class RenderScheduler implements Managed {
+    private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<Boolean>();
+    private static final int CLEANUP_INTERVAL = 1024;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<RenderPriority, Long> delays = new EnumMap<RenderPriority, Long>(RenderPriority.class);
+    private final Map<RenderPriority, Timer> waitTimers = new EnumMap<RenderPriority, Timer>(RenderPriority.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> finishTags = new ConcurrentHashMap<String, AtomicLong>();
+    private volatile long serviceNanos = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Instantiates a new Render scheduler.
+     * @param threads                   the count of render threads
+     * @param remainingPagesDelayMillis the delay of remaining pages jobs
+     * @param backgroundDelayMillis     the delay of background jobs
+     * @param metrics                   the metric registry
+     */
+    public RenderScheduler(int threads, long remainingPagesDelayMillis, long backgroundDelayMillis, MetricRegistry metrics) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("render-%d").build());
+        delays.put(RenderPriority.INTERACTIVE, 0L);
+        delays.put(RenderPriority.REMAINING_PAGES, TimeUnit.MILLISECONDS.toNanos(remainingPagesDelayMillis));
+        delays.put(RenderPriority.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(backgroundDelayMillis));
+        for (RenderPriority priority : RenderPriority.values()) {
+            waitTimers.put(priority, metrics.timer(MetricRegistry.name(RenderScheduler.class, "wait", priority.name().toLowerCase())));
+        }
+        metrics.register(MetricRegistry.name(RenderScheduler.class, "queue-depth"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getQueueDepth();
+            }
+        });
+        metrics.register(MetricRegistry.name(RenderScheduler.class, "active"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return executor.getActiveCount();
+            }
+        });
+    }
+
+    /**
+     * Is current thread a render thread.
+     * Work submitted from a render thread must run inline, waiting for another job could dead lock the pool.
+     * @return true if current thread executes a render job
+     */
+    public static boolean isWorkerThread() {
+        return Boolean.TRUE.equals(WORKER.get());
+    }
+
+    /**
+     * Submit job.
+     * @param priority the priority
+     * @param job      the job
+     * @param <T>      the type of result
+     * @return the future of result
+     */
+    public <T> ListenableFuture<T> submit(RenderPriority priority, Callable<T> job) {
+        return submit(priority, null, 1, job);
+    }
+
+    /**
+     * Submit job of a client.
+     * @param priority the priority
+     * @param clientId the client id, null if job is not fair queued
+     * @param weight   the weight of client, a client with weight 2 gets twice the share of other clients
+     * @param job      the job
+     * @param <T>      the type of result
+     * @return the future of result
+     */
+    public <T> ListenableFuture<T> submit(RenderPriority priority, String clientId, double weight, Callable<T> job) {
+        final ListenableFutureTask<T> task = ListenableFutureTask.create(job);
+        final long now = System.nanoTime();
+        final long start = clientId == null ? now : fairStart(clientId, weight, now);
+        executor.execute(new PrioritizedTask(priority, task, now, start));
+        return task;
+    }
+
+    /**
+     * Gets count of jobs waiting in the queue.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets count of render threads.
+     * @return the thread count
+     */
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public void start() throws Exception {
+        executor.prestartAllCoreThreads();
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private long fairStart(String clientId, double weight, long now) {
+        if (sequence.get() % CLEANUP_INTERVAL == 0) {
+            // Clients whose jobs have all virtually finished have no advantage to remember
+            for (Map.Entry<String, AtomicLong> entry : finishTags.entrySet()) {
+                if (entry.getValue().get() - now < 0) {
+                    finishTags.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        AtomicLong finish = finishTags.get(clientId);
+        if (finish == null) {
+            final AtomicLong created = new AtomicLong(now);
+            finish = finishTags.putIfAbsent(clientId, created);
+            if (finish == null) {
+                finish = created;
+            }
+        }
+        final long cost = (long) (serviceNanos / Math.max(weight, 0.01));
+        while (true) {
+            final long previous = finish.get();
+            final long start = previous - now > 0 ? previous : now;
+            if (finish.compareAndSet(previous, start + cost)) {
+                return start;
+            }
+        }
+    }
+
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final RenderPriority priority;
+        private final Runnable task;
+        private final long submitted;
+        private final long virtualStart;
+        private final long order = sequence.incrementAndGet();
+
+        PrioritizedTask(RenderPriority priority, Runnable task, long submitted, long start) {
+            this.priority = priority;
+            this.task = task;
+            this.submitted = submitted;
+            this.virtualStart = start + delays.get(priority);
+        }
+
+        @Override
+        public void run() {
+            waitTimers.get(priority).update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            WORKER.set(Boolean.TRUE);
+            final long started = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                WORKER.remove();
+                // Moving average of job duration is the virtual cost of one job in fair queuing
+                serviceNanos += (System.nanoTime() - started - serviceNanos) / 8;
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            final long difference = virtualStart - other.virtualStart;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes render jobs in {@link RenderScheduler} with cancellation tokens and records cancelled work in metrics.
+ */
+public class RenderService {
+    private final RenderScheduler scheduler;
+    private final RenderAdmission admission;
+    private final long timeoutMillis;
+    private final ConcurrentMap<String, RenderToken> activeTokens = new ConcurrentHashMap<String, RenderToken>();
+    private RenderWorkerPool workerPool;
+    private RenderLeaseManager leaseManager;
+    private SlowRenderRecorder slowRenderRecorder;
+    private ResponseCache responseCache;
+
+    private final Timer renders;
+    private final Meter disconnected;
+    private final Meter timedOut;
+    private final Meter cancelled;
+    private final Histogram cancelledPages;
+    private final Timer wastedTime;
+
+    /**
+     * Instantiates a new Render service.
+     * @param scheduler     the scheduler of render jobs
+     * @param admission     the memory admission control
+     * @param timeoutMillis the deadline of a render in milliseconds
+     * @param metrics       the metric registry
+     */
+    public RenderService(RenderScheduler scheduler, RenderAdmission admission, long timeoutMillis, MetricRegistry metrics) {
+        this.scheduler = scheduler;
+        this.admission = admission;
+        this.timeoutMillis = timeoutMillis;
+        this.renders = metrics.timer(MetricRegistry.name(RenderService.class, "renders"));
+        this.disconnected = metrics.meter(MetricRegistry.name(RenderService.class, "cancelled", "disconnected"));
+        this.timedOut = metrics.meter(MetricRegistry.name(RenderService.class, "cancelled", "timed-out"));
+        this.cancelled = metrics.meter(MetricRegistry.name(RenderService.class, "cancelled", "by-client"));
+        this.cancelledPages = metrics.histogram(MetricRegistry.name(RenderService.class, "cancelled", "pages-rendered"));
+        this.wastedTime = metrics.timer(MetricRegistry.name(RenderService.class, "cancelled", "time"));
+    }
+
+    /**
+     * Gets timeout millis.
+     * @return the timeout of a render in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Gets timer of all renders, its snapshot covers roughly the last five minutes.
+     * @return the render timer
+     */
+    public Timer getRenderTimer() {
+        return renders;
+    }
+
+    /**
+     * Create token for a new render with the configured deadline.
+     * @param clientId the client owning the render, null for renders not started by a client
+     * @param weight   the weight of client in fair queuing
+     * @param renderId the render id given by client, may be null
+     * @return the render token
+     */
+    public RenderToken newToken(String clientId, double weight, String renderId) {
+        return newToken(clientId, weight, renderId, timeoutMillis);
+    }
+
+    /**
+     * Create token for a new render. Render ids are scoped by client, so a client can cancel only its own renders.
+     * A render id still held by an active render of the same client is not taken over,
+     * the new render is then not cancellable by id.
+     * @param clientId      the client owning the render, null for renders not started by a client
+     * @param weight        the weight of client in fair queuing
+     * @param renderId      the render id given by client, may be null
+     * @param timeoutMillis the timeout in milliseconds, 0 for no deadline
+     * @return the render token
+     */
+    public RenderToken newToken(String clientId, double weight, String renderId, long timeoutMillis) {
+        final RenderToken token = new RenderToken(renderId, timeoutMillis);
+        token.setClient(clientId, weight);
+        if (renderId != null && !renderId.isEmpty()) {
+            activeTokens.putIfAbsent(keyOf(clientId, renderId), token);
+        }
+        return token;
+    }
+
+    /**
+     * Cancel render by id given by client.
+     * @param clientId the client which started the render
+     * @param renderId the render id
+     * @return true if such render of the client was active
+     */
+    public boolean cancel(String clientId, String renderId) {
+        final RenderToken token = renderId == null ? null : activeTokens.get(keyOf(clientId, renderId));
+        if (token == null) {
+            return false;
+        }
+        token.cancel(RenderToken.Reason.CANCELLED);
+        return true;
+    }
+
+    /**
+     * Gets scheduler.
+     * @return the scheduler
+     */
+    public RenderScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Sets pool of child JVMs, when set render requests are executed there instead of this JVM.
+     * @param workerPool the worker pool
+     */
+    public void setWorkerPool(RenderWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * Sets lease manager, when set a render is executed by only one of the nodes sharing the storage.
+     * @param leaseManager the lease manager
+     */
+    public void setLeaseManager(RenderLeaseManager leaseManager) {
+        this.leaseManager = leaseManager;
+    }
+
+    /**
+     * Sets recorder of slow renders, when set renders above its threshold are captured for offline replay.
+     * @param slowRenderRecorder the slow render recorder
+     */
+    public void setSlowRenderRecorder(SlowRenderRecorder slowRenderRecorder) {
+        this.slowRenderRecorder = slowRenderRecorder;
+    }
+
+    /**
+     * Sets cache of serialized responses, when set responses of a document are invalidated by its rotate and reorder.
+     * @param responseCache the response cache
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Forget token of finished render, so it can not be cancelled by id anymore.
+     * @param token the token
+     */
+    public void release(RenderToken token) {
+        if (token.getRenderId() != null) {
+            activeTokens.remove(keyOf(token.getClientId(), token.getRenderId()), token);
+        }
+    }
+
+    private static String keyOf(String clientId, String renderId) {
+        return (clientId == null ? "" : clientId) + '\u0000' + renderId;
+    }
+
+    /**
+     * Submit render job. The job waits for its memory reservation before entering {@link ViewGenerator},
+     * or is sent to a worker process when out-of-process rendering is enabled. When renders are shared by the cluster
+     * and another node holds the lease, the job leaves the scheduler and is submitted again after a poll interval.
+     * @param request  the render request
+     * @param token    the render token
+     * @param priority the priority
+     * @return the future of rendered pages
+     */
+    public ListenableFuture<List<?>> submit(final RenderRequest request, final RenderToken token, RenderPriority priority) {
+        if (leaseManager == null) {
+            return submit(token, priority, new Callable<List<?>>() {
+                @Override
+                public List<?> call() throws Exception {
+                    return invalidateResponses(request, render(request, token));
+                }
+            });
+        }
+        final SettableFuture<List<?>> result = SettableFuture.create();
+        submitAttempt(request, token, priority, System.nanoTime(), result);
+        return result;
+    }
+
+    private void submitAttempt(final RenderRequest request, final RenderToken token, final RenderPriority priority,
+                               final long since, final SettableFuture<List<?>> result) {
+        final ListenableFuture<List<?>> attempt = submit(token, priority, new Callable<List<?>>() {
+            @Override
+            public List<?> call() throws Exception {
+                final List<?> pages = leaseManager.tryExecute(request, token, since, new Callable<List<?>>() {
+                    @Override
+                    public List<?> call() throws Exception {
+                        return render(request, token);
+                    }
+                });
+                return pages == null ? null : invalidateResponses(request, pages);
+            }
+        });
+        Futures.addCallback(attempt, new FutureCallback<List<?>>() {
+            @Override
+            public void onSuccess(List<?> pages) {
+                if (pages != null) {
+                    result.set(pages);
+                    return;
+                }
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    leaseManager.retryLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            submitAttempt(request, token, priority, since, result);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    result.setException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.setException(t);
+            }
+        });
+    }
+
+    /**
+     * Submit render job which is executed by this node even when renders are shared by the cluster,
+     * e.g. warm-up of this node. Memory admission and worker processes apply as usual.
+     * @param request  the render request
+     * @param token    the render token
+     * @param priority the priority
+     * @return the future of rendered pages
+     */
+    public ListenableFuture<List<?>> submitLocal(final RenderRequest request, final RenderToken token, RenderPriority priority) {
+        return submit(token, priority, new Callable<List<?>>() {
+            @Override
+            public List<?> call() throws Exception {
+                return render(request, token);
+            }
+        });
+    }
+
+    /**
+     * Submit conversion of the document to PDF. It waits for memory admission or goes to a worker process like a render,
+     * the PDF is converted once per document version and kept in {@link PdfIntermediateCache}.
+     * @param guid     the document name
+     * @param token    the render token
+     * @param priority the priority
+     * @return the future of pdf file, null if document does not exist
+     */
+    public ListenableFuture<File> submitPdf(final String guid, final RenderToken token, RenderPriority priority) {
+        return submit(token, priority, new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                if (ViewGenerator.getPdfCache().getCachedPdf(guid) == null) {
+                    renderDocument(new RenderRequest("renderaspdf", guid), token);
+                }
+                return ViewGenerator.renderDocumentAsPDF(guid);
+            }
+        });
+    }
+
+    /**
+     * Submit any render work.
+     * @param token    the render token
+     * @param priority the priority
+     * @param work     the work
+     * @param <T>      the type of result
+     * @return the future of result
+     */
+    public <T> ListenableFuture<T> submit(final RenderToken token, RenderPriority priority, final Callable<T> work) {
+        return scheduler.submit(priority, token.getClientId(), token.getWeight(), new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return RenderService.this.call(token, work);
+            }
+        });
+    }
+
+    /**
+     * Execute render job in current thread.
+     * @param request the render request
+     * @param token   the render token
+     * @return the rendered pages
+     * @throws Exception the exception
+     */
+    public List<?> execute(final RenderRequest request, final RenderToken token) throws Exception {
+        return call(token, new Callable<List<?>>() {
+            @Override
+            public List<?> call() throws Exception {
+                return workerPool != null ? workerPool.execute(request, token) : ViewGenerator.render(request);
+            }
+        });
+    }
+
+    private List<?> render(RenderRequest request, RenderToken token) throws Exception {
+        final long start = System.nanoTime();
+        String outcome = "failed";
+        try {
+            final List<?> pages = renderDocument(request, token);
+            outcome = "rendered";
+            return pages;
+        } catch (RenderCancelledException e) {
+            outcome = "cancelled";
+            throw e;
+        } finally {
+            if (slowRenderRecorder != null) {
+                slowRenderRecorder.record(request, System.nanoTime() - start, outcome, token.getPagesRendered());
+            }
+        }
+    }
+
+    /**
+     * Pages transformed by the request are already rendered, outputs and responses cached for the document show them
+     * untransformed: the document moves to a new generation.
+     */
+    private List<?> invalidateResponses(RenderRequest request, List<?> pages) throws IOException {
+        if (!request.isTransformation()) {
+            return pages;
+        }
+        ViewGenerator.getGenerations().next(request.getFilePath());
+        if (responseCache != null) {
+            responseCache.invalidate(request.getFilePath());
+        }
+        return pages;
+    }
+
+    private List<?> renderDocument(RenderRequest request, RenderToken token) throws Exception {
+        if (workerPool != null) {
+            // Heap of the worker is limited by its own JVM options, the budget of this JVM does not apply
+            return workerPool.execute(request, token);
+        }
+        final FileDescription description = ViewGenerator.getFileDescription(request.getFilePath());
+        if (description == null) {
+            return ViewGenerator.render(request);
+        }
+        final RenderAdmission.Reservation reservation = admission.reserve(description, token);
+        try {
+            return ViewGenerator.render(request);
+        } finally {
+            reservation.release();
+        }
+    }
+
+    /**
+     * Run any render work in current thread with the token attached.
+     * @param token the render token
+     * @param work  the work
+     * @param <T>   the type of result
+     * @return the result of work
+     * @throws Exception the exception
+     */
+    public <T> T call(RenderToken token, Callable<T> work) throws Exception {
+        final long start = System.nanoTime();
+        final RenderToken previous = RenderToken.current();
+        RenderToken.attach(token);
+        try {
+            token.checkpoint(0);
+            return work.call();
+        } catch (RenderCancelledException e) {
+            recordCancelled(token, System.nanoTime() - start);
+            throw e;
+        } finally {
+            renders.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            RenderToken.attach(previous);
+        }
+    }
+
+    private void recordCancelled(RenderToken token, long elapsedNanos) {
+        switch (token.getReason()) {
+            case DISCONNECTED:
+                disconnected.mark();
+                break;
+            case TIMED_OUT:
+                timedOut.mark();
+                break;
+            default:
+                cancelled.mark();
+                break;
+        }
+        cancelledPages.update(token.getPagesRendered());
+        wastedTime.update(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,23 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+/**
+ * Stage of the render pipeline timed by {@link RenderProfiler}.
+ */
+public enum RenderStage {
+    /**
+     * Opening the source document, fetching it from remote storage if it is not cached.
+     */
+    LOAD,
+    /**
+     * Converting pages by the viewer, page images are encoded here. Loads of the source made by the viewer are part of it.
+     */
+    CONVERT,
+    /**
+     * Writing encoded page images to disk.
+     */
+    WRITE,
+    /**
+     * Serializing rendered pages to JSON of the response.
+     */
+    SERIALIZE
+}
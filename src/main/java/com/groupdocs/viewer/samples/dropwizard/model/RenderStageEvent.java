@@ -0,0 +1,76 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a render stage.
+ * Only {@link RenderProfiler} refers to this class and only when the JVM has Flight Recorder,
+ * events are not recorded unless a recording enables them, e.g. {@code -XX:StartFlightRecording}.
+ */
+@Name("com.groupdocs.viewer.RenderStage")
+@Label("Render Stage")
+@Category({"GroupDocs Viewer", "Render"})
+@Description("Stage of rendering a document")
+@StackTrace(false)
+class RenderStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Action")
+    String action;
+
+    @Label("Document")
+    String guid;
+
+    @Label("Document Type")
+    String documentType;
+
+    @Label("Document Size")
+    @DataAmount
+    long documentSize;
+
+    @Label("Page Count")
+    int pageCount;
+
+    /**
+     * Start event of a stage.
+     * @return the event, typed as object so callers do not load Flight Recorder classes
+     */
+    static Object start() {
+        final RenderStageEvent event = new RenderStageEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End event of a stage and commit it if the recording takes it, e.g. it is above the threshold.
+     * @param started the event returned by {@link #start()}
+     * @param stage   the stage
+     * @param profile the profile of the render, may be null
+     */
+    static void finish(Object started, RenderStage stage, RenderProfile profile) {
+        final RenderStageEvent event = (RenderStageEvent) started;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.stage = stage.name().toLowerCase();
+        if (profile != null) {
+            event.action = profile.getAction();
+            event.guid = profile.getGuid();
+            event.documentType = profile.getDocumentType();
+            event.documentSize = profile.getDocumentSize();
+            event.pageCount = profile.getPageCount();
+        } else {
+            event.documentSize = -1;
+            event.pageCount = -1;
+        }
+        event.commit();
+    }
+}
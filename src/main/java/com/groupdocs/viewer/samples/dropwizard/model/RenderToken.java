@@ -0,0 +1,168 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cancellation token of a render job.
+ * The token is attached to the thread executing the job, {@link ViewGenerator} checks it between pages.
+ */
+public class RenderToken {
+    /**
+     * Reason of cancellation.
+     */
+    public enum Reason {
+        /**
+         * Client closed connection.
+         */
+        DISCONNECTED,
+        /**
+         * Deadline of the request has passed.
+         */
+        TIMED_OUT,
+        /**
+         * Client asked to cancel the render.
+         */
+        CANCELLED
+    }
+
+    private static final ThreadLocal<RenderToken> CURRENT = new ThreadLocal<RenderToken>();
+
+    private final String renderId;
+    private final long deadline;
+    private final AtomicReference<Reason> reason = new AtomicReference<Reason>();
+    private final AtomicInteger pagesRendered = new AtomicInteger();
+    private volatile String clientId;
+    private volatile double weight = 1;
+
+    /**
+     * Instantiates a new Render token.
+     * @param renderId      the render id given by client, may be null
+     * @param timeoutMillis the timeout in milliseconds, 0 for no deadline
+     */
+    public RenderToken(String renderId, long timeoutMillis) {
+        this.renderId = renderId;
+        this.deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+    }
+
+    /**
+     * Gets token attached to current thread.
+     * @return the render token or null if current thread does not execute a render job
+     */
+    public static RenderToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attach token to current thread.
+     * @param token the token, null to detach
+     */
+    public static void attach(RenderToken token) {
+        if (token == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(token);
+        }
+    }
+
+    /**
+     * Gets render id.
+     * @return the render id
+     */
+    public String getRenderId() {
+        return renderId;
+    }
+
+    /**
+     * Sets client owning the render.
+     * @param clientId the client id, null for renders not started by a client
+     * @param weight   the weight of client in fair queuing
+     */
+    public void setClient(String clientId, double weight) {
+        this.clientId = clientId;
+        this.weight = weight;
+    }
+
+    /**
+     * Gets client id.
+     * @return the client id
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Gets weight of client in fair queuing.
+     * @return the weight
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Cancel render. Only the first reason is kept.
+     * @param cancelReason the reason
+     */
+    public void cancel(Reason cancelReason) {
+        reason.compareAndSet(null, cancelReason);
+    }
+
+    /**
+     * Is cancelled boolean.
+     * @return true if render was cancelled or deadline has passed
+     */
+    public boolean isCancelled() {
+        if (reason.get() == null && deadline != 0 && System.nanoTime() - deadline >= 0) {
+            cancel(Reason.TIMED_OUT);
+        }
+        return reason.get() != null;
+    }
+
+    /**
+     * Gets reason of cancellation.
+     * @return the reason or null if not cancelled
+     */
+    public Reason getReason() {
+        return reason.get();
+    }
+
+    /**
+     * Gets remaining time till deadline.
+     * @return the remaining milliseconds, Long.MAX_VALUE if there is no deadline
+     */
+    public long getRemainingMillis() {
+        return deadline == 0 ? Long.MAX_VALUE : Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * Gets count of pages rendered so far.
+     * @return the pages rendered
+     */
+    public int getPagesRendered() {
+        return pagesRendered.get();
+    }
+
+    /**
+     * Account rendered pages and abort the render if it was cancelled.
+     * @param pages the count of pages rendered since previous checkpoint
+     * @throws RenderCancelledException if render was cancelled
+     */
+    public void checkpoint(int pages) {
+        pagesRendered.addAndGet(pages);
+        if (isCancelled()) {
+            throw new RenderCancelledException(reason.get());
+        }
+    }
+
+    /**
+     * Abort render if token attached to current thread was cancelled.
+     * @param pages the count of pages rendered since previous checkpoint
+     */
+    public static void checkpointCurrent(int pages) {
+        final RenderToken token = CURRENT.get();
+        if (token != null) {
+            token.checkpoint(pages);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.RemoteFetchConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.StorageConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.RemoteDocumentFetcher;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import io.dropwizard.jackson.Jackson;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Entry point of a child JVM rendering documents for {@link RenderWorkerPool}.
+ * Requests and responses are length prefixed JSON frames on stdin and stdout, stdout of the
+ * rendering code is redirected to stderr so it can not break the protocol.
+ * Arguments: storage path and optional license path. The first frame may be {@code init} with the storage
+ * the parent reads documents from, see {@link RenderWorkerPool#setStorage}.
+ */
+public class RenderWorker {
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+    private static final TypeReference<List<String>> STRINGS = new TypeReference<List<String>>() {
+    };
+
+    /**
+     * The entry point of worker process.
+     * @param args the storage path and optional license path
+     * @throws Exception the exception
+     */
+    public static void main(String[] args) throws Exception {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+
+        final DropwizardConfig configuration = new DropwizardConfig();
+        configuration.setStoragePath(args[0]);
+        if (args.length > 1) {
+            configuration.setLicensePath(args[1]);
+        }
+        final RenderScheduler scheduler = new RenderScheduler(1, 0, 0, new MetricRegistry());
+        scheduler.start();
+        final ViewerConfig viewerConfig = new ViewerConfig(configuration);
+        ViewGenerator.initGenerator(viewerConfig, scheduler);
+
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(System.in));
+        final ExecutorService jobs = Executors.newSingleThreadExecutor();
+        final AtomicReference<RenderToken> current = new AtomicReference<RenderToken>();
+        try {
+            while (true) {
+                final JsonNode message = readFrame(input);
+                if ("init".equals(message.path("type").asText())) {
+                    initStorage(message, viewerConfig);
+                } else if ("cancel".equals(message.path("type").asText())) {
+                    final RenderToken token = current.get();
+                    if (token != null) {
+                        token.cancel(RenderToken.Reason.CANCELLED);
+                    }
+                } else if ("render".equals(message.path("type").asText())) {
+                    final RenderRequest request = MAPPER.treeToValue(message.get("request"), RenderRequest.class);
+                    final RenderToken token = new RenderToken(null, 0);
+                    current.set(token);
+                    jobs.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            final ObjectNode response = MAPPER.createObjectNode();
+                            RenderToken.attach(token);
+                            try {
+                                final List<?> pages = ViewGenerator.render(request);
+                                response.set("pages", MAPPER.valueToTree(pages));
+                            } catch (RenderCancelledException e) {
+                                response.put("cancelled", true);
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                                response.put("error", String.valueOf(e.getMessage()));
+                            } finally {
+                                RenderToken.attach(null);
+                                current.compareAndSet(token, null);
+                            }
+                            response.put("heapUsed", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+                            try {
+                                writeFrame(output, response);
+                            } catch (IOException e) {
+                                // Parent has gone
+                                System.exit(1);
+                            }
+                        }
+                    });
+                }
+            }
+        } catch (EOFException e) {
+            // Parent closed stdin - worker is recycled
+        }
+        System.exit(0);
+    }
+
+    private static void initStorage(JsonNode message, ViewerConfig viewerConfig) throws IOException {
+        final CustomInputDataHandler handler = CustomInputDataHandler.create(MAPPER.treeToValue(message.get("storage"), StorageConfig.class),
+                viewerConfig.getStoragePath(), viewerConfig.getCachePath(), ViewGenerator.getFileTreeIndex());
+        if (message.hasNonNull("remoteFetch")) {
+            // Copies fetched by the parent are found by their guids, this fetcher never fetches itself
+            final RemoteDocumentFetcher fetcher = new RemoteDocumentFetcher(MAPPER.treeToValue(message.get("remoteFetch"), RemoteFetchConfig.class),
+                    viewerConfig.getStoragePath(), viewerConfig.getCachePath(), new MetricRegistry());
+            handler.setRemoteFetcher(fetcher);
+            ViewGenerator.initRemoteFetcher(fetcher);
+        }
+        if (message.hasNonNull("pdfDocumentTypes")) {
+            ViewGenerator.getPdfCache().setDocumentTypes(MAPPER.convertValue(message.get("pdfDocumentTypes"), STRINGS));
+        }
+        final Iterator<Map.Entry<String, JsonNode>> directories = message.path("localDirectories").fields();
+        while (directories.hasNext()) {
+            final Map.Entry<String, JsonNode> directory = directories.next();
+            handler.addLocalDirectory(directory.getKey(), new File(directory.getValue().asText()));
+        }
+        ViewGenerator.initStorage(handler);
+    }
+
+    /**
+     * Read frame.
+     * @param input the input
+     * @return the json message
+     * @throws IOException the io exception
+     */
+    static JsonNode readFrame(DataInputStream input) throws IOException {
+        final byte[] frame = new byte[input.readInt()];
+        input.readFully(frame);
+        return MAPPER.readTree(frame);
+    }
+
+    /**
+     * Write frame.
+     * @param output  the output
+     * @param message the json message
+     * @throws IOException the io exception
+     */
+    static void writeFrame(DataOutputStream output, JsonNode message) throws IOException {
+        final byte[] frame = MAPPER.writeValueAsBytes(message);
+        synchronized (output) {
+            output.writeInt(frame.length);
+            output.write(frame);
+            output.flush();
+        }
+    }
+}
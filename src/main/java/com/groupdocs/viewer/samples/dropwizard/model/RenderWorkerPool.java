@@ -0,0 +1,351 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.RenderWorkersConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
+import com.groupdocs.viewer.samples.dropwizard.model.business.ImageInfo;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of child JVMs executing {@link RenderRequest}s, see {@link RenderWorker}.
+ * Heap used by the rendering engine lives in the workers, so the front-end JVM stays small and
+ * its GC pauses do not depend on documents being rendered. A worker is recycled after configured
+ * count of jobs, when its heap grows above threshold, or when it does not stop a cancelled render.
+ * A worker which can't be started in place of a closed one leaves a missing slot, started again by a later render.
+ */
+public class RenderWorkerPool implements Managed {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long CANCEL_GRACE_MILLIS = 5000;
+    private static final TypeReference<List<HtmlInfo>> HTML_PAGES = new TypeReference<List<HtmlInfo>>() {
+    };
+    private static final TypeReference<List<ImageInfo>> IMAGE_PAGES = new TypeReference<List<ImageInfo>>() {
+    };
+
+    private final RenderWorkersConfig config;
+    private final List<String> workerArguments;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<Worker>();
+    private final Set<Worker> workers = Collections.newSetFromMap(new ConcurrentHashMap<Worker, Boolean>());
+    private final AtomicInteger alive = new AtomicInteger();
+    private final AtomicInteger missing = new AtomicInteger();
+    private volatile boolean stopped;
+    private volatile ObjectNode storage;
+
+    private final Meter started;
+    private final Meter recycled;
+    private final Meter killed;
+
+    /**
+     * Instantiates a new Render worker pool.
+     * @param config          the render workers config
+     * @param workerArguments the arguments of {@link RenderWorker#main(String[])}
+     * @param metrics         the metric registry
+     */
+    public RenderWorkerPool(RenderWorkersConfig config, List<String> workerArguments, MetricRegistry metrics) {
+        this.config = config;
+        this.workerArguments = workerArguments;
+        this.started = metrics.meter(MetricRegistry.name(RenderWorkerPool.class, "started"));
+        this.recycled = metrics.meter(MetricRegistry.name(RenderWorkerPool.class, "recycled"));
+        this.killed = metrics.meter(MetricRegistry.name(RenderWorkerPool.class, "killed"));
+        metrics.register(MetricRegistry.name(RenderWorkerPool.class, "alive"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return alive.get();
+            }
+        });
+        metrics.register(MetricRegistry.name(RenderWorkerPool.class, "missing"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return missing.get();
+            }
+        });
+    }
+
+    /**
+     * Sets storage of workers, sent to every worker on its start; without it workers read the local storage path only.
+     * The config goes through stdin of the worker, so credentials of the storage do not show in its command line.
+     * @param configuration    the configuration with storage, remote fetch and pdf intermediate configs
+     * @param localDirectories the directories of files made by the application by their guid prefix
+     */
+    public void setStorage(DropwizardConfig configuration, Map<String, File> localDirectories) {
+        final ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", "init");
+        message.set("storage", objectMapper.valueToTree(configuration.getStorage()));
+        if (configuration.getRemoteFetch().isEnabled()) {
+            message.set("remoteFetch", objectMapper.valueToTree(configuration.getRemoteFetch()));
+        }
+        if (configuration.getPdfIntermediate().isEnabled()) {
+            message.set("pdfDocumentTypes", objectMapper.valueToTree(configuration.getPdfIntermediate().getDocumentTypes()));
+        }
+        final ObjectNode directories = message.putObject("localDirectories");
+        for (Map.Entry<String, File> directory : localDirectories.entrySet()) {
+            directories.put(directory.getKey(), directory.getValue().getAbsolutePath());
+        }
+        this.storage = message;
+    }
+
+    @Override
+    public void start() throws Exception {
+        // Workers are started here rather than on first request, so their JVM start-up is not paid by a user
+        for (int i = 0; i < config.getProcesses(); i++) {
+            idle.add(startWorker());
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        stopped = true;
+        // Busy workers are closed too, their renders fail instead of keeping the JVMs alive
+        for (Worker worker : workers) {
+            worker.close();
+        }
+        idle.clear();
+    }
+
+    /**
+     * Execute render request in a worker, waiting for a free worker first.
+     * @param request the render request
+     * @param token   the render token
+     * @return the rendered pages
+     * @throws Exception the exception
+     */
+    public List<?> execute(RenderRequest request, RenderToken token) throws Exception {
+        Worker worker = null;
+        while (worker == null) {
+            token.checkpoint(0);
+            refill();
+            worker = idle.poll(Math.min(token.getRemainingMillis(), POLL_INTERVAL_MILLIS), TimeUnit.MILLISECONDS);
+        }
+        boolean healthy = false;
+        try {
+            if (!worker.isAlive()) {
+                worker.close();
+                worker = startWorker();
+            }
+            final JsonNode response = worker.call(request, token);
+            healthy = true;
+            if (response.path("cancelled").asBoolean()) {
+                token.checkpoint(0);
+                throw new RenderCancelledException(RenderToken.Reason.CANCELLED);
+            }
+            if (response.has("error")) {
+                throw new IllegalStateException("Render worker failed: " + response.get("error").asText());
+            }
+            worker.jobs++;
+            worker.heapUsed = response.path("heapUsed").asLong();
+            return objectMapper.convertValue(response.get("pages"), request.isHtml() ? HTML_PAGES : IMAGE_PAGES);
+        } finally {
+            release(worker, healthy);
+        }
+    }
+
+    private void release(Worker worker, boolean healthy) {
+        if (healthy && worker.jobs < config.getMaxJobs() && worker.heapUsed < config.getMaxHeap().toBytes()) {
+            idle.add(worker);
+            return;
+        }
+        if (healthy) {
+            recycled.mark();
+        }
+        worker.close();
+        replace();
+    }
+
+    /**
+     * Start a worker in place of a closed one, counting the slot as missing if it can't be started.
+     * @return true if the worker was started
+     */
+    private boolean replace() {
+        try {
+            idle.add(startWorker());
+            return true;
+        } catch (IOException e) {
+            if (!stopped) {
+                e.printStackTrace();
+            }
+            missing.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void refill() {
+        int slots;
+        while (!stopped && (slots = missing.get()) > 0) {
+            if (missing.compareAndSet(slots, slots - 1) && !replace()) {
+                return;
+            }
+        }
+    }
+
+    private Worker startWorker() throws IOException {
+        if (stopped) {
+            throw new IOException("Render worker pool is stopped");
+        }
+        final List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(config.getJvmOptions());
+        command.add("-cp");
+        command.add(classPath());
+        command.add(RenderWorker.class.getName());
+        command.addAll(workerArguments);
+        final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        started.mark();
+        alive.incrementAndGet();
+        final Worker worker = new Worker(process);
+        workers.add(worker);
+        try {
+            if (stopped) {
+                throw new IOException("Render worker pool is stopped");
+            }
+            if (storage != null) {
+                RenderWorker.writeFrame(worker.input, storage);
+            }
+        } catch (IOException e) {
+            worker.close();
+            throw e;
+        }
+        return worker;
+    }
+
+    private static String classPath() {
+        // The application may run inside a class loader of build tool, java.class.path is not enough then
+        final ClassLoader loader = RenderWorker.class.getClassLoader();
+        if (loader instanceof URLClassLoader) {
+            final StringBuilder classPath = new StringBuilder();
+            for (URL url : ((URLClassLoader) loader).getURLs()) {
+                if (classPath.length() > 0) {
+                    classPath.append(File.pathSeparator);
+                }
+                try {
+                    classPath.append(new File(url.toURI()).getAbsolutePath());
+                } catch (URISyntaxException e) {
+                    classPath.append(url.getPath());
+                }
+            }
+            return classPath.toString();
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    /**
+     * One child JVM with its pipes.
+     */
+    private class Worker {
+        private final Process process;
+        private final DataOutputStream input;
+        private final SynchronousQueue<JsonNode> responses = new SynchronousQueue<JsonNode>();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean closed;
+        private int jobs;
+        private long heapUsed;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.input = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            final DataInputStream output = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            final Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            responses.put(RenderWorker.readFrame(output));
+                        }
+                    } catch (Exception e) {
+                        // Worker exited or was killed
+                        closed = true;
+                    }
+                }
+            }, "render-worker-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private boolean isAlive() {
+            if (closed) {
+                return false;
+            }
+            try {
+                process.exitValue();
+                return false;
+            } catch (IllegalThreadStateException e) {
+                return true;
+            }
+        }
+
+        private JsonNode call(RenderRequest request, RenderToken token) throws Exception {
+            final ObjectNode message = objectMapper.createObjectNode();
+            message.put("type", "render");
+            message.set("request", objectMapper.valueToTree(request));
+            RenderWorker.writeFrame(input, message);
+
+            long cancelledAt = 0;
+            while (true) {
+                final JsonNode response = responses.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (response != null) {
+                    return response;
+                }
+                if (!isAlive()) {
+                    throw new IOException("Render worker exited while rendering " + request);
+                }
+                if (token.isCancelled() && cancelledAt == 0) {
+                    cancelledAt = System.currentTimeMillis();
+                    final ObjectNode cancel = objectMapper.createObjectNode();
+                    cancel.put("type", "cancel");
+                    RenderWorker.writeFrame(input, cancel);
+                } else if (cancelledAt != 0 && System.currentTimeMillis() - cancelledAt > CANCEL_GRACE_MILLIS) {
+                    // The engine is stuck inside one page, killing the worker is the only way to get the CPU back
+                    killed.mark();
+                    close();
+                    token.checkpoint(0);
+                }
+            }
+        }
+
+        private void close() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            closed = true;
+            workers.remove(this);
+            alive.decrementAndGet();
+            try {
+                // Closing stdin lets the worker exit by itself
+                input.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            process.destroy();
+        }
+    }
+}
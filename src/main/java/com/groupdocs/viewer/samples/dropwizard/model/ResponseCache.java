@@ -0,0 +1,147 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.groupdocs.viewer.samples.dropwizard.config.ResponseCacheConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.business.CachedResponse;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized responses of MainHandler.ashx keyed by document version, action and parameters,
+ * so a repeated render is answered with bytes of the previous one instead of rendering and serializing pages again.
+ * Only html actions are cached: image responses point to page images which the janitor may remove meanwhile.
+ */
+public class ResponseCache {
+    private final boolean compress;
+    private final Cache<String, CachedResponse> responses;
+    private final Meter hits;
+    private final Meter misses;
+
+    /**
+     * Instantiates a new Response cache.
+     * @param config  the response cache config
+     * @param metrics the metric registry
+     */
+    public ResponseCache(ResponseCacheConfig config, MetricRegistry metrics) {
+        this.compress = config.isCompress();
+        this.responses = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher(new Weigher<String, CachedResponse>() {
+                    @Override
+                    public int weigh(String key, CachedResponse response) {
+                        return response.getSize();
+                    }
+                })
+                .build();
+        this.hits = metrics.meter(MetricRegistry.name(ResponseCache.class, "hits"));
+        this.misses = metrics.meter(MetricRegistry.name(ResponseCache.class, "misses"));
+        metrics.register(MetricRegistry.name(ResponseCache.class, "entries"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return responses.size();
+            }
+        });
+    }
+
+    /**
+     * Is response of the request cacheable.
+     * @param request the render request
+     * @return true for html actions which do not transform the document
+     */
+    public static boolean isCacheable(RenderRequest request) {
+        return request.isHtml() && !request.isTransformation();
+    }
+
+    /**
+     * Gets key of the response to the request, it is also the entity tag of the response.
+     * The key includes the persisted generation of the document, so a tag sent before a rotate or reorder
+     * does not match after it, even after restart or on another node.
+     * @param request the render request
+     * @return the key or null if the response is not cacheable or the document does not exist
+     */
+    public String getKey(RenderRequest request) {
+        if (!isCacheable(request)) {
+            return null;
+        }
+        final String version = ViewGenerator.getDocumentVersion(request.getFilePath());
+        if (version == null) {
+            return null;
+        }
+        final String generation;
+        try {
+            generation = ViewGenerator.getGenerations().get(request.getFilePath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return Utilities.makeCacheKey(request.toString(), version, generation);
+    }
+
+    /**
+     * Gets cached response.
+     * @param key the key
+     * @return the response or null
+     */
+    public CachedResponse get(String key) {
+        final CachedResponse response = responses.getIfPresent(key);
+        if (response == null) {
+            misses.mark();
+        } else {
+            hits.mark();
+        }
+        return response;
+    }
+
+    /**
+     * Cache serialized pages, with their gzip when compression is enabled and saves space.
+     * @param key  the key
+     * @param guid the document name
+     * @param json the serialized pages
+     * @return the cached response
+     */
+    public CachedResponse put(String key, String guid, byte[] json) {
+        final CachedResponse response = new CachedResponse(guid, key, json, compress ? gzip(json) : null);
+        responses.put(key, response);
+        return response;
+    }
+
+    /**
+     * Forget responses of the document after it moved to a new generation, they are not served anymore anyway.
+     * Responses of renders still running are put under the previous generation and never served.
+     * @param guid the document name
+     */
+    public void invalidate(String guid) {
+        final Iterator<CachedResponse> iterator = responses.asMap().values().iterator();
+        while (iterator.hasNext()) {
+            if (guid.equals(iterator.next().getGuid())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try {
+            final GZIPOutputStream output = new GZIPOutputStream(buffer);
+            try {
+                output.write(json);
+            } finally {
+                output.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        final byte[] compressed = buffer.toByteArray();
+        return compressed.length < json.length ? compressed : null;
+    }
+}
@@ -0,0 +1,234 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.groupdocs.viewer.samples.dropwizard.config.SlowRenderConfig;
+import com.groupdocs.viewer.samples.dropwizard.model.business.DocumentMetadata;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import com.groupdocs.viewer.samples.dropwizard.model.business.SlowRender;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures renders above the threshold as JSON lines in {@code <cachePath>/slow-renders/captures.jsonl}:
+ * action, parameters and fingerprint of the document, so latency outliers can be replayed offline.
+ * Documents are read and captures written by a background thread, render threads only check the threshold.
+ */
+public class SlowRenderRecorder implements Managed {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_PENDING = 100;
+    private static final int MAX_FINGERPRINTS = 1000;
+
+    private final SlowRenderConfig config;
+    private final File directory;
+    private final File file;
+    private final long thresholdNanos;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final Meter captured;
+    private final Meter dropped;
+    // Fingerprints of document versions, only the writer thread uses it
+    private final Map<String, String> fingerprints = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_FINGERPRINTS;
+        }
+    };
+    private ThreadPoolExecutor writer;
+
+    /**
+     * Instantiates a new Slow render recorder.
+     * @param config    the config
+     * @param cachePath the cache path
+     * @param metrics   the metric registry
+     */
+    public SlowRenderRecorder(SlowRenderConfig config, String cachePath, MetricRegistry metrics) {
+        this.config = config;
+        this.directory = getDirectory(cachePath);
+        this.file = new File(directory, "captures.jsonl");
+        this.thresholdNanos = config.getThreshold().toNanoseconds();
+        this.captured = metrics.meter(MetricRegistry.name(SlowRenderRecorder.class, "captured"));
+        this.dropped = metrics.meter(MetricRegistry.name(SlowRenderRecorder.class, "dropped"));
+    }
+
+    /**
+     * Gets directory of captures and kept documents.
+     * @param cachePath the cache path
+     * @return the directory
+     */
+    public static File getDirectory(String cachePath) {
+        return new File(cachePath, "slow-renders");
+    }
+
+    /**
+     * Read captures of a capture file, lines which can't be parsed are skipped.
+     * @param captures the capture file
+     * @return the captures in order of recording
+     * @throws IOException the io exception
+     */
+    public static List<SlowRender> read(File captures) throws IOException {
+        final ObjectMapper mapper = Jackson.newObjectMapper();
+        final List<SlowRender> result = new ArrayList<SlowRender>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(captures), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    result.add(mapper.readValue(line, SlowRender.class));
+                } catch (IOException e) {
+                    System.out.println("Skipped capture which can't be parsed: " + e.getMessage());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.out.println("Can't create directory for slow renders! " + directory.getAbsolutePath());
+        }
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(MAX_PENDING),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("slow-render-recorder").build());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (writer != null) {
+            writer.shutdown();
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Capture the render if it took threshold or longer.
+     * @param request       the render request
+     * @param elapsedNanos  the render time
+     * @param outcome       the outcome: rendered, cancelled or failed
+     * @param pagesRendered the count of pages rendered
+     */
+    public void record(RenderRequest request, long elapsedNanos, String outcome, int pagesRendered) {
+        if (elapsedNanos < thresholdNanos || writer == null) {
+            return;
+        }
+        final SlowRender capture = new SlowRender();
+        capture.setTime(System.currentTimeMillis());
+        capture.setAction(request.getAction());
+        capture.setGuid(request.getFilePath());
+        capture.setParameters(request.getParameters());
+        capture.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        capture.setOutcome(outcome);
+        capture.setPagesRendered(pagesRendered);
+        final DocumentMetadata metadata = request.getFilePath() == null ? null
+                : ViewGenerator.getMetadataCache().getIfPresent(request.getFilePath());
+        if (metadata != null) {
+            capture.setDocumentType(metadata.getDocumentType());
+            capture.setDocumentSize(metadata.getSize());
+            capture.setPageCount(metadata.getPageCount());
+        }
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    write(capture);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Writer is behind or stopped, a capture is not worth slowing renders down
+            dropped.mark();
+        }
+    }
+
+    private void write(SlowRender capture) {
+        try {
+            final String version = ViewGenerator.getDocumentVersion(capture.getGuid());
+            capture.setVersion(version);
+            if (version != null) {
+                fingerprint(capture);
+            }
+            final byte[] line = (objectMapper.writeValueAsString(capture) + "\n").getBytes(UTF_8);
+            if (file.isFile() && file.length() + line.length > config.getMaxFileSize().toBytes()) {
+                Files.move(file.toPath(), new File(directory, file.getName() + ".1").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            final FileOutputStream output = new FileOutputStream(file, true);
+            try {
+                output.write(line);
+            } finally {
+                output.close();
+            }
+            captured.mark();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Hash content of the document, keeping a copy named by the hash when documents are kept.
+     */
+    private void fingerprint(SlowRender capture) throws IOException {
+        final String key = Utilities.makeCacheKey(capture.getGuid(), capture.getVersion());
+        final String extension = FilenameUtils.getExtension(capture.getGuid());
+        String fingerprint = fingerprints.get(key);
+        if (fingerprint != null && (!config.isKeepDocuments() || new File(directory, fingerprint + "." + extension).isFile())) {
+            capture.setFingerprint(fingerprint);
+            capture.setDocument(config.isKeepDocuments() ? fingerprint + "." + extension : null);
+            return;
+        }
+        final HashingInputStream input = new HashingInputStream(Hashing.sha256(),
+                ViewGenerator.renderDocumentAsOriginal(capture.getGuid()).getStream());
+        final File temporary = new File(directory, UUID.randomUUID() + ".part");
+        try {
+            if (config.isKeepDocuments()) {
+                final FileOutputStream output = new FileOutputStream(temporary);
+                try {
+                    DirectBufferPool.getDefault().copy(input, output.getChannel());
+                } finally {
+                    output.close();
+                }
+            } else {
+                ByteStreams.copy(input, ByteStreams.nullOutputStream());
+            }
+            fingerprint = input.hash().toString();
+            if (config.isKeepDocuments()) {
+                // Same content is kept once whatever guid it was rendered as
+                final String document = fingerprint + "." + extension;
+                Files.move(temporary.toPath(), new File(directory, document).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                capture.setDocument(document);
+            }
+        } finally {
+            input.close();
+            Files.deleteIfExists(temporary.toPath());
+        }
+        fingerprints.put(key, fingerprint);
+        capture.setFingerprint(fingerprint);
+    }
+}
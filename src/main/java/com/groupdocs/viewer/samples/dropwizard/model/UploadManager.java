@@ -0,0 +1,245 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.StorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.business.UploadSession;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Streams uploaded files straight to disk and keeps track of chunked (resumable) upload sessions.
+ * Partial uploads live in {@code <tempPath>/uploads} as {@code <session>.part} plus {@code <session>.properties},
+ * so a session can be resumed even after restart of the service. Complete files are handed to the storage backend.
+ */
+public class UploadManager {
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    private final DropwizardConfig dropwizardConfig;
+    private final StorageBackend storage;
+    private final File uploadsDirectory;
+    private final ConcurrentMap<String, UploadSession> sessions = new ConcurrentHashMap<String, UploadSession>();
+
+    /**
+     * Instantiates a new Upload manager.
+     * @param dropwizardConfig the dropwizard config
+     * @param storage          the storage backend uploaded documents are stored to
+     * @param tempPath         the temp path
+     */
+    public UploadManager(DropwizardConfig dropwizardConfig, StorageBackend storage, String tempPath) {
+        this.dropwizardConfig = dropwizardConfig;
+        this.storage = storage;
+        this.uploadsDirectory = new File(tempPath, "uploads");
+        if (!uploadsDirectory.exists() && !uploadsDirectory.mkdirs()) {
+            System.out.println("Can't create directory for uploads! " + uploadsDirectory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Save whole uploaded file to storage without buffering it in heap.
+     * @param fileName    the file name
+     * @param inputStream the input stream
+     * @return the file name of the saved document (guid)
+     * @throws IOException the io exception
+     */
+    public String saveUpload(String fileName, InputStream inputStream) throws IOException {
+        final String name = FilenameUtils.getName(fileName);
+        final File partFile = new File(uploadsDirectory, UUID.randomUUID().toString() + ".part");
+        final RandomAccessFile output = new RandomAccessFile(partFile, "rw");
+        boolean saved = false;
+        try {
+            transfer(inputStream, output.getChannel(), 0, dropwizardConfig.getMaxUploadSize());
+            output.close();
+            moveToStorage(partFile, name);
+            saved = true;
+        } finally {
+            IOUtils.closeQuietly(output);
+            if (!saved) {
+                deleteQuietly(partFile);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Create upload session.
+     * @param fileName the file name
+     * @param size     the declared size of the file
+     * @return the upload session
+     * @throws IOException the io exception
+     */
+    public UploadSession createSession(String fileName, long size) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Upload size must not be negative");
+        }
+        if (size > dropwizardConfig.getMaxUploadSize()) {
+            throw new UploadSizeExceededException(dropwizardConfig.getMaxUploadSize());
+        }
+        final UploadSession session = new UploadSession();
+        session.setSessionId(UUID.randomUUID().toString());
+        session.setFileName(FilenameUtils.getName(fileName));
+        session.setSize(size);
+
+        final Properties properties = new Properties();
+        properties.setProperty("fileName", session.getFileName());
+        properties.setProperty("size", String.valueOf(size));
+        final FileOutputStream metaStream = new FileOutputStream(metaFile(session.getSessionId()));
+        try {
+            properties.store(metaStream, null);
+        } finally {
+            IOUtils.closeQuietly(metaStream);
+        }
+        if (!partFile(session.getSessionId()).createNewFile()) {
+            throw new IOException("Upload session already exists: " + session.getSessionId());
+        }
+        sessions.put(session.getSessionId(), session);
+        if (size == 0) {
+            complete(session);
+        }
+        return session;
+    }
+
+    /**
+     * Gets upload session, restoring it from disk if it is not known in memory.
+     * @param sessionId the session id
+     * @return the session or null if there is no such session
+     * @throws IOException the io exception
+     */
+    public UploadSession getSession(String sessionId) throws IOException {
+        if (sessionId == null || !sessionId.matches("[0-9a-fA-F\\-]{36}")) {
+            return null;
+        }
+        UploadSession session = sessions.get(sessionId);
+        if (session != null) {
+            return session;
+        }
+        final File metaFile = metaFile(sessionId);
+        final File partFile = partFile(sessionId);
+        if (!metaFile.exists() || !partFile.exists()) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        final FileInputStream metaStream = new FileInputStream(metaFile);
+        try {
+            properties.load(metaStream);
+        } finally {
+            IOUtils.closeQuietly(metaStream);
+        }
+        session = new UploadSession();
+        session.setSessionId(sessionId);
+        session.setFileName(properties.getProperty("fileName"));
+        session.setSize(Long.parseLong(properties.getProperty("size")));
+        session.setOffset(partFile.length());
+        final UploadSession existing = sessions.putIfAbsent(sessionId, session);
+        return existing != null ? existing : session;
+    }
+
+    /**
+     * Append chunk to the upload session.
+     * When the last byte is received the file is moved to storage and session is completed.
+     * @param session     the session
+     * @param offset      the offset of the chunk, must be equal to current session offset
+     * @param inputStream the chunk content
+     * @return the upload session
+     * @throws IOException the io exception
+     */
+    public UploadSession appendChunk(UploadSession session, long offset, InputStream inputStream) throws IOException {
+        synchronized (session) {
+            if (session.isComplete() || offset != session.getOffset()) {
+                throw new IllegalStateException("Expected offset " + session.getOffset() + " but was " + offset);
+            }
+            // Metadata is written once, keep it as fresh as the data so the janitor does not expire a running upload
+            DiskJanitor.markServed(metaFile(session.getSessionId()));
+            final RandomAccessFile output = new RandomAccessFile(partFile(session.getSessionId()), "rw");
+            try {
+                // Drop the tail of a chunk which was interrupted in the middle
+                output.getChannel().truncate(offset);
+                try {
+                    transfer(inputStream, output.getChannel(), offset, session.getSize());
+                } catch (UploadSizeExceededException e) {
+                    // Chunk does not fit into declared size, reject it completely
+                    output.getChannel().truncate(offset);
+                    throw e;
+                } finally {
+                    session.setOffset(output.getChannel().size());
+                }
+            } finally {
+                IOUtils.closeQuietly(output);
+            }
+            if (session.getOffset() == session.getSize()) {
+                complete(session);
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Cancel upload session and remove partially uploaded data.
+     * @param session the session
+     */
+    public void cancelSession(UploadSession session) {
+        synchronized (session) {
+            sessions.remove(session.getSessionId());
+            deleteQuietly(partFile(session.getSessionId()));
+            deleteQuietly(metaFile(session.getSessionId()));
+        }
+    }
+
+    private void complete(UploadSession session) throws IOException {
+        moveToStorage(partFile(session.getSessionId()), session.getFileName());
+        deleteQuietly(metaFile(session.getSessionId()));
+        session.setComplete(true);
+        sessions.remove(session.getSessionId());
+    }
+
+    private void moveToStorage(File partFile, String fileName) throws IOException {
+        storage.store(fileName, partFile);
+    }
+
+    /**
+     * Copy stream to channel starting from position, failing as soon as more than limit bytes are written.
+     */
+    private static long transfer(InputStream inputStream, FileChannel channel, long position, long limit) throws IOException {
+        final ReadableByteChannel source = Channels.newChannel(inputStream);
+        long current = position;
+        while (true) {
+            // Ask for one extra byte past the limit to detect oversized uploads
+            final long count = channel.transferFrom(source, current, Math.min(TRANSFER_CHUNK, limit - current + 1));
+            if (count <= 0) {
+                break;
+            }
+            current += count;
+            if (current > limit) {
+                throw new UploadSizeExceededException(limit);
+            }
+        }
+        return current - position;
+    }
+
+    private File partFile(String sessionId) {
+        return new File(uploadsDirectory, sessionId + ".part");
+    }
+
+    private File metaFile(String sessionId) {
+        return new File(uploadsDirectory, sessionId + ".properties");
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            System.out.println("Can't delete file " + file.getAbsolutePath());
+        }
+    }
+}
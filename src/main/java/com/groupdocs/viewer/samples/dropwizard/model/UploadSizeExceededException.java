@@ -0,0 +1,16 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an upload is bigger than {@code maxUploadSize}.
+ */
+public class UploadSizeExceededException extends IOException {
+    /**
+     * Instantiates a new Upload size exceeded exception.
+     * @param maxUploadSize the max upload size
+     */
+    public UploadSizeExceededException(long maxUploadSize) {
+        super("Upload exceeds maximum allowed size of " + maxUploadSize + " bytes");
+    }
+}
@@ -1,5 +1,8 @@
 package com.groupdocs.viewer.samples.dropwizard.model;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.hash.Hashing;
 import com.groupdocs.viewer.converter.options.HtmlOptions;
 import com.groupdocs.viewer.converter.options.ImageOptions;
 import com.groupdocs.viewer.domain.Watermark;
@@ -11,10 +14,10 @@ import com.groupdocs.viewer.licensing.License;
 import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
 import org.apache.commons.io.FilenameUtils;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
@@ -46,6 +49,47 @@ public class Utilities {
         return dropwizardConfig.getStoragePath() + "/";
     }
 
+    /**
+     * Make file system safe cache key from several parts, e.g. document name and version.
+     * @param parts the parts of the key
+     * @return the hex encoded hash of the parts
+     */
+    public static String makeCacheKey(String... parts) {
+        return Hashing.sha1().hashString(Joiner.on('\u0000').useForNull("").join(parts), Charsets.UTF_8).toString();
+    }
+
+    /**
+     * Make guid of a local file, its path relative to storage with forward slashes.
+     * @param storagePath the storage path
+     * @param file        the file or directory below storage path
+     * @return the guid, absolute path if file is not below storage path
+     */
+    public static String makeGuid(String storagePath, File file) {
+        final String root = new File(storagePath).getAbsolutePath() + File.separator;
+        final String path = file.getAbsolutePath();
+        return (path.startsWith(root) ? path.substring(root.length()) : path).replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Resolve guid to a file below the directory. Guids come from clients, so they may try to leave the directory
+     * with {@code ..}, an absolute path or a symbolic link.
+     * @param directory the directory
+     * @param guid      the guid, path relative to the directory
+     * @return the file or null if the guid leads outside the directory
+     */
+    public static File resolveBelow(File directory, String guid) {
+        if (guid == null || guid.isEmpty()) {
+            return null;
+        }
+        try {
+            final File root = directory.getCanonicalFile();
+            final File file = new File(root, guid).getCanonicalFile();
+            return file.toPath().startsWith(root.toPath()) && !file.equals(root) ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     /**
      * The type Page transformations.
      */
@@ -155,20 +199,27 @@ public class Utilities {
 
     /**
      * Save the rendered images at disk
+     * The stream is already an encoded image, it is copied through pooled direct buffers without decoding.
      * @param path         the path
      * @param imageName    Save as provided string
      * @param imageContent stream of image contents
      */
     public static void saveAsImage(String path, String imageName, InputStream imageContent) {
+        // Page image is already encoded by the viewer, this is the write stage
+        final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.WRITE);
         try {
             //ExStart:SaveAsImage
-            // extract the image from stream
-            BufferedImage img = ImageIO.read(imageContent);
-            //save the image in the form of jpeg
-            ImageIO.write(img, "png", Utilities.makeImagePath(path, imageName));
+            final FileOutputStream output = new FileOutputStream(Utilities.makeImagePath(path, imageName));
+            try {
+                DirectBufferPool.getDefault().copy(imageContent, output.getChannel());
+            } finally {
+                output.close();
+            }
             //ExEnd:SaveAsImage
         } catch (Exception ex) {
             ex.printStackTrace();
+        } finally {
+            span.end();
         }
     }
 
@@ -183,7 +234,7 @@ public class Utilities {
         if (!directory.exists() && !directory.mkdirs()) {
             System.out.println("Can't create directory for images! " + directory.getAbsolutePath());
         }
-        return new File(directory.getAbsolutePath() + File.separator + FilenameUtils.getBaseName(imageName) + ".jpg");
+        return new File(directory.getAbsolutePath() + File.separator + FilenameUtils.getBaseName(imageName) + ".png");
     }
 
     /**
@@ -1,29 +1,40 @@
 package com.groupdocs.viewer.samples.dropwizard.model;
 
+import com.groupdocs.viewer.converter.options.ConvertImageFileType;
 import com.groupdocs.viewer.converter.options.HtmlOptions;
 import com.groupdocs.viewer.converter.options.ImageOptions;
 import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.domain.PageData;
 import com.groupdocs.viewer.domain.Transformation;
 import com.groupdocs.viewer.domain.WatermarkPosition;
+import com.groupdocs.viewer.domain.containers.DocumentInfoContainer;
 import com.groupdocs.viewer.domain.containers.FileContainer;
-import com.groupdocs.viewer.domain.containers.FileTreeContainer;
 import com.groupdocs.viewer.domain.html.PageHtml;
 import com.groupdocs.viewer.domain.image.PageImage;
-import com.groupdocs.viewer.domain.options.FileTreeOptions;
+import com.groupdocs.viewer.domain.options.DocumentInfoOptions;
 import com.groupdocs.viewer.domain.options.PdfFileOptions;
 import com.groupdocs.viewer.handler.ViewerHandler;
 import com.groupdocs.viewer.handler.ViewerHtmlHandler;
 import com.groupdocs.viewer.handler.ViewerImageHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.RemoteDocumentFetcher;
+import com.groupdocs.viewer.samples.dropwizard.handler.StorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.business.DocumentMetadata;
 import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
 import com.groupdocs.viewer.samples.dropwizard.model.business.ImageInfo;
-import org.apache.commons.io.FileUtils;
+import com.groupdocs.viewer.samples.dropwizard.model.business.PageMetadata;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
 import org.apache.commons.io.FilenameUtils;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
@@ -33,14 +44,157 @@ import java.util.UUID;
  */
 public class ViewGenerator {
 
+    private static final int MIN_BATCHED_PAGES = 32;
+    private static final int BATCH_PAGES = 16;
+
     private static com.groupdocs.viewer.config.ViewerConfig config;
+    private static DocumentMetadataCache metadataCache;
+    private static FileTreeIndex fileTreeIndex;
+    private static CustomInputDataHandler inputDataHandler;
+    private static RemoteDocumentFetcher remoteFetcher;
+    private static PdfIntermediateCache pdfCache;
+    private static DocumentGenerations generations;
 
     /**
      * Init generator.
      * @param viewerConfig the viewer config
+     * @param scheduler    the render scheduler
      */
-    public static void initGenerator(com.groupdocs.viewer.config.ViewerConfig viewerConfig) {
+    public static void initGenerator(com.groupdocs.viewer.config.ViewerConfig viewerConfig, RenderScheduler scheduler) {
         ViewGenerator.config = viewerConfig;
+        ViewGenerator.metadataCache = new DocumentMetadataCache(viewerConfig.getCachePath(), scheduler);
+        ViewGenerator.fileTreeIndex = new FileTreeIndex(viewerConfig.getStoragePath(), Arrays.asList(viewerConfig.getCachePath(),
+                viewerConfig.getTempPath(), Utilities.makeImagePath(viewerConfig.getTempPath(), "page").getParent()));
+        ViewGenerator.pdfCache = new PdfIntermediateCache(viewerConfig.getCachePath());
+        ViewGenerator.generations = new DocumentGenerations(viewerConfig.getCachePath());
+    }
+
+    /**
+     * Init storage. Without it documents are read by the viewer directly from storage path.
+     * @param handler the input data handler of the configured storage backend
+     */
+    public static void initStorage(CustomInputDataHandler handler) {
+        ViewGenerator.inputDataHandler = handler;
+    }
+
+    /**
+     * Gets backend of the storage.
+     * @return the storage backend or null if storage is not initialized
+     */
+    public static StorageBackend getStorageBackend() {
+        return inputDataHandler == null ? null : inputDataHandler.getBackend();
+    }
+
+    /**
+     * Init remote fetcher. Without it documents can't be rendered from URL.
+     * @param fetcher the fetcher of documents given by URL
+     */
+    public static void initRemoteFetcher(RemoteDocumentFetcher fetcher) {
+        ViewGenerator.remoteFetcher = fetcher;
+    }
+
+    /**
+     * Gets remote fetcher.
+     * @return the remote fetcher or null if rendering from URL is disabled
+     */
+    public static RemoteDocumentFetcher getRemoteFetcher() {
+        return remoteFetcher;
+    }
+
+    private static ViewerHtmlHandler createHtmlHandler() {
+        return inputDataHandler == null ? new ViewerHtmlHandler(config) : new ViewerHtmlHandler(config, inputDataHandler);
+    }
+
+    private static ViewerImageHandler createImageHandler() {
+        return inputDataHandler == null ? new ViewerImageHandler(config) : new ViewerImageHandler(config, inputDataHandler);
+    }
+
+    private static ImageOptions createImageOptions() {
+        // Page images are saved as they are encoded by the viewer and served as image/png
+        ImageOptions options = new ImageOptions();
+        options.setConvertImageFileType(ConvertImageFileType.PNG);
+        return options;
+    }
+
+    /**
+     * Gets index of storage tree. It is started by the application, see {@link FileTreeIndex#start()}.
+     * @return the file tree index
+     */
+    public static FileTreeIndex getFileTreeIndex() {
+        return fileTreeIndex;
+    }
+
+    /**
+     * Gets cache of intermediate PDFs.
+     * @return the pdf cache
+     */
+    public static PdfIntermediateCache getPdfCache() {
+        return pdfCache;
+    }
+
+    /**
+     * Gets generations of documents, moved on by rotate and reorder.
+     * @return the document generations
+     */
+    public static DocumentGenerations getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Gets document metadata cache.
+     * @return the metadata cache
+     */
+    public static DocumentMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * Execute action of MainHandler.ashx
+     * @param request the render request
+     * @return the list of HtmlInfo or ImageInfo
+     * @throws Exception the exception
+     */
+    public static List<?> render(RenderRequest request) throws Exception {
+        // Stages of the render are tagged with the action and the document requested by client
+        RenderProfiler.attach(request.getAction(), request.getFilePath());
+        try {
+            return renderAction(request);
+        } finally {
+            RenderProfiler.detach();
+        }
+    }
+
+    private static List<?> renderAction(RenderRequest request) throws Exception {
+        final String action = request.getAction();
+        if ("renderaspdf".equals(action)) {
+            // Conversion has no pages, the PDF is in the intermediate cache once it is done
+            pdfCache.getPdf(request.getFilePath());
+            return Collections.emptyList();
+        }
+        // Documents of configured types are rendered from their cached PDF
+        final String filePath = pdfCache.getRenderGuid(request.getFilePath());
+        if ("renderashtml".equals(action)) {
+            return renderDocumentAsHtml(filePath, null);
+        } else if ("renderashtmlrange".equals(action)) {
+            return renderPagesAsHtml(filePath, request.getIntParameter("start"), request.getIntParameter("count"), null);
+        } else if ("renderashtmlwithwatermark".equals(action)) {
+            return renderDocumentAsHtml(filePath, request.getParameter("watermark"), Color.RED, 100, null);
+        } else if ("renderashtmlwithreorder".equals(action)) {
+            return renderDocumentAsHtml(filePath, request.getIntParameter("start"), request.getIntParameter("new") + 1, null);
+        } else if ("renderashtmlwithrotate".equals(action)) {
+            return rotateDocumentAsHtml(filePath, request.getIntParameter("page"), request.getIntParameter("angle"), null);
+        } else if ("renderasimage".equals(action)) {
+            return renderDocumentAsImages(filePath, null);
+        } else if ("renderasimagerange".equals(action)) {
+            return renderPagesAsImages(filePath, request.getIntParameter("start"), request.getIntParameter("count"), null);
+        } else if ("renderasimagewithwatermark".equals(action)) {
+            return renderDocumentAsImages(filePath, request.getParameter("watermark"), Color.RED, 100, null);
+        } else if ("renderasimagewithreorder".equals(action)) {
+            return renderDocumentAsImages(filePath, request.getIntParameter("start"), request.getIntParameter("new") + 1, null);
+        } else if ("renderasimagewithrotate".equals(action)) {
+            return rotateDocumentAsImages(filePath, request.getIntParameter("page"), request.getIntParameter("angle"), null);
+        }
+        throw new IllegalArgumentException("Unknown action: " + action);
     }
 
     /**
@@ -51,15 +205,27 @@ public class ViewGenerator {
      * @throws Exception the exception
      */
     public static List<HtmlInfo> renderDocumentAsHtml(String documentName, String DocumentPassword) throws Exception {
+        return renderDocumentAsHtml(documentName, true, DocumentPassword);
+    }
+
+    /**
+     * Render simple document in html representation
+     * @param documentName      File name
+     * @param resourcesEmbedded true to embed fonts, styles and images into html of pages
+     * @param DocumentPassword  Optional
+     * @return the list
+     * @throws Exception the exception
+     */
+    public static List<HtmlInfo> renderDocumentAsHtml(String documentName, boolean resourcesEmbedded, String DocumentPassword) throws Exception {
 
         // Create html handler
-        ViewerHtmlHandler htmlHandler = new ViewerHtmlHandler(config);
+        ViewerHtmlHandler htmlHandler = createHtmlHandler();
 
         //Instantiate the HtmlOptions object
         HtmlOptions options = new HtmlOptions();
 
-        //to get html representations of pages with embedded resources
-        options.setResourcesEmbedded(true);
+        //to get html representations of pages with embedded or external resources
+        options.setResourcesEmbedded(resourcesEmbedded);
 
         // Set password if document is password protected.
         if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
@@ -67,7 +233,7 @@ public class ViewGenerator {
         }
 
         //Get document pages in html form
-        List<PageHtml> pages = htmlHandler.getPages(documentName, options);
+        List<PageHtml> pages = getPages(htmlHandler, documentName, options);
 
         return getHtmlInfos(pages);
         //ExEnd:RenderAsHtml
@@ -86,7 +252,7 @@ public class ViewGenerator {
     public static List<HtmlInfo> renderDocumentAsHtml(String DocumentName, String WatermarkText, Color WatermarkColor, int WatermarkWidth, String DocumentPassword) throws Exception {
         // Guid implies that unique document name
         // Create html handler
-        ViewerHtmlHandler htmlHandler = new ViewerHtmlHandler(config);
+        ViewerHtmlHandler htmlHandler = createHtmlHandler();
         //Instantiate the HtmlOptions object
         HtmlOptions options = new HtmlOptions();
         options.setResourcesEmbedded(false);
@@ -97,7 +263,7 @@ public class ViewGenerator {
         // Call AddWatermark and pass the reference of HtmlOptions object as 1st parameter
         Utilities.PageTransformations.addWatermark(options, WatermarkText, WatermarkColor, WatermarkPosition.Diagonal, WatermarkWidth);
         //Get document pages in html form
-        List<PageHtml> pages = htmlHandler.getPages(DocumentName, options);
+        List<PageHtml> pages = getPages(htmlHandler, DocumentName, options);
 
         return getHtmlInfos(pages);
         //ExEnd:RenderAsHtmlWithWaterMark
@@ -115,7 +281,7 @@ public class ViewGenerator {
     public static List<HtmlInfo> rotateDocumentAsHtml(String DocumentName, int pageNumber, int RotationAngle, String DocumentPassword) throws Exception {
         // Guid implies that unique document name
         // Create image handler
-        ViewerHandler handler = new ViewerHtmlHandler(config);
+        ViewerHandler handler = createHtmlHandler();
         //Initialize ImageOptions Object and setting Rotate Transformation
         HtmlOptions options = new HtmlOptions();
         options.setTransformations(Transformation.Rotate);
@@ -132,7 +298,7 @@ public class ViewGenerator {
         ViewerHtmlHandler htmlHandler = (ViewerHtmlHandler) handler;
 
         //Get document pages in image form
-        List<PageHtml> pages = htmlHandler.getPages(DocumentName, options);
+        List<PageHtml> pages = convertPages(htmlHandler, DocumentName, options);
 
         return getHtmlInfos(pages);
         //ExEnd:RenderAsImageWithRotationTransformation
@@ -150,7 +316,7 @@ public class ViewGenerator {
     public static List<HtmlInfo> renderDocumentAsHtml(String DocumentName, int CurrentPageNumber, int NewPageNumber, String DocumentPassword) throws Exception {
         // Guid implies that unique document name
         // Cast ViewerHtmlHandler class object to its base class(ViewerHandler).
-        ViewerHandler handler = new ViewerHtmlHandler(config);
+        ViewerHandler handler = createHtmlHandler();
         //Instantiate the HtmlOptions object with setting of Reorder Transformation
         HtmlOptions options = new HtmlOptions();
         options.setTransformations(Transformation.Reorder);
@@ -170,12 +336,113 @@ public class ViewGenerator {
         ViewerHtmlHandler htmlHandler = (ViewerHtmlHandler) handler;
 
         //Get document pages in html form
-        List<PageHtml> pages = htmlHandler.getPages(DocumentName, options);
+        List<PageHtml> pages = convertPages(htmlHandler, DocumentName, options);
 
         return getHtmlInfos(pages);
         //ExEnd:RenderAsHtmlAndReorderPage
     }
 
+    /**
+     * Render range of document pages in html representation
+     * @param DocumentName     file/document name
+     * @param FirstPageNumber  number of the first page to render
+     * @param PageCount        count of pages to render
+     * @param DocumentPassword Password Parameter is optional
+     * @return the list
+     * @throws Exception the exception
+     */
+    public static List<HtmlInfo> renderPagesAsHtml(String DocumentName, int FirstPageNumber, int PageCount, String DocumentPassword) throws Exception {
+        // Create html handler
+        ViewerHtmlHandler htmlHandler = createHtmlHandler();
+
+        //Instantiate the HtmlOptions object
+        HtmlOptions options = new HtmlOptions();
+
+        //to get html representations of pages with embedded resources
+        options.setResourcesEmbedded(true);
+
+        //Convert only requested pages
+        options.setPageNumber(FirstPageNumber);
+        options.setCountPagesToConvert(PageCount);
+
+        // Set password if document is password protected.
+        if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
+            options.setPassword(DocumentPassword);
+        }
+
+        //Get document pages in html form
+        List<PageHtml> pages = convertPages(htmlHandler, DocumentName, options);
+
+        return getHtmlInfos(pages);
+    }
+
+    /**
+     * Get pages in batches when a render token is attached to current thread and the document is large,
+     * so a cancelled render stops between batches instead of converting the whole document.
+     * Every conversion parses the document again, smaller documents are converted at once.
+     */
+    private static List<PageHtml> getPages(ViewerHtmlHandler htmlHandler, String DocumentName, HtmlOptions options) {
+        final RenderToken token = RenderToken.current();
+        final int pageCount = token == null ? -1 : getKnownPageCount(DocumentName);
+        if (pageCount < MIN_BATCHED_PAGES) {
+            return convertPages(htmlHandler, DocumentName, options);
+        }
+        List<PageHtml> pages = new ArrayList<PageHtml>();
+        for (int page = 1; page <= pageCount; page += BATCH_PAGES) {
+            token.checkpoint(0);
+            options.setPageNumber(page);
+            options.setCountPagesToConvert(Math.min(BATCH_PAGES, pageCount - page + 1));
+            List<PageHtml> batchPages = convertPages(htmlHandler, DocumentName, options);
+            pages.addAll(batchPages);
+            token.checkpoint(batchPages.size());
+        }
+        return pages;
+    }
+
+    /**
+     * Get pages in batches when a render token is attached to current thread and the document is large.
+     */
+    private static List<PageImage> getPages(ViewerImageHandler imageHandler, String DocumentName, ImageOptions options) {
+        final RenderToken token = RenderToken.current();
+        final int pageCount = token == null ? -1 : getKnownPageCount(DocumentName);
+        if (pageCount < MIN_BATCHED_PAGES) {
+            return convertPages(imageHandler, DocumentName, options);
+        }
+        List<PageImage> pages = new ArrayList<PageImage>();
+        for (int page = 1; page <= pageCount; page += BATCH_PAGES) {
+            token.checkpoint(0);
+            options.setPageNumber(page);
+            options.setCountPagesToConvert(Math.min(BATCH_PAGES, pageCount - page + 1));
+            List<PageImage> batchPages = convertPages(imageHandler, DocumentName, options);
+            pages.addAll(batchPages);
+            token.checkpoint(batchPages.size());
+        }
+        return pages;
+    }
+
+    private static List<PageHtml> convertPages(ViewerHtmlHandler htmlHandler, String DocumentName, HtmlOptions options) {
+        final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.CONVERT);
+        try {
+            return htmlHandler.getPages(DocumentName, options);
+        } finally {
+            span.end();
+        }
+    }
+
+    private static List<PageImage> convertPages(ViewerImageHandler imageHandler, String DocumentName, ImageOptions options) {
+        final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.CONVERT);
+        try {
+            return imageHandler.getPages(DocumentName, options);
+        } finally {
+            span.end();
+        }
+    }
+
+    private static int getKnownPageCount(String DocumentName) {
+        final DocumentMetadata metadata = metadataCache.getIfCurrent(DocumentName);
+        return metadata == null ? -1 : metadata.getPageCount();
+    }
+
     private static List<HtmlInfo> getHtmlInfos(List<PageHtml> pages) {
         List<HtmlInfo> contents = new ArrayList<HtmlInfo>();
 
@@ -190,32 +457,15 @@ public class ViewGenerator {
 
     /**
      * Render a document in html representation whom located at web/remote location.
+     * The document is fetched to local cache and rendered like a document of the storage.
      * @param DocumentURL      URL of the document
      * @param DocumentPassword Password Parameter is optional
+     * @return the list
      * @throws Exception the exception
      */
-    public static void renderDocumentAsHtml(URI DocumentURL, String DocumentPassword) throws Exception {
+    public static List<HtmlInfo> renderDocumentAsHtml(URI DocumentURL, String DocumentPassword) throws Exception {
         //ExStart:RenderRemoteDocAsHtml
-        //Get Configurations
-
-
-        // Create html handler
-        ViewerHtmlHandler htmlHandler = new ViewerHtmlHandler(config);
-
-        //Instantiate the HtmlOptions object
-        HtmlOptions options = new HtmlOptions();
-
-        if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
-            options.setPassword(DocumentPassword);
-        }
-
-        //Get document pages in html form
-        List<PageHtml> pages = htmlHandler.getPages(DocumentURL, options);
-
-        for (PageHtml page : pages) {
-            //Save each page at disk
-            Utilities.saveAsHtml(page.getPageNumber() + "_" + FilenameUtils.getName(DocumentURL.getPath()), page.getHtmlContent());
-        }
+        return renderDocumentAsHtml(resolveRemoteDocument(DocumentURL), DocumentPassword);
         //ExEnd:RenderRemoteDocAsHtml
     }
 
@@ -231,10 +481,10 @@ public class ViewGenerator {
 
 
         // Create image handler
-        ViewerImageHandler imageHandler = new ViewerImageHandler(config);
+        ViewerImageHandler imageHandler = createImageHandler();
 
         //Initialize ImageOptions Object
-        ImageOptions options = new ImageOptions();
+        ImageOptions options = createImageOptions();
 
         // Set password if document is password protected.
         if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
@@ -242,18 +492,19 @@ public class ViewGenerator {
         }
 
         //Get document pages in image form
-        List<PageImage> Images = imageHandler.getPages(documentName, options);
+        List<PageImage> Images = getPages(imageHandler, documentName, options);
 
         List<ImageInfo> contents = new ArrayList<ImageInfo>();
 
         for (PageImage image : Images) {
+            RenderToken.checkpointCurrent(0);
             String imgname = image.getPageNumber() + "_" + FilenameUtils.getName(documentName);
             imgname = imgname.replace("\\s+", "_");
 
             Utilities.saveAsImage(config.getTempPath(), imgname, image.getStream());
 
             ImageInfo imageInfo = new ImageInfo();
-            imageInfo.setImageUrl("/Uploads/images/" + FilenameUtils.getBaseName(imgname) + ".jpg?" + UUID.randomUUID().toString());
+            imageInfo.setImageUrl("/Uploads/images/" + FilenameUtils.getBaseName(imgname) + ".png?" + UUID.randomUUID().toString());
             imageInfo.setPageNmber(image.getPageNumber());
             imageInfo.setHtmlContent("<div class='image_page'><img src='" + imageInfo.getImageUrl() + "' /></div>");
             contents.add(imageInfo);
@@ -276,9 +527,9 @@ public class ViewGenerator {
     public static List<ImageInfo> renderDocumentAsImages(String DocumentName, String WatermarkText, Color WatermarkColor, int WatermarkWidth, String DocumentPassword) {
         // Guid implies that unique document name
         // Create image handler
-        ViewerImageHandler imageHandler = new ViewerImageHandler(config);
+        ViewerImageHandler imageHandler = createImageHandler();
         //Initialize ImageOptions Object
-        ImageOptions options = new ImageOptions();
+        ImageOptions options = createImageOptions();
 
         // Set password if document is password protected.
         if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
@@ -289,23 +540,54 @@ public class ViewGenerator {
         Utilities.PageTransformations.addWatermark(options, WatermarkText, WatermarkColor, WatermarkPosition.Diagonal, WatermarkWidth);
 
         //Get document pages in image form
-        List<PageImage> images = imageHandler.getPages(DocumentName, options);
+        List<PageImage> images = getPages(imageHandler, DocumentName, options);
 
         return getImageInfos(DocumentName, images);
         //ExEnd:RenderAsImageWithWaterMark
     }
 
+    /**
+     * Render range of document pages in image representation
+     * @param DocumentName     file/document name
+     * @param FirstPageNumber  number of the first page to render
+     * @param PageCount        count of pages to render
+     * @param DocumentPassword Password Parameter is optional
+     * @return the list
+     */
+    public static List<ImageInfo> renderPagesAsImages(String DocumentName, int FirstPageNumber, int PageCount, String DocumentPassword) {
+        // Create image handler
+        ViewerImageHandler imageHandler = createImageHandler();
+
+        //Initialize ImageOptions Object
+        ImageOptions options = createImageOptions();
+
+        //Convert only requested pages
+        options.setPageNumber(FirstPageNumber);
+        options.setCountPagesToConvert(PageCount);
+
+        // Set password if document is password protected.
+        if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
+            options.setPassword(DocumentPassword);
+        }
+
+        //Get document pages in image form
+        List<PageImage> images = convertPages(imageHandler, DocumentName, options);
+
+        return getImageInfos(DocumentName, images);
+    }
+
     private static List<ImageInfo> getImageInfos(String DocumentName, List<PageImage> images) {
         List<ImageInfo> contents = new ArrayList<ImageInfo>();
 
         for (PageImage image : images) {
+            RenderToken.checkpointCurrent(0);
             String imgname = image.getPageNumber() + "_" + FilenameUtils.getBaseName(DocumentName);
             imgname = imgname.replace("\\s+", "_");
 
             Utilities.saveAsImage(config.getTempPath(), imgname, image.getStream());
 
             ImageInfo imageInfo = new ImageInfo();
-            imageInfo.setImageUrl("/Uploads/images/" + imgname + ".jpg?" + UUID.randomUUID().toString());
+            imageInfo.setImageUrl("/Uploads/images/" + imgname + ".png?" + UUID.randomUUID().toString());
             imageInfo.setPageNmber(image.getPageNumber());
             imageInfo.setHtmlContent("<div class='image_page'><img src='" + imageInfo.getImageUrl() + "' /></div>");
             contents.add(imageInfo);
@@ -325,9 +607,9 @@ public class ViewGenerator {
     public static List<ImageInfo> rotateDocumentAsImages(String DocumentName, int pageNumber, int RotationAngle, String DocumentPassword) throws Exception {
         // Guid implies that unique document name
         // Create image handler
-        ViewerHandler handler = new ViewerImageHandler(config);
+        ViewerHandler handler = createImageHandler();
         //Initialize ImageOptions Object and setting Rotate Transformation
-        ImageOptions options = new ImageOptions();
+        ImageOptions options = createImageOptions();
         options.setTransformations(Transformation.Rotate);
 
         // Set password if document is password protected.
@@ -342,7 +624,7 @@ public class ViewGenerator {
         ViewerImageHandler imageHandler = (ViewerImageHandler) handler;
 
         //Get document pages in image form
-        List<PageImage> Images = imageHandler.getPages(DocumentName, options);
+        List<PageImage> Images = convertPages(imageHandler, DocumentName, options);
 
         return getImageInfos(DocumentName, Images);
     }
@@ -359,9 +641,9 @@ public class ViewGenerator {
     public static List<ImageInfo> renderDocumentAsImages(String DocumentName, int CurrentPageNumber, int NewPageNumber, String DocumentPassword) throws Exception {
         // Guid implies that unique document name
         // Cast ViewerHtmlHandler class object to its base class(ViewerHandler).
-        ViewerHandler handler = new ViewerImageHandler(config);
+        ViewerHandler handler = createImageHandler();
         //Initialize ImageOptions Object and setting Reorder Transformation
-        ImageOptions options = new ImageOptions();
+        ImageOptions options = createImageOptions();
         options.setTransformations(Transformation.Reorder);
 
         // Set password if document is password protected.
@@ -376,7 +658,7 @@ public class ViewGenerator {
         ViewerImageHandler imageHandler = (ViewerImageHandler) handler;
 
         //Get document pages in image form
-        List<PageImage> images = imageHandler.getPages(DocumentName, options);
+        List<PageImage> images = convertPages(imageHandler, DocumentName, options);
 
         return getImageInfos(DocumentName, images);
         //ExEnd:RenderAsImageAndReorderPage
@@ -384,58 +666,62 @@ public class ViewGenerator {
 
     /**
      * Render a document in image representation whom located at web/remote location.
+     * The document is fetched to local cache and rendered like a document of the storage.
      * @param DocumentURL      URL of the document
      * @param DocumentPassword Password Parameter is optional
+     * @return the list
+     * @throws Exception the exception
      */
-    public static void renderDocumentAsImages(URI DocumentURL, String DocumentPassword) {
-        // Create image handler
-        ViewerImageHandler imageHandler = new ViewerImageHandler(config);
-
-        //Initialize ImageOptions Object
-        ImageOptions options = new ImageOptions();
+    public static List<ImageInfo> renderDocumentAsImages(URI DocumentURL, String DocumentPassword) throws Exception {
+        return renderDocumentAsImages(resolveRemoteDocument(DocumentURL), DocumentPassword);
+    }
 
-        // Set password if document is password protected.
-        if (DocumentPassword != null && !DocumentPassword.isEmpty()) {
-            options.setPassword(DocumentPassword);
+    private static String resolveRemoteDocument(URI DocumentURL) throws Exception {
+        if (remoteFetcher == null) {
+            throw new IllegalStateException("Rendering of remote documents is disabled");
         }
-
-        //Get document pages in image form
-        List<PageImage> Images = imageHandler.getPages(DocumentURL, options);
-
-//        for (PageImage image : Images) {
-            //Save each image at disk
-            // Utilities.SaveAsImage(image.getPageNumber() + "_" + Path.GetFileName(DocumentURL.LocalPath), image.Stream);
-//        }
+        return remoteFetcher.resolve(DocumentURL.toString());
     }
 
     /**
      * Render a document as it is (original form)
+     * The stream of container is read by the download handler, so the document is not buffered in heap.
      * @param DocumentName the document name
+     * @return the file container
      */
-    public static void renderDocumentAsOriginal(String DocumentName) {
+    public static FileContainer renderDocumentAsOriginal(String DocumentName) {
         //ExStart:RenderOriginal
         // Create image handler
-        ViewerImageHandler imageHandler = new ViewerImageHandler(config);
+        ViewerImageHandler imageHandler = createImageHandler();
 
         // Guid implies that unique document name
 
         // Get original file
-        FileContainer container = imageHandler.getFile(DocumentName);
-
-        //Save each image at disk
-        // Utilities.SaveAsImage(DocumentName, container.Stream);
+        return imageHandler.getFile(DocumentName);
         //ExEnd:RenderOriginal
-
     }
 
     /**
      * Render a document in PDF Form
+     * The PDF is converted once per document version and kept in cache, see {@link PdfIntermediateCache}.
      * @param DocumentName the document name
+     * @return the pdf file or null if document does not exist
+     * @throws Exception the exception
      */
-    public static void renderDocumentAsPDF(String DocumentName) {
+    public static File renderDocumentAsPDF(String DocumentName) throws Exception {
         //ExStart:RenderAsPdf
+        return pdfCache.getPdf(DocumentName);
+        //ExEnd:RenderAsPdf
+    }
+
+    /**
+     * Convert document to PDF.
+     * @param DocumentName the document name
+     * @return the stream of pdf file
+     */
+    static InputStream getPdfStream(String DocumentName) {
         // Create/initialize image handler
-        ViewerImageHandler imageHandler = new ViewerImageHandler(config);
+        ViewerImageHandler imageHandler = createImageHandler();
 
         //Initialize PdfFileOptions object
         PdfFileOptions options = new PdfFileOptions();
@@ -444,33 +730,36 @@ public class ViewGenerator {
         options.setGuid(DocumentName);
 
         // Call GetPdfFile to get FileContainer type object which contains the stream of pdf file.
-        FileContainer container = imageHandler.getPdfFile(options);
-
-        //Change the extension of the file and assign to a String type variable filename
-        String filename = FilenameUtils.getBaseName(DocumentName) + ".pdf";
-
-        //Save each image at disk
-        Utilities.saveFile(filename, container.getStream());
-        //ExEnd:RenderAsPdf
-
+        final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.CONVERT);
+        try {
+            FileContainer container = imageHandler.getPdfFile(options);
+            return container.getStream();
+        } finally {
+            span.end();
+        }
     }
 
     /**
      * Load directory structure as file tree
-     * @param Path the path
+     * The tree of local storage comes from the index kept current by file system events instead of scanning the storage,
+     * the tree of remote storage is listed by its backend.
+     * @param Path the path relative to storage
      */
     public static void loadFileTree(String Path) {
         //ExStart:LoadFileTree
-        // Create/initialize image handler
-        ViewerImageHandler imageHandler = new ViewerImageHandler(config);
-
-        // Load file tree list for custom path
-        FileTreeOptions options = new FileTreeOptions(Path);
-
-        // Load file tree list for ViewerConfig.StoragePath
-        FileTreeContainer container = imageHandler.loadFileTree(options);
-
-        for (FileDescription node : container.getFileTree()) {
+        final StorageBackend backend = getStorageBackend();
+        final List<FileDescription> tree;
+        if (backend != null && backend.isRemote()) {
+            try {
+                tree = backend.list(Path);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        } else {
+            tree = fileTreeIndex.getFileTree(Path);
+        }
+        for (FileDescription node : tree) {
             if (node.isDirectory()) {
                 System.out.println(String.format(
                         "Guid: %s | Name: %s | LastModificationDate: %s",
@@ -494,13 +783,85 @@ public class ViewGenerator {
     }
 
     /**
-     * Load page image byte [ ].
+     * Gets document metadata: type, page count and size of every page.
+     * @param DocumentName the document name
+     * @return the document metadata
+     */
+    public static DocumentMetadata getDocumentMetadata(String DocumentName) {
+        // Create image handler
+        ViewerImageHandler imageHandler = createImageHandler();
+
+        // Get document information without rendering pages
+        DocumentInfoContainer documentInfo = imageHandler.getDocumentInfo(new DocumentInfoOptions(DocumentName));
+
+        List<PageMetadata> pages = new ArrayList<PageMetadata>();
+        for (PageData pageData : documentInfo.getPages()) {
+            PageMetadata page = new PageMetadata();
+            page.setNumber(pageData.getNumber());
+            page.setWidth(pageData.getWidth());
+            page.setHeight(pageData.getHeight());
+            page.setAngle(pageData.getAngle());
+            pages.add(page);
+        }
+
+        DocumentMetadata metadata = new DocumentMetadata();
+        metadata.setGuid(DocumentName);
+        metadata.setDocumentType(documentInfo.getDocumentType());
+        metadata.setFileType(documentInfo.getFileType());
+        metadata.setExtension(documentInfo.getExtension());
+        metadata.setSize(documentInfo.getSize());
+        metadata.setPageCount(pages.size());
+        metadata.setPages(pages);
+        return metadata;
+    }
+
+    /**
+     * Gets description of the document in storage.
+     * @param DocumentName the document name
+     * @return the file description or null if document does not exist
+     */
+    public static FileDescription getFileDescription(String DocumentName) {
+        if (DocumentName == null || DocumentName.isEmpty()) {
+            return null;
+        }
+        if (inputDataHandler != null) {
+            return inputDataHandler.getFileDescription(DocumentName);
+        }
+        final File document = Utilities.resolveBelow(new File(config.getStoragePath()), DocumentName);
+        if (document == null || !document.isFile()) {
+            return null;
+        }
+        FileDescription description = new FileDescription(DocumentName);
+        description.setName(document.getName());
+        description.setSize(document.length());
+        description.setLastModificationDate(new Date(document.lastModified()));
+        return description;
+    }
+
+    /**
+     * Gets document version. Version changes whenever the document is replaced in storage.
+     * @param DocumentName the document name
+     * @return the document version or null if document does not exist
+     */
+    public static String getDocumentVersion(String DocumentName) {
+        final FileDescription description = getFileDescription(DocumentName);
+        if (description == null) {
+            return null;
+        }
+        return Long.toHexString(description.getLastModificationDate().getTime()) + "-" + Long.toHexString(description.getSize());
+    }
+
+    /**
+     * Gets page image file.
      * @param filename the filename
-     * @return the byte [ ]
-     * @throws IOException the io exception
+     * @return the image file or null if it does not exist
      */
-    public static byte[] loadPageImage(String filename) throws IOException {
+    public static File getPageImage(String filename) {
         final File imagePath = Utilities.makeImagePath(config.getTempPath(), filename);
-        return FileUtils.readFileToByteArray(imagePath);
+        if (!imagePath.isFile()) {
+            return null;
+        }
+        DiskJanitor.markServed(imagePath);
+        return imagePath;
     }
 }
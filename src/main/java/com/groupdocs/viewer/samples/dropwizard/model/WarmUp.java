@@ -0,0 +1,187 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.model.business.DocumentMetadata;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Renders sample documents bundled in {@code /warmup/} once at startup, so class loading, JIT and font discovery
+ * of every document format are done before real traffic arrives. The application reports ready only after it finished.
+ * The corpus also provides the document of canary renders.
+ */
+public class WarmUp implements Managed {
+    private static final String[] CORPUS = {"sample.docx", "sample.rtf", "sample.txt", "sample.xlsx", "sample.csv",
+            "sample.pptx", "sample.pdf", "sample.html", "sample.png"};
+    private static final String[] ACTIONS = {"renderashtml", "renderasimage"};
+
+    private final File directory;
+    private final String guidPrefix;
+    private final RenderService renderService;
+    private final Meter failures;
+    private volatile boolean finished;
+    private volatile long durationMillis = -1;
+    private Thread thread;
+
+    /**
+     * Instantiates a new Warm up.
+     * @param storagePath   the storage path
+     * @param tempPath      the temp path, the corpus is copied to its warmup directory
+     * @param renderService the render service
+     * @param metrics       the metric registry
+     */
+    public WarmUp(String storagePath, String tempPath, RenderService renderService, MetricRegistry metrics) {
+        this.directory = new File(tempPath, "warmup");
+        this.guidPrefix = Utilities.makeGuid(storagePath, directory) + "/";
+        this.renderService = renderService;
+        this.failures = metrics.meter(MetricRegistry.name(WarmUp.class, "failures"));
+        metrics.register(MetricRegistry.name(WarmUp.class, "duration"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return durationMillis;
+            }
+        });
+    }
+
+    /**
+     * Gets directory of the corpus.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets guid prefix of the corpus documents.
+     * @return the guid prefix
+     */
+    public String getGuidPrefix() {
+        return guidPrefix;
+    }
+
+    /**
+     * Is finished boolean.
+     * @return true if all documents of the corpus were rendered or failed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets duration of warm-up.
+     * @return the duration in milliseconds, -1 while warming up
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Gets count of corpus renders which failed.
+     * @return the failure count
+     */
+    public long getFailureCount() {
+        return failures.getCount();
+    }
+
+    @Override
+    public void start() throws Exception {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void warmUp() {
+        final long start = System.nanoTime();
+        try {
+            final List<String> guids = copyCorpus();
+            // All documents at once, the scheduler spreads them over render threads
+            final List<Future<?>> renders = new ArrayList<Future<?>>();
+            for (final String guid : guids) {
+                for (String action : ACTIONS) {
+                    renders.add(renderService.submitLocal(new RenderRequest(action, guid), renderService.newToken(null, 1, null), RenderPriority.BACKGROUND));
+                }
+                // Path of DocumentInfo.ashx
+                renders.add(renderService.submit(renderService.newToken(null, 1, null), RenderPriority.BACKGROUND, new Callable<DocumentMetadata>() {
+                    @Override
+                    public DocumentMetadata call() throws Exception {
+                        return ViewGenerator.getDocumentMetadata(guid);
+                    }
+                }));
+            }
+            for (Future<?> render : renders) {
+                try {
+                    render.get();
+                } catch (ExecutionException e) {
+                    failures.mark();
+                    System.out.println("Warm-up render failed: " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            durationMillis = (System.nanoTime() - start) / 1000000;
+            finished = true;
+            System.out.println("Warm-up finished in " + durationMillis + " ms, failed renders: " + failures.getCount());
+        }
+    }
+
+    private List<String> copyCorpus() {
+        final List<String> guids = new ArrayList<String>();
+        for (String name : CORPUS) {
+            try {
+                guids.add(copyDocument(name));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return guids;
+    }
+
+    /**
+     * Copy bundled document to the corpus directory, e.g. for a canary render.
+     * @param name the name of document in /warmup/
+     * @return the guid of the copy
+     * @throws IOException the io exception
+     */
+    public String copyDocument(String name) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Can't create directory for warm-up! " + directory.getAbsolutePath());
+        }
+        final InputStream input = WarmUp.class.getResourceAsStream("/warmup/" + name);
+        if (input == null) {
+            throw new FileNotFoundException("Warm-up document is not bundled: " + name);
+        }
+        try {
+            Files.copy(input, new File(directory, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            input.close();
+        }
+        return guidPrefix + name;
+    }
+}
@@ -0,0 +1,98 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+/**
+ * The type Byte range. Single range of a {@code Range: bytes=...} request header.
+ */
+public class ByteRange {
+    /**
+     * Range which does not overlap the content, answered with 416.
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final long first;
+    private final long last;
+
+    /**
+     * Instantiates a new Byte range.
+     * @param first the first byte position
+     * @param last  the last byte position, inclusive
+     */
+    public ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parse Range header against content length.
+     * Multiple ranges and unknown units are ignored, so the whole content is sent as the specification allows.
+     * @param header the header value
+     * @param length the content length
+     * @return the range, {@link #UNSATISFIABLE} or null to send the whole content
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        final String spec = header.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            final String start = spec.substring(0, dash).trim();
+            final String end = spec.substring(dash + 1).trim();
+            if (start.isEmpty()) {
+                // Suffix range: last n bytes
+                final long suffix = Long.parseLong(end);
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            final long first = Long.parseLong(start);
+            final long last = end.isEmpty() ? length - 1 : Math.min(Long.parseLong(end), length - 1);
+            if (first < 0 || (!end.isEmpty() && Long.parseLong(end) < first)) {
+                return null;
+            }
+            if (first >= length) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(first, last);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets first byte position.
+     * @return the first
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets last byte position, inclusive.
+     * @return the last
+     */
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * Gets count of bytes in the range.
+     * @return the length
+     */
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * Gets Content-Range header value.
+     * @param length the content length
+     * @return the content range
+     */
+    public String toContentRange(long length) {
+        return "bytes " + first + "-" + last + "/" + length;
+    }
+}
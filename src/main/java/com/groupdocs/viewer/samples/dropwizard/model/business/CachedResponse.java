@@ -0,0 +1,65 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+/**
+ * The type Cached response. Serialized pages of a render, as sent to the client.
+ */
+public class CachedResponse {
+    private final String guid;
+    private final String etag;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    /**
+     * Instantiates a new Cached response.
+     * @param guid the document name
+     * @param etag the entity tag
+     * @param json the serialized pages
+     * @param gzip the gzip of serialized pages or null if not compressed
+     */
+    public CachedResponse(String guid, String etag, byte[] json, byte[] gzip) {
+        this.guid = guid;
+        this.etag = etag;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Gets guid.
+     * @return the guid
+     */
+    public String getGuid() {
+        return guid;
+    }
+
+    /**
+     * Gets entity tag.
+     * @return the etag
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Gets serialized pages.
+     * @return the json
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Gets gzip of serialized pages.
+     * @return the gzip or null if not compressed
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Gets size held in memory.
+     * @return the size in bytes
+     */
+    public int getSize() {
+        return json.length + (gzip == null ? 0 : gzip.length);
+    }
+}
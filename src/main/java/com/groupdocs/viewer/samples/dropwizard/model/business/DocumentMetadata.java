@@ -0,0 +1,145 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+import java.util.List;
+
+/**
+ * The type Document metadata. Page count and page sizes of a document version.
+ */
+public class DocumentMetadata {
+    private String guid;
+    private String version;
+    private String documentType;
+    private String fileType;
+    private String extension;
+    private long size;
+    private int pageCount;
+    private List<PageMetadata> pages;
+
+    /**
+     * Gets guid.
+     * @return the guid
+     */
+    public String getGuid() {
+        return guid;
+    }
+
+    /**
+     * Sets guid.
+     * @param guid the guid
+     */
+    public void setGuid(String guid) {
+        this.guid = guid;
+    }
+
+    /**
+     * Gets document version.
+     * @return the document version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets document version.
+     * @param version the document version
+     */
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets document type.
+     * @return the document type
+     */
+    public String getDocumentType() {
+        return documentType;
+    }
+
+    /**
+     * Sets document type.
+     * @param documentType the document type
+     */
+    public void setDocumentType(String documentType) {
+        this.documentType = documentType;
+    }
+
+    /**
+     * Gets file type.
+     * @return the file type
+     */
+    public String getFileType() {
+        return fileType;
+    }
+
+    /**
+     * Sets file type.
+     * @param fileType the file type
+     */
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    /**
+     * Gets extension.
+     * @return the extension
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Sets extension.
+     * @param extension the extension
+     */
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets size.
+     * @return the size
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sets size.
+     * @param size the size
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets page count.
+     * @return the page count
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Sets page count.
+     * @param pageCount the page count
+     */
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Gets pages.
+     * @return the pages
+     */
+    public List<PageMetadata> getPages() {
+        return pages;
+    }
+
+    /**
+     * Sets pages.
+     * @param pages the pages
+     */
+    public void setPages(List<PageMetadata> pages) {
+        this.pages = pages;
+    }
+}
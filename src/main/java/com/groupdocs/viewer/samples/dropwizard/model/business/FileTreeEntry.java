@@ -0,0 +1,109 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+/**
+ * The type File tree entry. A file or directory of the storage.
+ */
+public class FileTreeEntry {
+    private String guid;
+    private String name;
+    private boolean directory;
+    private String extension;
+    private long size;
+    private long lastModified;
+
+    /**
+     * Gets guid, path relative to storage.
+     * @return the guid, path relative to storage
+     */
+    public String getGuid() {
+        return guid;
+    }
+
+    /**
+     * Sets guid, path relative to storage.
+     * @param guid the guid, path relative to storage
+     */
+    public void setGuid(String guid) {
+        this.guid = guid;
+    }
+
+    /**
+     * Gets name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets name.
+     * @param name the name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Is directory.
+     * @return the directory
+     */
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets directory.
+     * @param directory the directory
+     */
+    public void setDirectory(boolean directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets extension.
+     * @return the extension
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Sets extension.
+     * @param extension the extension
+     */
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets size.
+     * @return the size
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sets size.
+     * @param size the size
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets last modified time in milliseconds.
+     * @return the last modified time in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Sets last modified time in milliseconds.
+     * @param lastModified the last modified time in milliseconds
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+}
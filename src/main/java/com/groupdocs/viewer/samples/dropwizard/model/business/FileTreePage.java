@@ -0,0 +1,94 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+import java.util.List;
+
+/**
+ * The type File tree page. One page of a sorted directory listing.
+ */
+public class FileTreePage {
+    private String path;
+    private int total;
+    private int page;
+    private int pageSize;
+    private List<FileTreeEntry> entries;
+
+    /**
+     * Gets path of the directory.
+     * @return the path of the directory
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Sets path of the directory.
+     * @param path the path of the directory
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Gets total count of entries in the directory.
+     * @return the total count of entries in the directory
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Sets total count of entries in the directory.
+     * @param total the total count of entries in the directory
+     */
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    /**
+     * Gets page number, starting from 0.
+     * @return the page number, starting from 0
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Sets page number, starting from 0.
+     * @param page the page number, starting from 0
+     */
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    /**
+     * Gets page size.
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets page size.
+     * @param pageSize the page size
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets entries of the page.
+     * @return the entries of the page
+     */
+    public List<FileTreeEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Sets entries of the page.
+     * @param entries the entries of the page
+     */
+    public void setEntries(List<FileTreeEntry> entries) {
+        this.entries = entries;
+    }
+}
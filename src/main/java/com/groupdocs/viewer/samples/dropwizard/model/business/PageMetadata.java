@@ -0,0 +1,75 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+/**
+ * The type Page metadata. Number and size of a single document page.
+ */
+public class PageMetadata {
+    private int number;
+    private int width;
+    private int height;
+    private int angle;
+
+    /**
+     * Gets page number.
+     * @return the page number
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Sets page number.
+     * @param number the page number
+     */
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    /**
+     * Gets page width.
+     * @return the page width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Sets page width.
+     * @param width the page width
+     */
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    /**
+     * Gets page height.
+     * @return the page height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sets page height.
+     * @param height the page height
+     */
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    /**
+     * Gets rotation angle.
+     * @return the rotation angle
+     */
+    public int getAngle() {
+        return angle;
+    }
+
+    /**
+     * Sets rotation angle.
+     * @param angle the rotation angle
+     */
+    public void setAngle(int angle) {
+        this.angle = angle;
+    }
+}
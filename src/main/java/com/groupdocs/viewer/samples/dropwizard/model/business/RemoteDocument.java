@@ -0,0 +1,109 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+/**
+ * The type Remote document. Local copy of a document fetched from an URL and its validators.
+ */
+public class RemoteDocument {
+    private String url;
+    private String fileName;
+    private String etag;
+    private String lastModified;
+    private long stored;
+    private long validated;
+
+    /**
+     * Gets url.
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets url.
+     * @param url the url
+     */
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Gets file name of local copy.
+     * @return the file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Sets file name.
+     * @param fileName the file name
+     */
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Gets ETag header of the fetched content.
+     * @return the etag or null
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Sets etag.
+     * @param etag the etag
+     */
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    /**
+     * Gets Last-Modified header of the fetched content.
+     * @return the last modified or null
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Sets last modified.
+     * @param lastModified the last modified
+     */
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets time the content was stored, the version of local copy.
+     * @return the stored time in milliseconds
+     */
+    public long getStored() {
+        return stored;
+    }
+
+    /**
+     * Sets stored.
+     * @param stored the stored time in milliseconds
+     */
+    public void setStored(long stored) {
+        this.stored = stored;
+    }
+
+    /**
+     * Gets time the remote server last confirmed the content.
+     * @return the validated time in milliseconds
+     */
+    public long getValidated() {
+        return validated;
+    }
+
+    /**
+     * Sets validated.
+     * @param validated the validated time in milliseconds
+     */
+    public void setValidated(long validated) {
+        this.validated = validated;
+    }
+}
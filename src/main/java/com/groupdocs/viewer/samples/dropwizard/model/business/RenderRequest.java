@@ -0,0 +1,131 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The type Render request. Action of MainHandler.ashx with its document and parameters.
+ */
+public class RenderRequest {
+    private String action;
+    private String filePath;
+    private Map<String, String> parameters = new TreeMap<String, String>();
+
+    /**
+     * Instantiates a new Render request.
+     */
+    public RenderRequest() {
+    }
+
+    /**
+     * Instantiates a new Render request.
+     * @param action   the action
+     * @param filePath the file path
+     */
+    public RenderRequest(String action, String filePath) {
+        this.action = action;
+        this.filePath = filePath;
+    }
+
+    /**
+     * Gets action.
+     * @return the action
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Sets action.
+     * @param action the action
+     */
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    /**
+     * Gets file path.
+     * @return the file path
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Sets file path.
+     * @param filePath the file path
+     */
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Gets parameters of the action, sorted by name.
+     * @return the parameters
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets parameters.
+     * @param parameters the parameters
+     */
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = new TreeMap<String, String>(parameters);
+    }
+
+    /**
+     * Gets parameter.
+     * @param name the name
+     * @return the parameter value or null
+     */
+    public String getParameter(String name) {
+        return parameters.get(name);
+    }
+
+    /**
+     * Gets integer parameter.
+     * @param name the name
+     * @return the parameter value
+     */
+    public int getIntParameter(String name) {
+        return Integer.parseInt(parameters.get(name));
+    }
+
+    /**
+     * Sets parameter.
+     * @param name  the name
+     * @param value the value
+     * @return this request
+     */
+    public RenderRequest setParameter(String name, String value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    /**
+     * Is html action.
+     * @return true if action produces html pages, false for image pages
+     */
+    @JsonIgnore
+    public boolean isHtml() {
+        return action != null && action.startsWith("renderashtml");
+    }
+
+    /**
+     * Is transformation action.
+     * @return true for rotate and reorder, which change pages of later renders of the document
+     */
+    @JsonIgnore
+    public boolean isTransformation() {
+        return action != null && (action.endsWith("withrotate") || action.endsWith("withreorder"));
+    }
+
+    @Override
+    public String toString() {
+        return action + " " + filePath + " " + parameters;
+    }
+}
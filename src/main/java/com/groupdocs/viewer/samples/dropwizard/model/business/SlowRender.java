@@ -0,0 +1,231 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The type Slow render. Capture of a render above the threshold: what was rendered, from which document and how long it took.
+ */
+public class SlowRender {
+    private long time;
+    private String action;
+    private String guid;
+    private Map<String, String> parameters = new TreeMap<String, String>();
+    private String version;
+    private String fingerprint;
+    private String document;
+    private String documentType;
+    private long documentSize = -1;
+    private int pageCount = -1;
+    private long elapsedMillis;
+    private String outcome;
+    private int pagesRendered;
+
+    /**
+     * Gets time the render finished.
+     * @return the time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Sets time.
+     * @param time the time in milliseconds
+     */
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Gets action.
+     * @return the action
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Sets action.
+     * @param action the action
+     */
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    /**
+     * Gets guid.
+     * @return the guid
+     */
+    public String getGuid() {
+        return guid;
+    }
+
+    /**
+     * Sets guid.
+     * @param guid the guid
+     */
+    public void setGuid(String guid) {
+        this.guid = guid;
+    }
+
+    /**
+     * Gets parameters of the action.
+     * @return the parameters
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets parameters.
+     * @param parameters the parameters
+     */
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = new TreeMap<String, String>(parameters);
+    }
+
+    /**
+     * Gets document version.
+     * @return the version or null if document no longer exists
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets version.
+     * @param version the version
+     */
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets SHA-256 of document content.
+     * @return the fingerprint or null if document could not be read
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets fingerprint.
+     * @param fingerprint the fingerprint
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Gets file name of the document copy kept next to captures.
+     * @return the document or null if documents are not kept
+     */
+    public String getDocument() {
+        return document;
+    }
+
+    /**
+     * Sets document.
+     * @param document the document
+     */
+    public void setDocument(String document) {
+        this.document = document;
+    }
+
+    /**
+     * Gets document type.
+     * @return the document type or null if metadata was not cached
+     */
+    public String getDocumentType() {
+        return documentType;
+    }
+
+    /**
+     * Sets document type.
+     * @param documentType the document type
+     */
+    public void setDocumentType(String documentType) {
+        this.documentType = documentType;
+    }
+
+    /**
+     * Gets document size.
+     * @return the document size in bytes, -1 if unknown
+     */
+    public long getDocumentSize() {
+        return documentSize;
+    }
+
+    /**
+     * Sets document size.
+     * @param documentSize the document size
+     */
+    public void setDocumentSize(long documentSize) {
+        this.documentSize = documentSize;
+    }
+
+    /**
+     * Gets page count.
+     * @return the page count, -1 if unknown
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Sets page count.
+     * @param pageCount the page count
+     */
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Gets render time.
+     * @return the elapsed milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Sets elapsed millis.
+     * @param elapsedMillis the elapsed milliseconds
+     */
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Gets outcome: rendered, cancelled or failed.
+     * @return the outcome
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Sets outcome.
+     * @param outcome the outcome
+     */
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * Gets count of pages rendered before the render ended.
+     * @return the pages rendered
+     */
+    public int getPagesRendered() {
+        return pagesRendered;
+    }
+
+    /**
+     * Sets pages rendered.
+     * @param pagesRendered the pages rendered
+     */
+    public void setPagesRendered(int pagesRendered) {
+        this.pagesRendered = pagesRendered;
+    }
+}
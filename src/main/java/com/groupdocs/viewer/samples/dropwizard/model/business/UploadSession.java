@@ -0,0 +1,93 @@
+package com.groupdocs.viewer.samples.dropwizard.model.business;
+
+/**
+ * The type Upload session.
+ * Describes state of a chunked (resumable) upload.
+ */
+public class UploadSession {
+    private String sessionId;
+    private String fileName;
+    private long size;
+    private long offset;
+    private boolean complete;
+
+    /**
+     * Gets session id.
+     * @return the session id
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Sets session id.
+     * @param sessionId the session id
+     */
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Gets file name.
+     * @return the file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Sets file name.
+     * @param fileName the file name
+     */
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Gets declared total size of the file.
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sets declared total size of the file.
+     * @param size the size in bytes
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets offset - count of bytes already received.
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sets offset.
+     * @param offset the offset
+     */
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Is complete boolean.
+     * @return true if all bytes were received and the file was moved to storage
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Sets complete.
+     * @param complete the complete
+     */
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
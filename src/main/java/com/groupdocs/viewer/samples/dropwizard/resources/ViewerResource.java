@@ -1,30 +1,84 @@
 package com.groupdocs.viewer.samples.dropwizard.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.groupdocs.viewer.domain.FileDescription;
 import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
 import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.handler.RemoteDocumentFetcher;
+import com.groupdocs.viewer.samples.dropwizard.handler.StorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.ClientRateLimiter;
+import com.groupdocs.viewer.samples.dropwizard.model.DirectBufferPool;
+import com.groupdocs.viewer.samples.dropwizard.model.DocumentMetadataCache;
+import com.groupdocs.viewer.samples.dropwizard.model.FileTreeIndex;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderCancelledException;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderPriority;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderProfile;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderProfiler;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderService;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderStage;
+import com.groupdocs.viewer.samples.dropwizard.model.RenderToken;
+import com.groupdocs.viewer.samples.dropwizard.model.ResponseCache;
+import com.groupdocs.viewer.samples.dropwizard.model.UploadManager;
+import com.groupdocs.viewer.samples.dropwizard.model.UploadSizeExceededException;
 import com.groupdocs.viewer.samples.dropwizard.model.Utilities;
 import com.groupdocs.viewer.samples.dropwizard.model.ViewGenerator;
+import com.groupdocs.viewer.samples.dropwizard.model.business.ByteRange;
+import com.groupdocs.viewer.samples.dropwizard.model.business.CachedResponse;
+import com.groupdocs.viewer.samples.dropwizard.model.business.DocumentMetadata;
+import com.groupdocs.viewer.samples.dropwizard.model.business.FileTreePage;
 import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
 import com.groupdocs.viewer.samples.dropwizard.model.business.ImageInfo;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import com.groupdocs.viewer.samples.dropwizard.model.business.UploadSession;
 import com.groupdocs.viewer.samples.dropwizard.views.ViewerView;
-import org.apache.commons.io.FileUtils;
+import io.dropwizard.jackson.Jackson;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.glassfish.jersey.media.multipart.BodyPart;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartMediaTypes;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.container.TimeoutHandler;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
-import java.awt.*;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The type Viewer resource.
@@ -32,16 +86,43 @@ import java.util.Map;
  */
 @Path("/")
 public class ViewerResource {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final MediaType TEXT_HTML_UTF_8 = MediaType.TEXT_HTML_TYPE.withCharset(UTF_8.name());
+    private static final MediaType IMAGE_PNG = new MediaType("image", "png");
+    private static final int MAX_STREAM_BATCH_PAGES = 8;
+    private static final int INTERACTIVE_PAGES = 1;
+    private static final int MAX_FILE_TREE_PAGE_SIZE = 1000;
+
     private final DropwizardConfig dropwizardConfig;
+    private final UploadManager uploadManager;
+    private final DocumentMetadataCache metadataCache;
+    private final FileTreeIndex fileTreeIndex;
+    private final RenderService renderService;
+    private final ClientRateLimiter rateLimiter;
+    private final RemoteDocumentFetcher remoteFetcher;
+    private final ResponseCache responseCache;
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
 
     /**
      * Instantiates a new Viewer resource.
      * @param viewerConfig     the viewer config
      * @param dropwizardConfig the dropwizard config
+     * @param renderService    the render service
+     * @param rateLimiter      the per-client rate limiter of renders
+     * @param responseCache    the cache of serialized responses, null if disabled
      */
-    public ViewerResource(ViewerConfig viewerConfig, DropwizardConfig dropwizardConfig) {
-        ViewGenerator.initGenerator(viewerConfig);
+    public ViewerResource(ViewerConfig viewerConfig, DropwizardConfig dropwizardConfig, RenderService renderService,
+                          ClientRateLimiter rateLimiter, ResponseCache responseCache) {
         this.dropwizardConfig = dropwizardConfig;
+        final StorageBackend storage = ViewGenerator.getStorageBackend();
+        this.uploadManager = new UploadManager(dropwizardConfig, storage != null ? storage
+                : new LocalStorageBackend(viewerConfig.getStoragePath(), ViewGenerator.getFileTreeIndex()), viewerConfig.getTempPath());
+        this.metadataCache = ViewGenerator.getMetadataCache();
+        this.fileTreeIndex = ViewGenerator.getFileTreeIndex();
+        this.renderService = renderService;
+        this.rateLimiter = rateLimiter;
+        this.remoteFetcher = ViewGenerator.getRemoteFetcher();
+        this.responseCache = responseCache;
     }
 
     /**
@@ -52,7 +133,7 @@ public class ViewerResource {
     @GET
     @Produces(MediaType.TEXT_HTML)
     public ViewerView getIndex(@Context HttpServletRequest request) {
-        return new ViewerView(request.getContextPath());
+        return new ViewerView(request.getContextPath(), dropwizardConfig.getPrefetchPages(), dropwizardConfig.getRetainPages());
     }
 
     /**
@@ -76,15 +157,18 @@ public class ViewerResource {
                     if (inputStream != null && fileName != null) {
                         //Check the document type here
                         if (Utilities.checkExtenstion(FilenameUtils.getExtension(fileName))) {
-                            // Save the posted file
-                            final File outFile = new File(Utilities.getUploadPath(dropwizardConfig) + fileName);
-                            FileUtils.writeByteArrayToFile(outFile, IOUtils.toByteArray(inputStream));
+                            // Stream the posted file to storage
+                            final String guid = uploadManager.saveUpload(fileName, inputStream);
+                            metadataCache.precompute(guid);
                             //write the file path of successfully saved file.
-                            return fileName;
+                            return guid;
                         }
                     }
                 }
             }
+        } catch (UploadSizeExceededException e) {
+            response.setStatus(413);
+            return e.getMessage();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -94,17 +178,49 @@ public class ViewerResource {
     }
 
     /**
-     * Main handler response.
-     * @param filename the filename
-     * @return the response
+     * Create upload session for chunked (resumable) upload.
+     * @param fileName the file name
+     * @param size     the total size of the file
+     * @return the response with created upload session
+     */
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/Controllers/UploadSession.ashx")
+    public Response createUploadSession(@QueryParam("filename") String fileName, @QueryParam("size") long size) {
+        if (fileName == null || !Utilities.checkExtenstion(FilenameUtils.getExtension(fileName))) {
+            return Response.status(422).build();
+        }
+        try {
+            final UploadSession session = uploadManager.createSession(fileName, size);
+            if (session.isComplete()) {
+                metadataCache.precompute(session.getFileName());
+            }
+            return generateResponse(session);
+        } catch (UploadSizeExceededException e) {
+            return Response.status(413).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Response.serverError().build();
+    }
+
+    /**
+     * Gets upload session, used by client to find out offset to resume from.
+     * @param sessionId the session id
+     * @return the response with upload session
      */
     @GET
-    @Produces("image/png")
-    @Path("/Uploads/images/{filename}")
-    public Response mainHandler(@PathParam("filename") String filename) {
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/Controllers/UploadSession.ashx/{sessionId}")
+    public Response getUploadSession(@PathParam("sessionId") String sessionId) {
         try {
-            final byte[] bytes = ViewGenerator.loadPageImage(filename);
-            return Response.ok().entity(bytes).build();
+            final UploadSession session = uploadManager.getSession(sessionId);
+            if (session == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return generateResponse(session);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -112,72 +228,783 @@ public class ViewerResource {
     }
 
     /**
-     * Main handler response.
-     * @param request the request
+     * Upload next chunk of the file.
+     * Responds with 409 and current session state if offset does not match already received bytes.
+     * @param sessionId   the session id
+     * @param offset      the offset of the chunk
+     * @param inputStream the chunk content
+     * @return the response with upload session
+     */
+    @PUT
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @Path("/Controllers/UploadSession.ashx/{sessionId}")
+    public Response uploadChunk(@PathParam("sessionId") String sessionId, @QueryParam("offset") long offset, InputStream inputStream) {
+        UploadSession session = null;
+        try {
+            session = uploadManager.getSession(sessionId);
+            if (session == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            uploadManager.appendChunk(session, offset, inputStream);
+            if (session.isComplete()) {
+                metadataCache.precompute(session.getFileName());
+            }
+            return generateResponse(session);
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(session).build();
+        } catch (UploadSizeExceededException e) {
+            return Response.status(413).entity(session).build();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Response.serverError().build();
+    }
+
+    /**
+     * Cancel upload session.
+     * @param sessionId the session id
+     * @return the response
+     */
+    @DELETE
+    @Path("/Controllers/UploadSession.ashx/{sessionId}")
+    public Response cancelUploadSession(@PathParam("sessionId") String sessionId) {
+        try {
+            final UploadSession session = uploadManager.getSession(sessionId);
+            if (session == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            uploadManager.cancelSession(session);
+            return Response.noContent().build();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Response.serverError().build();
+    }
+
+    /**
+     * Document info response: document type, page count and page sizes, so pages can be laid out before rendering.
+     * @param filePath the file path
      * @return the response
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @Path("/Controllers/MainHandler.ashx")
-    public Response mainHandler(@Context HttpServletRequest request) {
+    @Path("/Controllers/DocumentInfo.ashx")
+    public Response documentInfoHandler(@QueryParam("filepath") String filePath) {
         try {
-            final String filePath = request.getParameter("filepath");
-            // Check the action variable in ajax http request
-            if ("renderashtml".equals(request.getParameter("action"))) {
-                // File path is also included in the http request
+            final DocumentMetadata metadata = metadataCache.get(filePath);
+            if (metadata == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return generateResponse(metadata);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return Response.serverError().build();
+    }
 
-                List<HtmlInfo> lstPages = ViewGenerator.renderDocumentAsHtml(filePath, null);
-                return generateResponse(lstPages);
+    /**
+     * One page of a storage directory listing from the file tree index, or from the backend of remote storage.
+     * @param path      the directory relative to storage, root if empty
+     * @param sort      the sort: name, size, modified or type
+     * @param order     the order: asc or desc
+     * @param page      the page number starting from 0
+     * @param pageSize  the page size, at most {@value #MAX_FILE_TREE_PAGE_SIZE}
+     * @return the response
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/Controllers/FileTree.ashx")
+    public Response fileTreeHandler(@QueryParam("path") @DefaultValue("") String path,
+                                    @QueryParam("sort") @DefaultValue("name") String sort,
+                                    @QueryParam("order") @DefaultValue("asc") String order,
+                                    @QueryParam("page") @DefaultValue("0") int page,
+                                    @QueryParam("pageSize") @DefaultValue("100") int pageSize) {
+        final FileTreeIndex.Sort fileSort;
+        try {
+            fileSort = FileTreeIndex.Sort.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        if (page < 0 || pageSize <= 0 || pageSize > MAX_FILE_TREE_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        final StorageBackend backend = ViewGenerator.getStorageBackend();
+        final FileTreePage result;
+        if (backend != null && backend.isRemote()) {
+            try {
+                result = FileTreeIndex.paginate(path, backend.list(path), fileSort, !"desc".equalsIgnoreCase(order), page, pageSize);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Response.status(Response.Status.BAD_GATEWAY).build();
+            }
+        } else {
+            result = fileTreeIndex.list(path, fileSort, !"desc".equalsIgnoreCase(order), page, pageSize);
+        }
+        if (result == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return generateResponse(result);
+    }
 
-            } else if ("renderashtmlwithwatermark".equals(request.getParameter("action"))) {
+    /**
+     * Main handler response.
+     * @param filename the filename
+     * @param response the servlet response the image is written to
+     * @return the response
+     */
+    @GET
+    @Produces("image/png")
+    @Path("/Uploads/images/{filename}")
+    public Response mainHandler(@PathParam("filename") String filename, @Context final HttpServletResponse response) {
+        final File image = ViewGenerator.getPageImage(filename);
+        if (image == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        final StreamingOutput stream = new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                // Flushing commits the headers, then the body goes straight to Jetty output from direct buffers
+                output.flush();
+                final FileInputStream input = new FileInputStream(image);
+                try {
+                    DirectBufferPool.getDefault().copy(input.getChannel(), response.getOutputStream());
+                } finally {
+                    input.close();
+                }
+            }
+        };
+        return Response.ok(stream).header(HttpHeaders.CONTENT_LENGTH, image.length()).build();
+    }
 
-                String WatermarkText = request.getParameter("watermark");
-                List<HtmlInfo> lstPages = ViewGenerator.renderDocumentAsHtml(filePath, WatermarkText, Color.RED, 100, null);
-                return generateResponse(lstPages);
-            } else if ("renderashtmlwithreorder".equals(request.getParameter("action"))) {
+    /**
+     * Download the document as it is.
+     * Range and conditional requests are answered against the document version, requests above the rate limit of the client get 429.
+     * @param filePath       the file path
+     * @param request        the request
+     * @param servletRequest the servlet request
+     * @param response       the servlet response the document is written to
+     * @return the response
+     */
+    @GET
+    @Path("/Controllers/Download.ashx/original")
+    public Response downloadOriginal(@QueryParam("filepath") final String filePath, @Context Request request,
+                                     @Context HttpServletRequest servletRequest, @Context HttpServletResponse response) {
+        final Response limited = checkRateLimit(clientOf(servletRequest));
+        if (limited != null) {
+            return limited;
+        }
+        final FileDescription description = ViewGenerator.getFileDescription(filePath);
+        if (description == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        final String fileName = FilenameUtils.getName(filePath);
+        final String contentType = URLConnection.guessContentTypeFromName(fileName);
+        final EntityTag etag = new EntityTag(ViewGenerator.getDocumentVersion(filePath));
+        return download(request, servletRequest, response, etag, description.getLastModificationDate(), description.getSize(),
+                fileName, contentType == null ? MediaType.APPLICATION_OCTET_STREAM : contentType, new Callable<InputStream>() {
+                    @Override
+                    public InputStream call() throws Exception {
+                        return ViewGenerator.renderDocumentAsOriginal(filePath).getStream();
+                    }
+                });
+    }
 
-                int startIndex = Integer.parseInt(request.getParameter("start"));
-                int newIndex = Integer.parseInt(request.getParameter("new"));
-                List<HtmlInfo> lstPages = ViewGenerator.renderDocumentAsHtml(filePath, startIndex, newIndex + 1, null);
-                return generateResponse(lstPages);
-            } else if ("renderashtmlwithrotate".equals(request.getParameter("action"))) {
+    /**
+     * Download the document in PDF form.
+     * The PDF is converted once per document version in render pool like a render, with deadline, cancellation on disconnect
+     * and the rate limit of the client; later downloads and ranges are served from cache.
+     * @param filePath       the file path
+     * @param request        the request
+     * @param servletRequest the servlet request
+     * @param response       the servlet response the pdf is written to
+     * @param asyncResponse  the async response
+     */
+    @GET
+    @Path("/Controllers/Download.ashx/pdf")
+    public void downloadPdf(@QueryParam("filepath") final String filePath, @Context final Request request,
+                            @Context final HttpServletRequest servletRequest, @Context final HttpServletResponse response,
+                            @Suspended final AsyncResponse asyncResponse) {
+        final String clientId = clientOf(servletRequest);
+        final Response limited = checkRateLimit(clientId);
+        if (limited != null) {
+            asyncResponse.resume(limited);
+            return;
+        }
+        final File cached = ViewGenerator.getPdfCache().getCachedPdf(filePath);
+        if (cached != null) {
+            asyncResponse.resume(pdfDownload(filePath, cached, request, servletRequest, response));
+            return;
+        }
+        final RenderToken token = renderService.newToken(clientId, rateLimiter.getWeight(clientId), null);
+        cancelOnTimeoutOrDisconnect(asyncResponse, token);
+        // The whole document is converted, it must not delay first pages of documents being opened
+        Futures.addCallback(renderService.submitPdf(filePath, token, RenderPriority.REMAINING_PAGES), new FutureCallback<File>() {
+            @Override
+            public void onSuccess(File pdf) {
+                asyncResponse.resume(pdf == null
+                        ? Response.status(Response.Status.NOT_FOUND).build()
+                        : pdfDownload(filePath, pdf, request, servletRequest, response));
+            }
 
-                int pageId = Integer.parseInt(request.getParameter("page"));
-                int angle = Integer.parseInt(request.getParameter("angle"));
-                List<HtmlInfo> lstPages = ViewGenerator.rotateDocumentAsHtml(filePath, pageId, angle, null);
-                return generateResponse(lstPages);
+            @Override
+            public void onFailure(Throwable e) {
+                asyncResponse.resume(toErrorResponse(e));
             }
-            if ("renderasimage".equals(request.getParameter("action"))) {
-                // File path is also included in the http request
+        });
+    }
 
-                List<ImageInfo> lstPages = ViewGenerator.renderDocumentAsImages(filePath, null);
-                return generateResponse(lstPages);
+    private Response pdfDownload(String filePath, final File pdf, Request request, HttpServletRequest servletRequest,
+                                 HttpServletResponse response) {
+        // Name of cached pdf is made of guid and version of the document
+        final EntityTag etag = new EntityTag(FilenameUtils.getBaseName(pdf.getName()));
+        return download(request, servletRequest, response, etag, new Date(pdf.lastModified()), pdf.length(),
+                FilenameUtils.getBaseName(filePath) + ".pdf", "application/pdf", new Callable<InputStream>() {
+                    @Override
+                    public InputStream call() throws Exception {
+                        return new FileInputStream(pdf);
+                    }
+                });
+    }
 
-            } else if ("renderasimagewithwatermark".equals(request.getParameter("action"))) {
+    /**
+     * Main handler response.
+     * The render runs in render pool and is cancelled when client disconnects, cancels it or deadline passes.
+     * Requests above the rate limit of the client are rejected with 429.
+     * Instead of filepath the document may be given by url, it is fetched to local cache and rendered by its local guid.
+     * Html responses are cached serialized per document version and answered from cache with their ETag, 304 when the client has them.
+     * @param request        the request
+     * @param servletRequest the servlet request
+     * @param asyncResponse  the async response
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/Controllers/MainHandler.ashx")
+    public void mainHandler(@Context Request request, @Context HttpServletRequest servletRequest,
+                            @Suspended AsyncResponse asyncResponse) {
+        render(request, servletRequest, asyncResponse, false);
+    }
 
-                String WatermarkText = request.getParameter("watermark");
-                List<ImageInfo> lstPages = ViewGenerator.renderDocumentAsImages(filePath, WatermarkText, Color.RED, 100, null);
-                return generateResponse(lstPages);
-            } else if ("renderasimagewithreorder".equals(request.getParameter("action"))) {
+    /**
+     * Main handler response as multipart/mixed, for clients asking for it in Accept; JSON stays the default.
+     * Every page is one part with its page number in X-Page-Number: raw html of the page, or bytes of the page image,
+     * so html is not escaped into JSON strings and image pages need no request per image.
+     * Responses are not cached like JSON ones, image parts are read from rendered page images.
+     * @param request        the request
+     * @param servletRequest the servlet request
+     * @param asyncResponse  the async response
+     */
+    @GET
+    @Produces(MultiPartMediaTypes.MULTIPART_MIXED + ";qs=0.5")
+    @Path("/Controllers/MainHandler.ashx")
+    public void mainHandlerMultipart(@Context Request request, @Context HttpServletRequest servletRequest,
+                                     @Suspended AsyncResponse asyncResponse) {
+        render(request, servletRequest, asyncResponse, true);
+    }
 
-                int startIndex = Integer.parseInt(request.getParameter("start"));
-                int newIndex = Integer.parseInt(request.getParameter("new"));
-                List<ImageInfo> lstPages = ViewGenerator.renderDocumentAsImages(filePath, startIndex, newIndex + 1, null);
-                return generateResponse(lstPages);
-            } else if ("renderasimagewithrotate".equals(request.getParameter("action"))) {
+    private void render(final Request request, final HttpServletRequest servletRequest, final AsyncResponse asyncResponse,
+                        final boolean multipart) {
+        // Check the action variable in ajax http request
+        final RenderRequest renderRequest = toRenderRequest(servletRequest);
+        final String clientId = clientOf(servletRequest);
+        final Response limited = checkRateLimit(clientId);
+        if (limited != null) {
+            asyncResponse.resume(limited);
+            return;
+        }
+        final Response unresolved = resolveUrl(renderRequest, servletRequest.getParameter("url"));
+        if (unresolved != null) {
+            asyncResponse.resume(unresolved);
+            return;
+        }
+        final String cacheKey = responseCache == null || multipart ? null : responseCache.getKey(renderRequest);
+        if (cacheKey != null) {
+            final CachedResponse cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                asyncResponse.resume(toResponse(cached, request, servletRequest));
+                return;
+            }
+        }
+        final RenderToken token = renderService.newToken(clientId, rateLimiter.getWeight(clientId), servletRequest.getParameter("renderId"));
+        final RenderProfile profile = RenderProfiler.profile(renderRequest.getAction(), renderRequest.getFilePath());
+        cancelOnTimeoutOrDisconnect(asyncResponse, token);
 
-                int pageId = Integer.parseInt(request.getParameter("page"));
-                int angle = Integer.parseInt(request.getParameter("angle"));
-                List<ImageInfo> lstPages = ViewGenerator.rotateDocumentAsImages(filePath, pageId, angle, null);
-                return generateResponse(lstPages);
+        Futures.addCallback(submitByPriority(renderRequest, token), new FutureCallback<List<?>>() {
+            @Override
+            public void onSuccess(List<?> lstPages) {
+                renderService.release(token);
+                if (multipart) {
+                    asyncResponse.resume(Response.ok(toMultiPart(lstPages), MultiPartMediaTypes.MULTIPART_MIXED_TYPE).build());
+                    return;
+                }
+                if (cacheKey == null) {
+                    asyncResponse.resume(Response.ok(toJson(lstPages, profile), MediaType.APPLICATION_JSON_TYPE).build());
+                    return;
+                }
+                final byte[] json;
+                try {
+                    json = toJsonBytes(lstPages, profile);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    asyncResponse.resume(Response.serverError().build());
+                    return;
+                }
+                final CachedResponse cached = responseCache.put(cacheKey, renderRequest.getFilePath(), json);
+                asyncResponse.resume(toResponse(cached, request, servletRequest));
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                renderService.release(token);
+                asyncResponse.resume(toErrorResponse(e));
+            }
+        });
+    }
+
+    /**
+     * Render is cancelled when the deadline passes, the client gets 503 then, or when the client disconnects.
+     */
+    private void cancelOnTimeoutOrDisconnect(AsyncResponse asyncResponse, final RenderToken token) {
+        asyncResponse.setTimeout(renderService.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+            @Override
+            public void handleTimeout(AsyncResponse response) {
+                token.cancel(RenderToken.Reason.TIMED_OUT);
+                response.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
             }
+        });
+        asyncResponse.register(new ConnectionCallback() {
+            @Override
+            public void onDisconnect(AsyncResponse response) {
+                token.cancel(RenderToken.Reason.DISCONNECTED);
+            }
+        });
+    }
+
+    private static Response toErrorResponse(Throwable e) {
+        if (e instanceof RenderCancelledException) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        }
+        if (e instanceof IllegalArgumentException) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        e.printStackTrace();
+        return Response.serverError().build();
+    }
 
+    /**
+     * Cancel render started by the same client with the given render id.
+     * @param renderId the render id
+     * @param request  the request
+     * @return the response
+     */
+    @POST
+    @Path("/Controllers/CancelRender.ashx")
+    public Response cancelRenderHandler(@QueryParam("renderId") String renderId, @Context HttpServletRequest request) {
+        if (renderService.cancel(clientOf(request), renderId)) {
+            return Response.noContent().build();
+        }
+        return Response.status(Response.Status.NOT_FOUND).build();
+    }
+
+    /**
+     * Progressive rendering: Server-Sent Events stream emitting every page as soon as it is rendered.
+     * Events are {@code info} (document metadata), {@code page} (one page), {@code done} and {@code error}.
+     * @param action   the action, renderashtml or renderasimage
+     * @param filePath the file path
+     * @param url      the url of document instead of file path
+     * @param renderId the render id, may be used to cancel the render
+     * @param request  the request
+     * @return the response
+     */
+    @GET
+    @Produces("text/event-stream")
+    @Path("/Controllers/MainHandler.ashx/stream")
+    public Response streamHandler(@QueryParam("action") final String action, @QueryParam("filepath") String filePath,
+                                  @QueryParam("url") String url, @QueryParam("renderId") String renderId,
+                                  @Context HttpServletRequest request) {
+        if (!"renderashtml".equals(action) && !"renderasimage".equals(action)) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        final String clientId = clientOf(request);
+        final Response limited = checkRateLimit(clientId);
+        if (limited != null) {
+            return limited;
+        }
+        final RenderRequest documentRequest = new RenderRequest(action, filePath);
+        final Response unresolved = resolveUrl(documentRequest, url);
+        if (unresolved != null) {
+            return unresolved;
+        }
+        final String guid = documentRequest.getFilePath();
+        final DocumentMetadata metadata;
+        try {
+            metadata = metadataCache.get(guid);
+            if (metadata == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
         } catch (Exception e) {
             e.printStackTrace();
+            return Response.serverError().build();
         }
-        return Response.serverError().build();
+        final RenderToken token = renderService.newToken(clientId, rateLimiter.getWeight(clientId), renderId, 0);
+        final RenderProfile profile = RenderProfiler.profile(action, guid);
+        final StreamingOutput stream = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                try {
+                    writeEvent(output, token, "info", metadata, null);
+                    // First page alone so it is shown almost immediately, then batches of growing size
+                    int batch = 1;
+                    for (int page = 1; page <= metadata.getPageCount(); page += batch, batch = Math.min(batch * 2, MAX_STREAM_BATCH_PAGES)) {
+                        final RenderRequest batchRequest = new RenderRequest(action + "range", guid)
+                                .setParameter("start", String.valueOf(page))
+                                .setParameter("count", String.valueOf(Math.min(batch, metadata.getPageCount() - page + 1)));
+                        final List<?> pages = getResult(renderService.submit(batchRequest, token, priorityOf(batchRequest)));
+                        for (Object pageInfo : pages) {
+                            writeEvent(output, token, "page", pageInfo, profile);
+                        }
+                        token.checkpoint(pages.size());
+                    }
+                    writeEvent(output, token, "done", metadata.getPageCount(), null);
+                } catch (RenderCancelledException e) {
+                    // Client went away or cancelled the render, nothing to send
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    try {
+                        writeEvent(output, token, "error", e.getMessage(), null);
+                    } catch (RenderCancelledException ignored) {
+                        // Client went away
+                    }
+                } finally {
+                    renderService.release(token);
+                }
+            }
+        };
+        return Response.ok(stream)
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .build();
+    }
+
+    /**
+     * Write Server-Sent Event, serialization of pages is timed as stage of the render with the profile.
+     */
+    private void writeEvent(OutputStream output, RenderToken token, String event, Object data, RenderProfile profile) throws IOException {
+        try {
+            output.write(("event: " + event + "\ndata: ").getBytes(UTF_8));
+            final RenderProfiler.Span span = profile == null ? null : RenderProfiler.begin(RenderStage.SERIALIZE, profile);
+            try {
+                output.write(objectMapper.writeValueAsBytes(data));
+            } finally {
+                if (span != null) {
+                    span.end();
+                }
+            }
+            output.write("\n\n".getBytes(UTF_8));
+            output.flush();
+        } catch (IOException e) {
+            // Writing fails once client has closed the connection - stop rendering
+            token.cancel(RenderToken.Reason.DISCONNECTED);
+            token.checkpoint(0);
+            throw e;
+        }
+    }
+
+    /**
+     * Pages are serialized straight to the response, serialization is timed as stage of the render.
+     */
+    private StreamingOutput toJson(final List<?> pages, final RenderProfile profile) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.SERIALIZE, profile);
+                try {
+                    objectMapper.writeValue(output, pages);
+                } finally {
+                    span.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Pages are serialized for the response cache, serialization is timed as stage of the render.
+     */
+    private byte[] toJsonBytes(List<?> pages, RenderProfile profile) throws IOException {
+        final RenderProfiler.Span span = RenderProfiler.begin(RenderStage.SERIALIZE, profile);
+        try {
+            return objectMapper.writeValueAsBytes(pages);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * One part per page, image parts are written from the page image file by the multipart writer.
+     */
+    private static MultiPart toMultiPart(List<?> pages) {
+        final MultiPart multiPart = new MultiPart(MultiPartMediaTypes.MULTIPART_MIXED_TYPE);
+        for (Object page : pages) {
+            final BodyPart part;
+            final int pageNumber;
+            if (page instanceof ImageInfo) {
+                final ImageInfo imageInfo = (ImageInfo) page;
+                final File image = ViewGenerator.getPageImage(imageNameOf(imageInfo.getImageUrl()));
+                part = image != null
+                        ? new BodyPart(image, IMAGE_PNG)
+                        : new BodyPart(imageInfo.getHtmlContent().getBytes(UTF_8), TEXT_HTML_UTF_8);
+                pageNumber = imageInfo.getPageNmber();
+            } else {
+                final HtmlInfo htmlInfo = (HtmlInfo) page;
+                part = new BodyPart(htmlInfo.getHtmlContent().getBytes(UTF_8), TEXT_HTML_UTF_8);
+                pageNumber = htmlInfo.getPageNmber();
+            }
+            part.getHeaders().putSingle("X-Page-Number", String.valueOf(pageNumber));
+            multiPart.bodyPart(part);
+        }
+        return multiPart;
+    }
+
+    /**
+     * Name of page image in its url, the query only busts browser cache.
+     */
+    private static String imageNameOf(String imageUrl) {
+        final int query = imageUrl.indexOf('?');
+        return imageUrl.substring(imageUrl.lastIndexOf('/') + 1, query < 0 ? imageUrl.length() : query);
+    }
+
+    /**
+     * Cached response is sent as it is, compressed when client accepts gzip, or 304 if client already has it.
+     * Clients revalidate it on every use, so they never show pages of a previous document version.
+     */
+    private static Response toResponse(CachedResponse cached, Request request, HttpServletRequest servletRequest) {
+        // Weak, as the same tag is sent for compressed and plain body
+        final EntityTag etag = new EntityTag(cached.getEtag(), true);
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified
+                    .header("Cache-Control", "no-cache")
+                    .header("Vary", "Accept-Encoding")
+                    .build();
+        }
+        final boolean compressed = cached.getGzip() != null && acceptsGzip(servletRequest.getHeader("Accept-Encoding"));
+        final byte[] body = compressed ? cached.getGzip() : cached.getJson();
+        final Response.ResponseBuilder builder = Response.ok(body, MediaType.APPLICATION_JSON_TYPE)
+                .tag(etag)
+                .header("Cache-Control", "no-cache")
+                .header("Vary", "Accept-Encoding")
+                .header(HttpHeaders.CONTENT_LENGTH, body.length);
+        if (compressed) {
+            // Gzip handler of the server leaves responses with Content-Encoding as they are
+            builder.header("Content-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        return rateLimiter.identify(request.getHeader(rateLimiter.getApiKeyHeader()), request.getRemoteAddr());
+    }
+
+    /**
+     * Take a token of the client, returns 429 response with Retry-After when bucket is empty.
+     */
+    private Response checkRateLimit(String clientId) {
+        final long waitMillis = rateLimiter.tryAcquire(clientId);
+        if (waitMillis == 0) {
+            return null;
+        }
+        return Response.status(429)
+                .header("Retry-After", String.valueOf((waitMillis + 999) / 1000))
+                .build();
+    }
+
+    /**
+     * Fetch document given by url and render its local copy, returns error response when it can't be fetched.
+     */
+    private Response resolveUrl(RenderRequest renderRequest, String url) {
+        if (url == null || url.isEmpty() || (renderRequest.getFilePath() != null && !renderRequest.getFilePath().isEmpty())) {
+            return null;
+        }
+        if (remoteFetcher == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Rendering of remote documents is disabled").build();
+        }
+        try {
+            renderRequest.setFilePath(remoteFetcher.resolve(url));
+            return null;
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Response.status(502).build();
+        }
+    }
+
+    /**
+     * Stream content or its requested range to the response, answers 304/412 to conditional requests and 416 to ranges out of content.
+     * Content is opened only when the body is written and goes to Jetty output from direct buffers.
+     */
+    private Response download(Request request, HttpServletRequest servletRequest, final HttpServletResponse response,
+                              EntityTag etag, Date lastModified, final long length, String fileName, String contentType,
+                              final Callable<InputStream> content) {
+        final Response.ResponseBuilder precondition = request.evaluatePreconditions(lastModified, etag);
+        if (precondition != null) {
+            return precondition.tag(etag).build();
+        }
+        final ByteRange range = isRangeCurrent(servletRequest, etag, lastModified)
+                ? ByteRange.parse(servletRequest.getHeader("Range"), length) : null;
+        if (range == ByteRange.UNSATISFIABLE) {
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + length)
+                    .build();
+        }
+        final long first = range == null ? 0 : range.getFirst();
+        final long count = range == null ? length : range.getLength();
+        final StreamingOutput stream = new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                output.flush();
+                final InputStream input;
+                try {
+                    input = content.call();
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+                try {
+                    DirectBufferPool.getDefault().copy(openAt(input, first), response.getOutputStream(), count);
+                } finally {
+                    input.close();
+                }
+            }
+        };
+        final Response.ResponseBuilder builder = range == null
+                ? Response.ok(stream)
+                : Response.status(Response.Status.PARTIAL_CONTENT).entity(stream).header("Content-Range", range.toContentRange(length));
+        return builder.type(contentType)
+                .tag(etag)
+                .lastModified(lastModified)
+                .header("Accept-Ranges", "bytes")
+                .header(HttpHeaders.CONTENT_LENGTH, count)
+                .header("Content-Disposition", contentDisposition(fileName))
+                .build();
     }
 
+    /**
+     * Range is honoured only when If-Range is absent or still matches the content, otherwise the whole content is sent.
+     */
+    private static boolean isRangeCurrent(HttpServletRequest request, EntityTag etag, Date lastModified) {
+        final String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag.toString());
+        }
+        try {
+            return request.getDateHeader("If-Range") / 1000 == lastModified.getTime() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Position stream at the first byte to send, files are positioned without reading the skipped part.
+     */
+    private static ReadableByteChannel openAt(InputStream input, long position) throws IOException {
+        if (input instanceof FileInputStream) {
+            return ((FileInputStream) input).getChannel().position(position);
+        }
+        IOUtils.skipFully(input, position);
+        return Channels.newChannel(input);
+    }
+
+    private static String contentDisposition(String fileName) {
+        final String encoded;
+        try {
+            encoded = URLEncoder.encode(fileName, UTF_8.name()).replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return "attachment; filename=\"" + fileName.replaceAll("[^\\x20-\\x7e]|\"", "_") + "\"; filename*=UTF-8''" + encoded;
+    }
+
+    /**
+     * Full render of a document whose page count is known is split into ranges, so its first pages are interactive
+     * and the rest are rendered when interactive work is done. Watermarked and transformed renders have no range action,
+     * they stay interactive as a whole, as do documents whose metadata is not computed yet.
+     */
+    private ListenableFuture<List<?>> submitByPriority(RenderRequest request, RenderToken token) {
+        final String action = request.getAction();
+        final DocumentMetadata metadata = "renderashtml".equals(action) || "renderasimage".equals(action)
+                ? metadataCache.getIfCurrent(request.getFilePath()) : null;
+        if (metadata == null || metadata.getPageCount() <= INTERACTIVE_PAGES) {
+            return renderService.submit(request, token, priorityOf(request));
+        }
+        final RenderRequest first = new RenderRequest(action + "range", request.getFilePath())
+                .setParameter("start", "1")
+                .setParameter("count", String.valueOf(INTERACTIVE_PAGES));
+        final RenderRequest remaining = new RenderRequest(action + "range", request.getFilePath())
+                .setParameter("start", String.valueOf(INTERACTIVE_PAGES + 1))
+                .setParameter("count", String.valueOf(metadata.getPageCount() - INTERACTIVE_PAGES));
+        return Futures.transform(Futures.<List<?>>allAsList(renderService.submit(first, token, priorityOf(first)),
+                renderService.submit(remaining, token, priorityOf(remaining))), new Function<List<List<?>>, List<?>>() {
+            @Override
+            public List<?> apply(List<List<?>> ranges) {
+                final List<Object> pages = new ArrayList<Object>();
+                for (List<?> range : ranges) {
+                    pages.addAll(range);
+                }
+                return pages;
+            }
+        });
+    }
+
+    /**
+     * First pages of a document are interactive, the rest are rendered when interactive work is done.
+     */
+    private static RenderPriority priorityOf(RenderRequest request) {
+        final String start = request.getParameter("start");
+        if (request.getAction() != null && request.getAction().endsWith("range") && start != null && !"1".equals(start)) {
+            return RenderPriority.REMAINING_PAGES;
+        }
+        return RenderPriority.INTERACTIVE;
+    }
+
+    private static <T> T getResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static RenderRequest toRenderRequest(HttpServletRequest request) {
+        final RenderRequest renderRequest = new RenderRequest(request.getParameter("action"), request.getParameter("filepath"));
+        final Enumeration<String> names = request.getParameterNames();
+        while (names.hasMoreElements()) {
+            final String name = names.nextElement();
+            // jQuery cache buster and render id do not change what is rendered
+            if (!"action".equals(name) && !"filepath".equals(name) && !"renderId".equals(name) && !"url".equals(name) && !"_".equals(name)) {
+                renderRequest.setParameter(name, request.getParameter(name));
+            }
+        }
+        return renderRequest;
+    }
 
     /**
      * Generate response response.
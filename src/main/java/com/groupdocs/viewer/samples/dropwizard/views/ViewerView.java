@@ -11,14 +11,20 @@ import java.nio.charset.Charset;
  */
 public class ViewerView extends View {
     private String contextPath;
+    private int prefetchPages;
+    private int retainPages;
 
     /**
      * Instantiates a new Viewer view.
-     * @param contextPath the context path
+     * @param contextPath   the context path
+     * @param prefetchPages the count of pages to load ahead in lazy mode
+     * @param retainPages   the distance in pages after which pages are unloaded in lazy mode
      */
-    public ViewerView(String contextPath) {
+    public ViewerView(String contextPath, int prefetchPages, int retainPages) {
         super("viewer.ftl", Charset.forName("UTF-8"));
         this.contextPath = contextPath == null || contextPath.isEmpty() ? "" : contextPath.endsWith("/") ? contextPath : contextPath + "/";
+        this.prefetchPages = prefetchPages;
+        this.retainPages = retainPages;
     }
 
     /**
@@ -28,4 +34,20 @@ public class ViewerView extends View {
     public String getContextPath() {
         return contextPath;
     }
+
+    /**
+     * Gets prefetch pages.
+     * @return the prefetch pages
+     */
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    /**
+     * Gets retain pages.
+     * @return the retain pages
+     */
+    public int getRetainPages() {
+        return retainPages;
+    }
 }
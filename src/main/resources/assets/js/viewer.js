@@ -91,12 +91,28 @@ $(function () {
 
     });
 
+    $('#btnPDF').click(function (e) {
+        e.preventDefault();
+        var guid = $('#hfguid').val();
+        if (guid == "") {
+            alert('Please load a document first');
+            return;
+        }
+        // The browser downloads the file itself, it is streamed and never kept in page memory
+        window.location.href = 'Controllers/Download.ashx/pdf?filepath=' + encodeURIComponent(guid);
+    });
+
     $('#btnRender').click(function (e) {
         e.preventDefault();
         reset();
         // Get the file from File upload
         var fileUpload = $("#inputFile").get(0);
         var files = fileUpload.files;
+        if (files.length == 1 && files[0].size > UPLOAD_CHUNK_SIZE) {
+            // Big files are sent in chunks, so broken connection does not restart upload from zero
+            UploadResumable(files[0], OnUploaded, onUploadFail);
+            return;
+        }
         var test = new FormData();
         for (var i = 0; i < files.length; i++) {
             test.append(files[i].name, files[i]);
@@ -108,35 +124,132 @@ $(function () {
             contentType: false,
             processData: false,
             data: test,
-            success: function (result) {
+            success: OnUploaded,
+            error: onUploadFail
+        });
+    });
+});
+
 
-                $('#hfguid').val(result);
 
-                var param = ""
-                if ($('input[name="RenderOptions"]:checked').val() == "html")
-                    param = 'action=renderashtml&filepath=' + result;
-                else
-                    param = 'action=renderasimage&filepath=' + result;
+var UPLOAD_CHUNK_SIZE = 4 * 1024 * 1024;
+var UPLOAD_MAX_RETRIES = 5;
 
+function OnUploaded(result) {
 
-                Render(param);
-            },
-            error: function (err) {
-                if (err.status == 422)
-                    alert('Please upload a valid file');
-                else
-                    alert(err.statusText);
+    $('#hfguid').val(result);
+
+    if ($('#chkLazy').is(":checked")) {
+        RenderLazy(result, $('input[name="RenderOptions"]:checked').val());
+        return;
+    }
+    if ($('#chkStream').is(":checked") && window.EventSource) {
+        RenderProgressive(result, $('input[name="RenderOptions"]:checked').val());
+        return;
+    }
+
+    var param = ""
+    if ($('input[name="RenderOptions"]:checked').val() == "html")
+        param = 'action=renderashtml&filepath=' + result;
+    else
+        param = 'action=renderasimage&filepath=' + result;
+
+
+    Render(param);
+}
+
+function onUploadFail(err) {
+    if (err.status == 422)
+        alert('Please upload a valid file');
+    else if (err.status == 413)
+        alert('File is too large');
+    else
+        alert(err.statusText);
+}
+
+function UploadResumable(file, onDone, onError) {
+    $.ajax({
+        url: "Controllers/UploadSession.ashx?filename=" + encodeURIComponent(file.name) + "&size=" + file.size,
+        type: "POST",
+        dataType: "json",
+        success: function (session) {
+            UploadChunk(file, session, 0, onDone, onError);
+        },
+        error: onError
+    });
+}
+
+function UploadChunk(file, session, retries, onDone, onError) {
+    if (session.complete) {
+        onDone(session.fileName);
+        return;
+    }
+    $('.viewer').text('Uploading... ' + Math.floor(session.offset * 100 / file.size) + '%');
+    var end = Math.min(session.offset + UPLOAD_CHUNK_SIZE, file.size);
+    $.ajax({
+        url: "Controllers/UploadSession.ashx/" + session.sessionId + "?offset=" + session.offset,
+        type: "PUT",
+        contentType: "application/octet-stream",
+        processData: false,
+        dataType: "json",
+        data: file.slice(session.offset, end),
+        success: function (next) {
+            UploadChunk(file, next, 0, onDone, onError);
+        },
+        error: function (err) {
+            if (err.status == 413 || err.status == 404 || retries >= UPLOAD_MAX_RETRIES) {
+                onError(err);
+                return;
             }
-        });
+            // Ask server how much was received and resume from there
+            setTimeout(function () {
+                $.ajax({
+                    url: "Controllers/UploadSession.ashx/" + session.sessionId,
+                    type: "GET",
+                    dataType: "json",
+                    cache: false,
+                    success: function (current) {
+                        UploadChunk(file, current, retries + 1, onDone, onError);
+                    },
+                    error: function () {
+                        UploadChunk(file, session, retries + 1, onDone, onError);
+                    }
+                });
+            }, 1000 * (retries + 1));
+        }
     });
-});
+}
 
+// Id of the render in progress, server aborts it when asked to cancel
+var currentRender = null;
 
+function NewRenderId() {
+    CancelCurrentRender();
+    currentRender = {id: new Date().getTime().toString(36) + Math.random().toString(36).substring(2)};
+    return currentRender.id;
+}
+
+function CancelCurrentRender() {
+    if (currentRender == null)
+        return;
+    if (currentRender.xhr)
+        currentRender.xhr.abort();
+    var url = "Controllers/CancelRender.ashx?renderId=" + currentRender.id;
+    if (navigator.sendBeacon)
+        navigator.sendBeacon(url);
+    else
+        $.ajax({url: url, type: "POST"});
+    currentRender = null;
+}
+
+$(window).on('pagehide', CancelCurrentRender);
 
 function Render(param) {
 
+    param += '&renderId=' + NewRenderId();
+    var render = currentRender;
     // make an ajax request to retrieve convert and retrieve the HTML text of uploaded word document.
-    $.ajax({
+    render.xhr = $.ajax({
         url: "Controllers/MainHandler.ashx",
         contentType: "application/json; charset=utf-8",
         dataType: "json",
@@ -145,11 +258,220 @@ function Render(param) {
         responseType: "json",
         beforeSend: onProgress,
         success: GenerateHtml,
+        complete: function () {
+            if (currentRender == render)
+                currentRender = null;
+            onComplete();
+        },
+        error: function (err) {
+            if (err.statusText != 'abort')
+                onFail(err);
+        }
+    });
+
+    return false;
+}
+
+// Lazy (virtualized) viewer: placeholders for all pages, content is loaded only for pages near the viewport
+var lazyViewer = null;
+var LAZY_MAX_PAGES_PER_REQUEST = 5;
+var LAZY_DEFAULT_ASPECT_RATIO = 1.414;
+var LAZY_MAX_RETRIES = 5;
+
+function RenderLazy(guid, mode) {
+    StopProgressive();
+    $.ajax({
+        url: "Controllers/DocumentInfo.ashx",
+        dataType: "json",
+        cache: false,
+        data: {filepath: guid},
+        beforeSend: onProgress,
+        success: function (info) {
+            var viewer = $('.viewer');
+            lazyViewer = {
+                guid: guid,
+                version: info.version,
+                mode: mode,
+                prefetch: parseInt(viewer.data('prefetch')) || 0,
+                retain: parseInt(viewer.data('retain')) || 0,
+                loaded: {},
+                loading: {},
+                failed: {}
+            };
+            viewer.text('');
+            viewer.scrollTop(0);
+            $('#reorderable').empty();
+            var width = viewer.width();
+            $(info.pages).each(function () {
+                var ratio = this.width > 0 && this.height > 0 ? this.height / this.width : LAZY_DEFAULT_ASPECT_RATIO;
+                viewer.append('<div class="page_placeholder" data-page="' + this.number + '" style="height:' + Math.round(width * ratio) + 'px"></div>');
+                $('#reorderable').append('<li id="' + this.number + '" >' + this.number + '</li>');
+            });
+            viewer.off('scroll.lazy').on('scroll.lazy', onLazyScroll);
+            LoadVisiblePages();
+        },
         complete: onComplete,
         error: onFail
     });
+}
 
-    return false;
+function onLazyScroll() {
+    if (lazyViewer == null || lazyViewer.timer)
+        return;
+    lazyViewer.timer = setTimeout(function () {
+        if (lazyViewer == null)
+            return;
+        lazyViewer.timer = null;
+        LoadVisiblePages();
+    }, 100);
+}
+
+function LoadVisiblePages() {
+    var viewer = $('.viewer');
+    var top = viewer.scrollTop();
+    var bottom = top + viewer.innerHeight();
+    var placeholders = viewer.children('.page_placeholder');
+    var first = -1, last = -1;
+    placeholders.each(function (index) {
+        if (this.offsetTop < bottom && this.offsetTop + this.offsetHeight > top) {
+            if (first < 0)
+                first = index;
+            last = index;
+        }
+    });
+    if (first < 0)
+        return;
+
+    // Unload pages which are far away from the viewport, keeping their size so scroll position does not jump
+    placeholders.each(function (index) {
+        var page = $(this).data('page');
+        if (lazyViewer.loaded[page] && (index < first - lazyViewer.retain || index > last + lazyViewer.retain)) {
+            $(this).css('height', this.offsetHeight + 'px').empty();
+            delete lazyViewer.loaded[page];
+        }
+    });
+
+    // Request missing pages around the viewport in contiguous ranges
+    var from = Math.max(0, first - lazyViewer.prefetch);
+    var to = Math.min(placeholders.length - 1, last + lazyViewer.prefetch);
+    var rangeStart = -1, rangeCount = 0;
+    for (var i = from; i <= to + 1; i++) {
+        var page = i <= to ? $(placeholders[i]).data('page') : -1;
+        var missing = page > 0 && !lazyViewer.loaded[page] && !lazyViewer.loading[page] && !lazyViewer.failed[page];
+        if (missing && rangeStart > 0 && page == rangeStart + rangeCount && rangeCount < LAZY_MAX_PAGES_PER_REQUEST) {
+            rangeCount++;
+            continue;
+        }
+        if (rangeStart > 0)
+            LoadPageRange(rangeStart, rangeCount);
+        rangeStart = missing ? page : -1;
+        rangeCount = missing ? 1 : 0;
+    }
+}
+
+function LoadPageRange(start, count, retries) {
+    var state = lazyViewer;
+    retries = retries || 0;
+    for (var i = start; i < start + count; i++) {
+        state.loading[i] = true;
+        delete state.failed[i];
+    }
+    $.ajax({
+        url: "Controllers/MainHandler.ashx",
+        dataType: "json",
+        // Html pages carry an ETag, the browser revalidates them instead of downloading them again
+        cache: state.mode == "html",
+        data: {
+            action: state.mode == "html" ? "renderashtmlrange" : "renderasimagerange",
+            filepath: state.guid,
+            start: start,
+            count: count
+        },
+        success: function (result) {
+            for (var i = start; i < start + count; i++)
+                delete state.loading[i];
+            if (state != lazyViewer)
+                return;
+            $(result).each(function () {
+                var placeholder = $('.viewer .page_placeholder[data-page="' + this.pageNmber + '"]');
+                placeholder.css('height', 'auto').html(this.htmlContent);
+                state.loaded[this.pageNmber] = true;
+            });
+        },
+        error: function (err) {
+            if (state != lazyViewer || err.statusText == 'abort')
+                return;
+            // Server is busy or rate limits the client, pages stay loading until the retry
+            if ((err.status == 429 || err.status == 503) && retries < LAZY_MAX_RETRIES) {
+                var retryAfter = parseInt(err.getResponseHeader('Retry-After'));
+                setTimeout(function () {
+                    if (state == lazyViewer)
+                        LoadPageRange(start, count, retries + 1);
+                }, retryAfter >= 0 ? retryAfter * 1000 : 1000 * Math.pow(2, retries));
+                return;
+            }
+            // Failed pages are not requested again on scroll, only when the user asks to
+            for (var i = start; i < start + count; i++) {
+                delete state.loading[i];
+                state.failed[i] = true;
+                $('.viewer .page_placeholder[data-page="' + i + '"]').html('<div class="alert alert-danger">'
+                    + $('<div/>').text(err.status == 429 ? 'Too many requests' : (err.statusText || 'Error')).html()
+                    + ' <a href="#" class="page_retry">Retry</a></div>');
+            }
+            $('.viewer .page_placeholder .page_retry').off('click').on('click', function (e) {
+                e.preventDefault();
+                var page = $(this).closest('.page_placeholder').data('page');
+                if (lazyViewer != null && lazyViewer.failed[page])
+                    LoadPageRange(page, 1);
+            });
+        }
+    });
+}
+
+// Progressive viewer: pages are appended one by one as server renders them
+var progressSource = null;
+
+function RenderProgressive(guid, mode) {
+    StopProgressive();
+    StopLazy();
+    onProgress();
+    var action = mode == "html" ? "renderashtml" : "renderasimage";
+    var source = new EventSource("Controllers/MainHandler.ashx/stream?action=" + action + "&filepath=" + encodeURIComponent(guid) + "&renderId=" + NewRenderId());
+    progressSource = source;
+    source.addEventListener('info', function () {
+        $('.viewer').text('');
+        $('#reorderable').empty();
+    });
+    source.addEventListener('page', function (e) {
+        var page = JSON.parse(e.data);
+        $('.viewer').append(page.htmlContent);
+        $('#reorderable').append('<li id="' + page.pageNmber + '" >' + page.pageNmber + '</li>');
+    });
+    source.addEventListener('done', function () {
+        StopProgressive();
+        onComplete();
+    });
+    source.addEventListener('error', function (e) {
+        // Either server reported an error or connection was lost - EventSource would reconnect and render again
+        StopProgressive();
+        if (e.data)
+            $('.viewer').append('<div class="alert alert-danger">' + $('<div/>').text(JSON.parse(e.data)).html() + '</div>');
+    });
+}
+
+function StopProgressive() {
+    if (progressSource != null) {
+        progressSource.close();
+        currentRender = null;
+    }
+    progressSource = null;
+}
+
+function StopLazy() {
+    if (lazyViewer != null && lazyViewer.timer)
+        clearTimeout(lazyViewer.timer);
+    lazyViewer = null;
+    $('.viewer').off('scroll.lazy');
 }
 
 function onProgress() {
@@ -158,6 +480,8 @@ function onProgress() {
 }
 function GenerateHtml(result) {
     // in a case of success the returned result would be written in the result box
+    StopLazy();
+    StopProgressive();
     $('.viewer').text('');
     $('#reorderable').empty();
 
@@ -51,6 +51,15 @@
                                 Image
                             </label>
                             <br />
+                            <label class="checkbox-inline">
+                                <input type="checkbox" id="chkLazy" value="lazy">
+                                Load pages on scroll
+                            </label>
+                            <label class="checkbox-inline">
+                                <input type="checkbox" id="chkStream" value="stream">
+                                Show pages as they are rendered
+                            </label>
+                            <br />
                             <label for="inputFile"></label>
                             <input type="file" id="inputFile" style="width: 80%">
                             <br />
@@ -127,7 +136,7 @@
                         <div class="panel-heading">
                             <h3 class="panel-title">Viewer</h3>
                         </div>
-                        <div class="panel-body viewer">
+                        <div class="panel-body viewer" data-prefetch="${prefetchPages?c}" data-retain="${retainPages?c}">
                         </div>
                     </div>
                 </div>
@@ -0,0 +1,214 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.RemoteFetchConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.dropwizard.util.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Fetching from a local HTTP server.
+ */
+public class RemoteDocumentFetcherTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String base;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> ifNoneMatch = new AtomicReference<String>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final CountDownLatch slowStarted = new CountDownLatch(1);
+    private final CountDownLatch slowFinish = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/document.docx", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                ifNoneMatch.set(exchange.getRequestHeaders().getFirst("If-None-Match"));
+                if (status.get() != 200) {
+                    respond(exchange, status.get(), null);
+                } else if ("\"v1\"".equals(ifNoneMatch.get())) {
+                    respond(exchange, 304, null);
+                } else {
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    respond(exchange, 200, "document");
+                }
+            }
+        });
+        server.createContext("/inside", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Location", "/document.docx");
+                respond(exchange, 302, null);
+            }
+        });
+        server.createContext("/outside", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Location", "http://localhost:" + server.getAddress().getPort() + "/document.docx");
+                respond(exchange, 302, null);
+            }
+        });
+        server.createContext("/slow.docx", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                slowStarted.countDown();
+                try {
+                    slowFinish.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 200, "slow");
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        slowFinish.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void notModifiedDocumentReusesCopy() throws Exception {
+        final RemoteDocumentFetcher fetcher = fetcher(Collections.singletonList("127.0.0.1"), 2);
+        final String guid = fetcher.resolve(base + "/document.docx");
+
+        assertEquals(guid, fetcher.resolve(base + "/document.docx"));
+        assertEquals(2, requests.get());
+        assertEquals("\"v1\"", ifNoneMatch.get());
+        assertEquals("document", content(fetcher, guid));
+    }
+
+    @Test
+    public void lastCopyIsRenderedWhenServerFails() throws Exception {
+        final RemoteDocumentFetcher fetcher = fetcher(Collections.singletonList("127.0.0.1"), 2);
+        final String guid = fetcher.resolve(base + "/document.docx");
+        status.set(500);
+
+        assertEquals(guid, fetcher.resolve(base + "/document.docx"));
+        assertEquals(2, requests.get());
+
+        server.stop(0);
+        assertEquals(guid, fetcher.resolve(base + "/document.docx"));
+        assertEquals("document", content(fetcher, guid));
+    }
+
+    @Test
+    public void redirectIsFollowedOnlyToAllowedHosts() throws Exception {
+        final RemoteDocumentFetcher fetcher = fetcher(Collections.singletonList("127.0.0.1"), 2);
+        assertEquals("document", content(fetcher, fetcher.resolve(base + "/inside")));
+        try {
+            fetcher.resolve(base + "/outside");
+            fail("redirect to a host which is not allowed must be refused");
+        } catch (IOException e) {
+            assertEquals(1, requests.get());
+        }
+    }
+
+    @Test
+    public void emptyAllowedHostsRefuseEveryUrl() throws Exception {
+        final RemoteDocumentFetcher fetcher = fetcher(Collections.<String>emptyList(), 2);
+        try {
+            fetcher.resolve(base + "/document.docx");
+            fail("no host is allowed");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void allowedHostOnInternalAddressIsRefused() throws Exception {
+        final RemoteDocumentFetcher fetcher = fetcher(Collections.singletonList("localhost"), 2);
+        try {
+            fetcher.resolve("http://localhost:" + server.getAddress().getPort() + "/document.docx");
+            fail("loopback address is not listed in allowed hosts");
+        } catch (IOException e) {
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void concurrentFetchesFromHostAreLimited() throws Exception {
+        final RemoteDocumentFetcher fetcher = fetcher(Arrays.asList("127.0.0.1"), 1);
+        final Future<String> slow = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return fetcher.resolve(base + "/slow.docx");
+            }
+        });
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        try {
+            fetcher.resolve(base + "/document.docx");
+            fail("the only connection to the host is taken");
+        } catch (IOException e) {
+            assertEquals(0, requests.get());
+        }
+        slowFinish.countDown();
+        assertEquals("slow", content(fetcher, slow.get(5, TimeUnit.SECONDS)));
+        assertEquals("document", content(fetcher, fetcher.resolve(base + "/document.docx")));
+    }
+
+    private RemoteDocumentFetcher fetcher(List<String> allowedHosts, int maxConnectionsPerHost) throws IOException {
+        final RemoteFetchConfig config = new RemoteFetchConfig();
+        config.setEnabled(true);
+        config.setAllowedHosts(allowedHosts);
+        config.setMaxConnectionsPerHost(maxConnectionsPerHost);
+        config.setConnectTimeout(Duration.milliseconds(500));
+        config.setReadTimeout(Duration.seconds(10));
+        config.setMaxAge(Duration.milliseconds(0));
+        final File storage = folder.newFolder();
+        return new RemoteDocumentFetcher(config, storage.getAbsolutePath(), new File(storage, "cache").getAbsolutePath(), new MetricRegistry());
+    }
+
+    private static String content(RemoteDocumentFetcher fetcher, String guid) throws IOException {
+        return new String(Files.readAllBytes(fetcher.getLocalFile(guid).toPath()), UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        final byte[] bytes = body == null ? new byte[0] : body.getBytes(UTF_8);
+        exchange.sendResponseHeaders(code, code == 304 || body == null ? -1 : bytes.length);
+        final OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.close();
+    }
+}
@@ -0,0 +1,313 @@
+package com.groupdocs.viewer.samples.dropwizard.handler;
+
+import com.groupdocs.viewer.domain.FileDescription;
+import com.groupdocs.viewer.samples.dropwizard.config.StorageConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.dropwizard.util.Size;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * S3 backend and its read-through cache against a local stub of the object store.
+ */
+public class S3StorageBackendTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<String, byte[]>();
+    private final AtomicInteger heads = new AtomicInteger();
+    private final AtomicInteger rangedGets = new AtomicInteger();
+    private final AtomicInteger preconditionFailures = new AtomicInteger();
+    private final AtomicReference<byte[]> replaceAfterFirstRange = new AtomicReference<byte[]>();
+    private StorageConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/bucket/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    respond(exchange, 500, null);
+                }
+            }
+        });
+        server.start();
+        config = new StorageConfig();
+        config.setType("s3");
+        config.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        config.setBucket("bucket");
+        config.setPrefix("docs/");
+        config.setAccessKey("access");
+        config.setSecretKey("secret");
+        config.setRangedFetchThreshold(Size.bytes(100));
+        config.setRangeSize(Size.bytes(64));
+        config.setFetchThreads(3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void describeReadsHead() throws Exception {
+        objects.put("docs/a.docx", bytes(10, 'a'));
+        final FileDescription description = new S3StorageBackend(config).describe("a.docx");
+
+        assertEquals("a.docx", description.getName());
+        assertEquals(10, description.getSize());
+        assertEquals(etagOf(objects.get("docs/a.docx")), ((VersionedFileDescription) description).getVersion());
+        assertNull(new S3StorageBackend(config).describe("missing.docx"));
+    }
+
+    @Test
+    public void rangeOfVersionIsReturnedUntilObjectChanges() throws Exception {
+        final byte[] content = bytes(200, 'r');
+        objects.put("docs/r.docx", content);
+        final S3StorageBackend backend = new S3StorageBackend(config);
+        final String version = ((VersionedFileDescription) backend.describe("r.docx")).getVersion();
+
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 30), read(backend.open("r.docx", 10, 20, version)));
+        assertArrayEquals(content, read(backend.open("r.docx")));
+
+        objects.put("docs/r.docx", bytes(200, 's'));
+        try {
+            backend.open("r.docx", 10, 20, version);
+            fail("the object changed after it was described");
+        } catch (DocumentChangedException e) {
+            assertEquals(1, preconditionFailures.get());
+        }
+    }
+
+    @Test
+    public void listFollowsContinuationTokens() throws Exception {
+        objects.put("docs/one.docx", bytes(1, '1'));
+        objects.put("docs/two.pdf", bytes(2, '2'));
+        objects.put("docs/three.xlsx", bytes(3, '3'));
+        objects.put("docs/sub/four.docx", bytes(4, '4'));
+
+        final List<FileDescription> tree = new S3StorageBackend(config).list("");
+
+        final List<String> names = new ArrayList<String>();
+        for (FileDescription description : tree) {
+            names.add(description.getGuid() + (description.isDirectory() ? "/" : ":" + description.getSize()));
+        }
+        Collections.sort(names);
+        assertEquals(Arrays.asList("one.docx:1", "sub/", "three.xlsx:3", "two.pdf:2"), names);
+        assertEquals("four.docx", new S3StorageBackend(config).list("sub").get(0).getName());
+    }
+
+    @Test
+    public void storePutsDocument() throws Exception {
+        final File upload = folder.newFile("upload.part");
+        Files.write(upload.toPath(), "uploaded".getBytes(UTF_8));
+
+        new S3StorageBackend(config).store("uploaded.docx", upload);
+
+        assertEquals("uploaded", new String(objects.get("docs/uploaded.docx"), UTF_8));
+        assertTrue("the file is consumed", !upload.exists());
+    }
+
+    @Test
+    public void largeDocumentIsReassembledFromRanges() throws Exception {
+        final byte[] content = bytes(1000, 'x');
+        objects.put("docs/large.docx", content);
+        final StorageCache cache = cache();
+
+        final File local = cache.get("large.docx");
+
+        assertArrayEquals(content, Files.readAllBytes(local.toPath()));
+        assertEquals((1000 + 63) / 64, rangedGets.get());
+        assertEquals(local, cache.get("large.docx"));
+        assertEquals("a cached copy is fetched once", (1000 + 63) / 64, rangedGets.get());
+    }
+
+    @Test
+    public void documentChangedDuringFetchIsFetchedAgain() throws Exception {
+        objects.put("docs/changing.docx", bytes(1000, 'o'));
+        final byte[] replacement = bytes(1000, 'n');
+        replaceAfterFirstRange.set(replacement);
+
+        final File local = cache().get("changing.docx");
+
+        assertArrayEquals("ranges of two versions are never mixed", replacement, Files.readAllBytes(local.toPath()));
+        assertTrue(preconditionFailures.get() > 0);
+        assertEquals(2, heads.get());
+    }
+
+    private StorageCache cache() throws IOException {
+        return new StorageCache(new S3StorageBackend(config), config, folder.newFolder().getAbsolutePath());
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        assertNotNull(exchange.getRequestHeaders().getFirst("Authorization"));
+        final String key = URLDecoder.decode(exchange.getRequestURI().getRawPath().substring("/bucket/".length()), "UTF-8");
+        final String method = exchange.getRequestMethod();
+        if ("PUT".equals(method)) {
+            objects.put(key, read(exchange.getRequestBody()));
+            respond(exchange, 200, null);
+            return;
+        }
+        if (key.isEmpty()) {
+            list(exchange, query(exchange.getRequestURI().getRawQuery()));
+            return;
+        }
+        final byte[] content = objects.get(key);
+        if (content == null) {
+            respond(exchange, 404, null);
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", etagOf(content));
+        exchange.getResponseHeaders().set("Last-Modified", "Mon, 19 Oct 2026 10:00:00 GMT");
+        if ("HEAD".equals(method)) {
+            heads.incrementAndGet();
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            respond(exchange, 200, content);
+            return;
+        }
+        final String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch != null && !ifMatch.equals(etagOf(content))) {
+            preconditionFailures.incrementAndGet();
+            respond(exchange, 412, null);
+            return;
+        }
+        rangedGets.incrementAndGet();
+        final String[] bounds = range.substring("bytes=".length()).split("-");
+        final int start = Integer.parseInt(bounds[0]);
+        final int end = Math.min(content.length - 1, Integer.parseInt(bounds[1]));
+        respond(exchange, 206, Arrays.copyOfRange(content, start, end + 1));
+        final byte[] replacement = replaceAfterFirstRange.getAndSet(null);
+        if (replacement != null) {
+            objects.put(key, replacement);
+        }
+    }
+
+    /**
+     * Listing of ListObjectsV2 with one key per page, so every listing is paged.
+     */
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        assertEquals("2", query.get("list-type"));
+        final String prefix = query.get("prefix");
+        final List<String> children = new ArrayList<String>();
+        for (String key : objects.keySet()) {
+            if (key.startsWith(prefix)) {
+                final int slash = key.indexOf('/', prefix.length());
+                final String child = slash < 0 ? key : key.substring(0, slash + 1);
+                if (!children.contains(child)) {
+                    children.add(child);
+                }
+            }
+        }
+        Collections.sort(children);
+        final int index = query.containsKey("continuation-token") ? Integer.parseInt(query.get("continuation-token")) : 0;
+        final StringBuilder xml = new StringBuilder("<ListBucketResult>");
+        if (index < children.size()) {
+            final String child = children.get(index);
+            if (child.endsWith("/")) {
+                xml.append("<CommonPrefixes><Prefix>").append(child).append("</Prefix></CommonPrefixes>");
+            } else {
+                xml.append("<Contents><Key>").append(child).append("</Key><Size>").append(objects.get(child).length)
+                        .append("</Size><LastModified>2026-10-19T10:00:00.000Z</LastModified></Contents>");
+            }
+        }
+        if (index + 1 < children.size()) {
+            xml.append("<IsTruncated>true</IsTruncated><NextContinuationToken>").append(index + 1).append("</NextContinuationToken>");
+        } else {
+            xml.append("<IsTruncated>false</IsTruncated>");
+        }
+        respond(exchange, 200, xml.append("</ListBucketResult>").toString().getBytes(UTF_8));
+    }
+
+    private static Map<String, String> query(String rawQuery) throws IOException {
+        final Map<String, String> query = new HashMap<String, String>();
+        for (String parameter : rawQuery.split("&")) {
+            final int equals = parameter.indexOf('=');
+            query.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"), URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+        }
+        return query;
+    }
+
+    private static String etagOf(byte[] content) {
+        return "\"" + Arrays.hashCode(content) + "\"";
+    }
+
+    private static byte[] bytes(int size, char seed) {
+        final byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (seed + i % 7);
+        }
+        return content;
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[256];
+            int count;
+            while ((count = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body == null ? -1 : body.length);
+        final OutputStream output = exchange.getResponseBody();
+        if (body != null) {
+            output.write(body);
+        }
+        output.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.JanitorConfig;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cleanup of a cache directory.
+ */
+public class DiskJanitorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cache;
+    private final JanitorConfig config = new JanitorConfig();
+
+    @Before
+    public void setUp() throws Exception {
+        cache = folder.newFolder("cache");
+        config.setTtl(Duration.days(1));
+        config.setQuota(Size.bytes(1000));
+        config.setDocumentQuota(Size.bytes(1000));
+    }
+
+    @Test
+    public void outputsAboveQuotaDoNotEvictDocumentCopies() throws Exception {
+        final File pdf = write("pdf/document.pdf", 600, 10);
+        final File oldPage = write("renders/old.json", 600, 5);
+        final File newPage = write("renders/new.json", 600, 1);
+
+        janitor().clean();
+
+        assertTrue("document copies have their own quota", pdf.isFile());
+        assertFalse(oldPage.isFile());
+        assertTrue(newPage.isFile());
+    }
+
+    @Test
+    public void documentCopiesAboveDocumentQuotaAreEvicted() throws Exception {
+        final File oldPdf = write("pdf/old.pdf", 600, 5);
+        final File newCopy = write("storage/new.docx", 600, 1);
+
+        janitor().clean();
+
+        assertFalse(oldPdf.isFile());
+        assertTrue(newCopy.isFile());
+    }
+
+    @Test
+    public void generationsAndLeasesAreNeverDeleted() throws Exception {
+        final File generation = write("generations/document.generation", 2000, 24 * 30);
+        final File lease = write("leases/render.lease", 2000, 24 * 30);
+        final File upload = write("uploads/partial.part", 2000, 1);
+
+        janitor().clean();
+
+        assertTrue(generation.isFile());
+        assertTrue(lease.isFile());
+        assertTrue("uploads are only expired by ttl", upload.isFile());
+    }
+
+    private DiskJanitor janitor() {
+        return new DiskJanitor(config, Collections.singletonList(cache), new MetricRegistry());
+    }
+
+    private File write(String path, int size, long hoursAgo) throws IOException {
+        final File file = new File(cache, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), new byte[size]);
+        assertTrue(file.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hoursAgo)));
+        return file;
+    }
+}
@@ -0,0 +1,54 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.ClusterConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import io.dropwizard.util.Duration;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Node of {@link RenderLeaseManagerTest} running in a second JVM: it takes the lease of the document in
+ * the storage and cache given as arguments, prints {@link #RENDERING} and renders once a line is read from input.
+ */
+public class LeaseNode {
+    static final String RENDERING = "rendering";
+
+    public static void main(String[] args) throws Exception {
+        final DropwizardConfig configuration = new DropwizardConfig();
+        configuration.setStoragePath(args[0]);
+        ViewGenerator.initGenerator(new ViewerConfig(configuration), new RenderScheduler(1, 0, 0, new MetricRegistry()));
+        ViewGenerator.initStorage(new CustomInputDataHandler(new LocalStorageBackend(args[0], ViewGenerator.getFileTreeIndex()), null));
+        final ClusterConfig config = new ClusterConfig();
+        config.setEnabled(true);
+        config.setNodeId("child");
+        config.setLeaseTimeout(Duration.seconds(2));
+        config.setHeartbeatInterval(Duration.milliseconds(200));
+        final RenderLeaseManager manager = new RenderLeaseManager(config, args[1], new MetricRegistry());
+        manager.start();
+        final List<?> pages;
+        try {
+            pages = manager.tryExecute(new RenderRequest("renderashtml", "document.docx"),
+                    new RenderToken(null, 30000), System.nanoTime(), new Callable<List<?>>() {
+                        @Override
+                        public List<?> call() throws Exception {
+                            System.out.println(RENDERING);
+                            System.out.flush();
+                            new BufferedReader(new InputStreamReader(System.in, Charset.forName("UTF-8"))).readLine();
+                            return RenderLeaseManagerTest.pages("child");
+                        }
+                    });
+        } finally {
+            manager.stop();
+        }
+        System.exit(pages == null ? 1 : 0);
+    }
+}
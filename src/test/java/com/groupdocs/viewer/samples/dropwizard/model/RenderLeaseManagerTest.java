@@ -0,0 +1,264 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.ClusterConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.business.HtmlInfo;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import io.dropwizard.util.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two nodes sharing a cache directory, in this JVM or in a second one.
+ */
+public class RenderLeaseManagerTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cache;
+    private RenderLeaseManager first;
+    private RenderLeaseManager second;
+    private final AtomicInteger renders = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Before
+    public void setUp() throws Exception {
+        final File storage = folder.newFolder("storage");
+        Files.write(new File(storage, "document.docx").toPath(), "document".getBytes(UTF_8));
+        cache = folder.newFolder("cache");
+        final DropwizardConfig configuration = new DropwizardConfig();
+        configuration.setStoragePath(storage.getAbsolutePath());
+        final ViewerConfig viewerConfig = new ViewerConfig(configuration);
+        ViewGenerator.initGenerator(viewerConfig, new RenderScheduler(1, 0, 0, new MetricRegistry()));
+        ViewGenerator.initStorage(new CustomInputDataHandler(
+                new LocalStorageBackend(storage.getAbsolutePath(), ViewGenerator.getFileTreeIndex()), null));
+        first = start("first");
+        second = start("second");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    public void rendersOnceAndOtherNodeReusesOutput() throws Exception {
+        final CountDownLatch rendering = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final Future<List<?>> owner = executeAsync(first, request("renderashtml"), new Callable<List<?>>() {
+            @Override
+            public List<?> call() throws Exception {
+                rendering.countDown();
+                finish.await();
+                return pages("rendered");
+            }
+        });
+        assertTrue(rendering.await(5, TimeUnit.SECONDS));
+        final Future<List<?>> waiting = executeAsync(second, request("renderashtml"), render("duplicate"));
+        Thread.sleep(500);
+        assertFalse("second node must wait for the lease holder", waiting.isDone());
+        finish.countDown();
+
+        assertEquals("rendered", content(owner.get(5, TimeUnit.SECONDS)));
+        assertEquals("rendered", content(waiting.get(5, TimeUnit.SECONDS)));
+        assertEquals(0, renders.get());
+    }
+
+    @Test
+    public void expiredLeaseIsTakenOver() throws Exception {
+        final Path lease = leaseOf(request("renderashtml"));
+        Files.write(lease, "dead 1".getBytes(UTF_8));
+        Files.setLastModifiedTime(lease, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        final List<?> pages = executeAsync(second, request("renderashtml"), render("taken over")).get(5, TimeUnit.SECONDS);
+
+        assertEquals("taken over", content(pages));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void liveLeaseIsNotTakenOver() throws Exception {
+        final Path lease = leaseOf(request("renderashtml"));
+        Files.write(lease, "alive 1".getBytes(UTF_8));
+
+        final Future<List<?>> waiting = executeAsync(second, request("renderashtml"), render("duplicate"));
+        Thread.sleep(1000);
+
+        assertFalse(waiting.isDone());
+        assertEquals("alive 1", new String(Files.readAllBytes(lease), UTF_8));
+        assertEquals(0, renders.get());
+        waiting.cancel(true);
+    }
+
+    @Test
+    public void attemptDoesNotWaitForLiveLease() throws Exception {
+        Files.write(leaseOf(request("renderashtml")), "alive 1".getBytes(UTF_8));
+
+        final long start = System.nanoTime();
+        assertNull(second.tryExecute(request("renderashtml"), token(), start, render("duplicate")));
+        assertTrue("the render thread is not kept while waiting",
+                System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(0, renders.get());
+    }
+
+    @Test
+    public void leaseOfOtherProcessIsExclusiveAndRestored() throws Exception {
+        final Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath(),
+                "-cp", System.getProperty("java.class.path"), LeaseNode.class.getName(),
+                new File(folder.getRoot(), "storage").getAbsolutePath(), cache.getAbsolutePath())
+                .redirectErrorStream(true).start();
+        try {
+            final BufferedReader output = new BufferedReader(new InputStreamReader(child.getInputStream(), UTF_8));
+            String line;
+            while ((line = output.readLine()) != null && !line.equals(LeaseNode.RENDERING)) {
+                System.out.println(line);
+            }
+            assertEquals(LeaseNode.RENDERING, line);
+            final Path lease = leaseOf(request("renderashtml"));
+            final String childId = new String(Files.readAllBytes(lease), UTF_8);
+            assertTrue(childId.startsWith("child "));
+
+            assertNull("the lease created by the other process is exclusive",
+                    second.tryExecute(request("renderashtml"), token(), System.nanoTime(), render("duplicate")));
+            assertFalse("a live lease is not removed", second.takeOver(lease, "expired elsewhere"));
+            assertEquals("the live lease is restored", childId, new String(Files.readAllBytes(lease), UTF_8));
+
+            final Writer input = new OutputStreamWriter(child.getOutputStream(), UTF_8);
+            input.write("finish\n");
+            input.flush();
+            assertTrue(child.waitFor(10, TimeUnit.SECONDS));
+            assertEquals(0, child.exitValue());
+            assertFalse("the lease holder released the lease", Files.exists(lease));
+            assertEquals("child", content(execute(second, request("renderashtml"), render("duplicate"))));
+            assertEquals(0, renders.get());
+        } finally {
+            child.destroy();
+        }
+    }
+
+    @Test
+    public void transformationIsAlwaysRendered() throws Exception {
+        final RenderRequest rotate = request("renderashtmlwithrotate").setParameter("page", "1").setParameter("angle", "90");
+        execute(first, rotate, render("rotated"));
+        execute(second, rotate, render("rotated twice"));
+
+        assertEquals("each rotate must render", 2, renders.get());
+    }
+
+    @Test
+    public void newGenerationInvalidatesPublishedOutput() throws Exception {
+        assertEquals("before", content(execute(first, request("renderashtml"), render("before"))));
+        assertEquals("before", content(execute(second, request("renderashtml"), render("duplicate"))));
+
+        // As after rotate or reorder, see RenderService
+        ViewGenerator.getGenerations().next("document.docx");
+
+        assertEquals("after", content(execute(second, request("renderashtml"), render("after"))));
+        assertEquals("after", content(execute(first, request("renderashtml"), render("duplicate"))));
+        assertEquals(2, renders.get());
+    }
+
+    private RenderLeaseManager start(String nodeId) throws Exception {
+        final ClusterConfig config = new ClusterConfig();
+        config.setEnabled(true);
+        config.setNodeId(nodeId);
+        config.setLeaseTimeout(Duration.seconds(2));
+        config.setHeartbeatInterval(Duration.milliseconds(200));
+        final RenderLeaseManager manager = new RenderLeaseManager(config, cache.getAbsolutePath(), new MetricRegistry());
+        manager.start();
+        return manager;
+    }
+
+    private Future<List<?>> executeAsync(final RenderLeaseManager manager, final RenderRequest request, final Callable<List<?>> render) {
+        return executor.submit(new Callable<List<?>>() {
+            @Override
+            public List<?> call() throws Exception {
+                return execute(manager, request, render);
+            }
+        });
+    }
+
+    /**
+     * Repeat attempts like {@link RenderService} does, without a scheduler.
+     */
+    private static List<?> execute(RenderLeaseManager manager, RenderRequest request, Callable<List<?>> render) throws Exception {
+        final RenderToken token = token();
+        final long since = System.nanoTime();
+        while (true) {
+            final List<?> pages = manager.tryExecute(request, token, since, render);
+            if (pages != null) {
+                return pages;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private Path leaseOf(RenderRequest request) {
+        final String key = Utilities.makeCacheKey(request.toString(), ViewGenerator.getDocumentVersion(request.getFilePath()), "");
+        return new File(new File(cache, "leases"), key + ".lease").toPath();
+    }
+
+    private Callable<List<?>> render(final String content) {
+        return new Callable<List<?>>() {
+            @Override
+            public List<?> call() throws Exception {
+                renders.incrementAndGet();
+                return pages(content);
+            }
+        };
+    }
+
+    private static RenderRequest request(String action) {
+        return new RenderRequest(action, "document.docx");
+    }
+
+    private static RenderToken token() {
+        return new RenderToken(null, 10000);
+    }
+
+    static List<?> pages(String content) {
+        final HtmlInfo page = new HtmlInfo();
+        page.setPageNmber(1);
+        page.setHtmlContent(content);
+        return Collections.singletonList(page);
+    }
+
+    private static String content(List<?> pages) {
+        return ((HtmlInfo) pages.get(0)).getHtmlContent();
+    }
+}
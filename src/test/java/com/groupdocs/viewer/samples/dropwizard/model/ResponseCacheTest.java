@@ -0,0 +1,65 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ResponseCacheConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.ViewerConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.CustomInputDataHandler;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.business.RenderRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Keys of cached responses, which are also their entity tags.
+ */
+public class ResponseCacheTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        final File storage = folder.newFolder("storage");
+        Files.write(new File(storage, "document.docx").toPath(), "document".getBytes(UTF_8));
+        final DropwizardConfig configuration = new DropwizardConfig();
+        configuration.setStoragePath(storage.getAbsolutePath());
+        ViewGenerator.initGenerator(new ViewerConfig(configuration), new RenderScheduler(1, 0, 0, new MetricRegistry()));
+        ViewGenerator.initStorage(new CustomInputDataHandler(
+                new LocalStorageBackend(storage.getAbsolutePath(), ViewGenerator.getFileTreeIndex()), null));
+    }
+
+    @Test
+    public void keySurvivesRestartAndChangesWithGeneration() throws Exception {
+        final RenderRequest request = new RenderRequest("renderashtml", "document.docx");
+        final String before = cache().getKey(request);
+        assertEquals("a restarted node must send the same tag", before, cache().getKey(request));
+
+        ViewGenerator.getGenerations().next("document.docx");
+
+        final String after = cache().getKey(request);
+        assertFalse("tag sent before rotate must not match", before.equals(after));
+        assertEquals(after, cache().getKey(request));
+    }
+
+    @Test
+    public void transformationsAreNotCached() throws Exception {
+        assertNull(cache().getKey(new RenderRequest("renderashtmlwithrotate", "document.docx")));
+        assertNull(cache().getKey(new RenderRequest("renderasimage", "document.docx")));
+    }
+
+    private static ResponseCache cache() {
+        return new ResponseCache(new ResponseCacheConfig(), new MetricRegistry());
+    }
+}
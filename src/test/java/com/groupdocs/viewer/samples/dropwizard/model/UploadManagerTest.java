@@ -0,0 +1,56 @@
+package com.groupdocs.viewer.samples.dropwizard.model;
+
+import com.codahale.metrics.MetricRegistry;
+import com.groupdocs.viewer.samples.dropwizard.config.DropwizardConfig;
+import com.groupdocs.viewer.samples.dropwizard.config.JanitorConfig;
+import com.groupdocs.viewer.samples.dropwizard.handler.LocalStorageBackend;
+import com.groupdocs.viewer.samples.dropwizard.model.business.UploadSession;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Chunked uploads kept in the temp directory.
+ */
+public class UploadManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void uploadReceivingChunksIsNotExpired() throws Exception {
+        final File temp = folder.newFolder("temp");
+        final UploadManager uploads = manager(temp);
+        final UploadSession session = uploads.createSession("document.docx", 10);
+        final long twoDaysAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        for (File file : new File(temp, "uploads").listFiles()) {
+            assertTrue(file.setLastModified(twoDaysAgo));
+        }
+
+        uploads.appendChunk(session, 0, new ByteArrayInputStream(new byte[5]));
+        final JanitorConfig config = new JanitorConfig();
+        config.setTtl(Duration.days(1));
+        config.setQuota(Size.megabytes(1));
+        config.setDocumentQuota(Size.megabytes(1));
+        new DiskJanitor(config, Collections.singletonList(temp), new MetricRegistry()).clean();
+
+        final UploadSession restored = manager(temp).getSession(session.getSessionId());
+        assertNotNull("session metadata survives the ttl while chunks arrive", restored);
+        assertEquals(5, restored.getOffset());
+    }
+
+    private UploadManager manager(File temp) throws Exception {
+        final File storage = new File(folder.getRoot(), "storage");
+        return new UploadManager(new DropwizardConfig(), new LocalStorageBackend(storage.getAbsolutePath(), null), temp.getAbsolutePath());
+    }
+}